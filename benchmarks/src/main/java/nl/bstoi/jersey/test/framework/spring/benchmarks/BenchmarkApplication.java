@@ -0,0 +1,16 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * Application used by the benchmarks.
+ */
+public class BenchmarkApplication extends ResourceConfig {
+
+    public BenchmarkApplication() {
+        register(BenchmarkResource.class);
+        register(JacksonFeature.class);
+        property("contextConfigLocation", "classpath:benchmark-applicationContext.xml");
+    }
+}
@@ -0,0 +1,58 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Minimal keep-alive HTTP client, so the benchmarks measure the container instead of the client.
+ */
+public final class BenchmarkHttpClient {
+
+    private final byte[] readBuffer = new byte[64 * 1024];
+
+    /**
+     * Execute a request and read the response entity.
+     *
+     * @param method      HTTP method.
+     * @param url         request URL.
+     * @param contentType content type of the request entity, {@code null} without entity.
+     * @param entity      request entity, {@code null} without entity.
+     * @return number of response entity bytes read.
+     * @throws IOException if the request fails or the response status is not 200.
+     */
+    public long execute(final String method, final URL url, final String contentType, final byte[] entity)
+            throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (entity != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setFixedLengthStreamingMode(entity.length);
+            final OutputStream out = connection.getOutputStream();
+            try {
+                out.write(entity);
+            } finally {
+                out.close();
+            }
+        }
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Unexpected response status " + connection.getResponseCode() + " for " + url);
+        }
+
+        // Read the entity completely, so the connection is returned to the keep-alive cache
+        long read = 0;
+        final InputStream in = connection.getInputStream();
+        try {
+            int n;
+            while ((n = in.read(readBuffer)) != -1) {
+                read += n;
+            }
+        } finally {
+            in.close();
+        }
+        return read;
+    }
+}
@@ -0,0 +1,67 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.Arrays;
+
+/**
+ * Resource used by the benchmarks.
+ */
+@Path("benchmark")
+public class BenchmarkResource {
+
+    /**
+     * Size of the large entity, 1 MB.
+     */
+    public static final int LARGE_ENTITY_SIZE = 1024 * 1024;
+
+    /**
+     * Time the blocking resource waits, as for a slow database query.
+     */
+    public static final long BLOCKING_MILLIS = 10;
+
+    private static final byte[] LARGE_ENTITY = new byte[LARGE_ENTITY_SIZE];
+
+    static {
+        Arrays.fill(LARGE_ENTITY, (byte) 'x');
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @GET
+    @Path("small")
+    @Produces(MediaType.TEXT_PLAIN)
+    public String small() {
+        return "ok";
+    }
+
+    @POST
+    @Path("json")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Order json(final Order order) {
+        return orderService.process(order);
+    }
+
+    @GET
+    @Path("large")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public byte[] large() {
+        return LARGE_ENTITY;
+    }
+
+    @GET
+    @Path("blocking")
+    @Produces(MediaType.TEXT_PLAIN)
+    public String blocking() throws InterruptedException {
+        Thread.sleep(BLOCKING_MILLIS);
+        return "ok";
+    }
+}
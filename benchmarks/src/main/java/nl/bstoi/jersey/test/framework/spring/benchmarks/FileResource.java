@@ -0,0 +1,26 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.File;
+
+/**
+ * Resource returning a file, used by the file transfer benchmarks.
+ */
+@Path("files")
+public class FileResource {
+
+    private final File file;
+
+    public FileResource(final File file) {
+        this.file = file;
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public File get() {
+        return file;
+    }
+}
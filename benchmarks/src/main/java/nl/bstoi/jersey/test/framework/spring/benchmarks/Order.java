@@ -0,0 +1,55 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+import java.util.List;
+
+/**
+ * JSON entity used by the benchmarks.
+ */
+public class Order {
+
+    private long id;
+    private String customer;
+    private List<String> items;
+    private double amount;
+    private boolean processed;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    public void setItems(List<String> items) {
+        this.items = items;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public boolean isProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(boolean processed) {
+        this.processed = processed;
+    }
+}
@@ -0,0 +1,12 @@
+package nl.bstoi.jersey.test.framework.spring.benchmarks;
+
+/**
+ * Spring bean used by the benchmark resource.
+ */
+public class OrderService {
+
+    public Order process(final Order order) {
+        order.setProcessed(true);
+        return order;
+    }
+}
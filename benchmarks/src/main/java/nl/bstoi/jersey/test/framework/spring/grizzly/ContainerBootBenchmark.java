@@ -0,0 +1,51 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkApplication;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the boot time of a test container: {@link SpringGrizzlyTestContainerFactory#create} and
+ * {@link SpringTestContainer#start()}, including the Spring context refresh and the listener bind.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ContainerBootBenchmark {
+
+    private static final URI BASE_URI = URI.create("http://localhost:0/");
+
+    private SpringTestContainer container;
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (container != null) {
+            container.stop();
+            container = null;
+        }
+    }
+
+    @Benchmark
+    public SpringTestContainer boot() {
+        container = new SpringGrizzlyTestContainerFactory().create(BASE_URI,
+                DeploymentContext.builder(new BenchmarkApplication()).build());
+        container.start();
+        return container;
+    }
+}
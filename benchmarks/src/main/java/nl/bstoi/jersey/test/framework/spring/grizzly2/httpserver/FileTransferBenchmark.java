@@ -0,0 +1,88 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkApplication;
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkHttpClient;
+import nl.bstoi.jersey.test.framework.spring.benchmarks.FileResource;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks downloading a file resource over a loopback connection, copied through the Jersey entity stream or sent
+ * with a Grizzly file transfer by the {@link FileTransferFeature}. Run with {@code -prof gc} to compare the
+ * allocations per download.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTransferBenchmark {
+
+    @Param({"10", "100", "1024"})
+    private int sizeInMegabytes;
+
+    @Param({"false", "true"})
+    private boolean sendfile;
+
+    private File file;
+    private HttpServer server;
+    private URL fileUrl;
+    private final BenchmarkHttpClient client = new BenchmarkHttpClient();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("file-transfer-benchmark", ".bin");
+        final byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+        final RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            for (int i = 0; i < sizeInMegabytes; i++) {
+                out.write(block);
+            }
+        } finally {
+            out.close();
+        }
+
+        final BenchmarkApplication application = new BenchmarkApplication();
+        application.registerInstances(new FileResource(file));
+        if (sendfile) {
+            application.register(FileTransferFeature.class);
+        }
+        server = SpringGrizzlyHttpServerFactory.createHttpServer(URI.create("http://localhost:0/"), application, true);
+        fileUrl = new URL("http://localhost:" + server.getListener("grizzly").getPort() + "/files");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdownNow();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        return client.execute("GET", fileUrl, null, null);
+    }
+}
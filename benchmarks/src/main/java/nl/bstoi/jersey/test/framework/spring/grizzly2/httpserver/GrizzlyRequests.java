@@ -0,0 +1,70 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnection;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * Creates Grizzly requests without a network connection, to benchmark the request adaptation of the container in
+ * isolation.
+ */
+public final class GrizzlyRequests {
+
+    private static final TCPNIOTransport TRANSPORT = TCPNIOTransportBuilder.newInstance().build();
+
+    /**
+     * Create a Grizzly request as if it was parsed from the wire.
+     *
+     * @param method  HTTP method.
+     * @param uri     request URI (path).
+     * @param query   query string, {@code null} without query.
+     * @param headers request headers.
+     * @return Grizzly request.
+     */
+    public static Request create(final String method, final String uri, final String query,
+                                 final Map<String, String> headers) {
+        final TCPNIOConnection connection = new TCPNIOConnection(TRANSPORT, null) {
+
+            @Override
+            public InetSocketAddress getLocalAddress() {
+                return new InetSocketAddress("localhost", 9998);
+            }
+
+            @Override
+            public InetSocketAddress getPeerAddress() {
+                return new InetSocketAddress("localhost", 50000);
+            }
+        };
+
+        final HttpRequestPacket.Builder builder = HttpRequestPacket.builder()
+                .method(method)
+                .uri(uri)
+                .protocol("HTTP/1.1")
+                .host("localhost:9998");
+        if (query != null) {
+            builder.query(query);
+        }
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        final HttpRequestPacket packet = builder.build();
+        packet.setConnection(connection);
+        packet.getRequestURIRef().init(uri);
+
+        final Request request = Request.create();
+        request.initialize(packet, FilterChainContext.create(connection), null);
+        return request;
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private GrizzlyRequests() {
+    }
+}
@@ -0,0 +1,90 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkApplication;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the adaptation of a Grizzly request into a Jersey container request: base and request URI construction,
+ * header copying and the complete container request. Run with {@code -prof gc} to see the allocations per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestAdaptationBenchmark {
+
+    @Param({"5", "30"})
+    private int headerCount;
+
+    private SpringGrizzlyHttpContainer container;
+    private Request request;
+    private Response response;
+    private URI baseUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        container = new SpringGrizzlyHttpContainer(new BenchmarkApplication());
+
+        final Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put("Accept", "application/json");
+        headers.put("User-Agent", "benchmark");
+        for (int i = 2; i < headerCount; i++) {
+            headers.put("X-Trace-" + i, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-0" + i);
+        }
+        request = GrizzlyRequests.create("GET", "/benchmark/orders/42", "expand=items&page=1", headers);
+        response = new Response() {
+        };
+        baseUri = container.getBaseUri(request);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        container.destroy();
+    }
+
+    @Benchmark
+    public URI baseUri() {
+        return container.getBaseUri(request);
+    }
+
+    @Benchmark
+    public URI requestUri() {
+        return container.getRequestUri(baseUri, request);
+    }
+
+    @Benchmark
+    public ContainerRequest copyHeaders() {
+        final ContainerRequest requestContext = new ContainerRequest(baseUri, baseUri, "GET", null,
+                new MapPropertiesDelegate());
+        container.copyHeaders(request, requestContext);
+        return requestContext;
+    }
+
+    @Benchmark
+    public ContainerRequest containerRequest() {
+        return container.createContainerRequest(request, response, null, request.getInputStream());
+    }
+}
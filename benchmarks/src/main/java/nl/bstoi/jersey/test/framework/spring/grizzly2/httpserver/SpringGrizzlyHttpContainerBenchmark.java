@@ -0,0 +1,82 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkApplication;
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkHttpClient;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmarks of {@link SpringGrizzlyHttpContainer#service}, requests are sent over a keep-alive loopback
+ * connection to a started Grizzly server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringGrizzlyHttpContainerBenchmark {
+
+    private static final byte[] JSON_ENTITY = ("{\"id\":42,\"customer\":\"codecentric\","
+            + "\"items\":[\"spring\",\"jersey\",\"grizzly\"],\"amount\":99.95}").getBytes(Charset.forName("UTF-8"));
+
+    private HttpServer server;
+    private URL smallUrl;
+    private URL jsonUrl;
+    private URL largeUrl;
+
+    /**
+     * Client per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ClientState {
+        private final BenchmarkHttpClient client = new BenchmarkHttpClient();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = SpringGrizzlyHttpServerFactory.createHttpServer(URI.create("http://localhost:0/"),
+                new BenchmarkApplication(), true);
+        final String baseUri = "http://localhost:" + server.getListener("grizzly").getPort() + "/benchmark/";
+        smallUrl = new URL(baseUri + "small");
+        jsonUrl = new URL(baseUri + "json");
+        largeUrl = new URL(baseUri + "large");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public long smallGet(final ClientState state) throws IOException {
+        return state.client.execute("GET", smallUrl, null, null);
+    }
+
+    @Benchmark
+    public long jsonPost(final ClientState state) throws IOException {
+        return state.client.execute("POST", jsonUrl, "application/json", JSON_ENTITY);
+    }
+
+    @Benchmark
+    public long largeEntity(final ClientState state) throws IOException {
+        return state.client.execute("GET", largeUrl, null, null);
+    }
+}
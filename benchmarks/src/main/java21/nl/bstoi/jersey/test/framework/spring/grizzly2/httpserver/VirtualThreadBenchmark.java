@@ -0,0 +1,93 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import nl.bstoi.jersey.test.framework.spring.benchmarks.BenchmarkApplication;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a blocking resource with the Grizzly worker thread pool and with a virtual thread per request. Every
+ * invocation sends {@code concurrency} requests at once, each over its own connection, and waits for all responses.
+ * The {@code requests} counter is the number of requests per second.
+ * <p>
+ * 10000 concurrent connections need about 20000 file descriptors, raise the limit with {@code ulimit -n} first.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"1000", "10000"})
+    private int concurrency;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private HttpServer server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    /**
+     * Number of completed requests, reported by JMH per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long requests;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = SpringGrizzlyHttpServerFactory.createHttpServer(URI.create("http://localhost:0/"),
+                new BenchmarkApplication(), GrizzlyTransportConfig.builder().virtualThreads(virtualThreads).build(),
+                true);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getListener("grizzly").getPort()
+                + "/benchmark/blocking")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public int blocking(final Counters counters) {
+        final CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("Unexpected response status " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        counters.requests += concurrency;
+        return concurrency;
+    }
+}
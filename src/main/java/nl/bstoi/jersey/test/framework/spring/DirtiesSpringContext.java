@@ -0,0 +1,31 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test method of a {@link SpringContextJerseyTest} as changing the state of the Spring application context,
+ * e.g. by replacing or reconfiguring beans. After the test the reused or pooled test container and the cached
+ * application context it used are discarded, so the next test gets freshly booted ones. Tests that are not marked keep
+ * sharing the warm container. On a test class every test method of the class is marked.
+ * <p>
+ * Tests can also mark the context at runtime with {@link SpringContextJerseyTest#markSpringContextDirty(String)}.
+ * The discarded containers and contexts are counted per reason in the
+ * {@link nl.bstoi.jersey.test.framework.spring.cache.ContextRebuilds}.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface DirtiesSpringContext {
+
+    /**
+     * @return why the test dirties the application context, reported with the rebuild counts.
+     */
+    String value() default "";
+}
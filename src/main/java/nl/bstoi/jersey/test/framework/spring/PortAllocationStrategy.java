@@ -0,0 +1,88 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.glassfish.jersey.test.spi.TestContainerException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Strategies to select the port a test container is deployed at, selected with the
+ * {@link SpringTestProperties#CONTAINER_PORT_STRATEGY} property.
+ */
+public enum PortAllocationStrategy {
+
+    /**
+     * Use the configured port ({@link org.glassfish.jersey.test.TestProperties#CONTAINER_PORT}) as is.
+     */
+    FIXED {
+        @Override
+        int allocate(final int port, final int forkNumber, final int rangeSize) {
+            return port;
+        }
+    },
+
+    /**
+     * Let the operating system pick a free port when the container is started. The real port is available from the
+     * base URI of the test container once it is started.
+     */
+    EPHEMERAL {
+        @Override
+        int allocate(final int port, final int forkNumber, final int rangeSize) {
+            return 0;
+        }
+    },
+
+    /**
+     * Every fork gets its own range of {@link SpringTestProperties#CONTAINER_PORT_RANGE_SIZE} ports, starting at
+     * {@code port + forkNumber * rangeSize}. Within the range the next free port is used, so parallel test threads
+     * in the same fork do not collide either.
+     */
+    RANGE {
+        @Override
+        int allocate(final int port, final int forkNumber, final int rangeSize) {
+            final int rangeStart = port + forkNumber * rangeSize;
+            for (int attempt = 0; attempt < rangeSize; attempt++) {
+                final int candidate = rangeStart + (RANGE_CURSOR.getAndIncrement() & Integer.MAX_VALUE) % rangeSize;
+                if (isFree(candidate)) {
+                    return candidate;
+                }
+            }
+            throw new TestContainerException("No free port found in range [" + rangeStart + ", "
+                    + (rangeStart + rangeSize) + ").");
+        }
+    };
+
+    private static final AtomicInteger RANGE_CURSOR = new AtomicInteger();
+
+    /**
+     * Allocate the port for a test container.
+     *
+     * @param port       configured port.
+     * @param forkNumber number of the (surefire) fork running the test.
+     * @param rangeSize  number of ports reserved for each fork.
+     * @return port to deploy the test container at, {@code 0} to let the operating system pick a free port.
+     */
+    abstract int allocate(int port, int forkNumber, int rangeSize);
+
+    private static boolean isFree(final int port) {
+        ServerSocket socket = null;
+        try {
+            socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,43 @@
 package nl.bstoi.jersey.test.framework.spring;
 
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import nl.bstoi.jersey.test.framework.spring.cache.ApplicationContextCache;
+import nl.bstoi.jersey.test.framework.spring.cache.ContextRebuilds;
+import nl.bstoi.jersey.test.framework.spring.cache.ReusableSpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.cache.SpringTestContainerCache;
+import nl.bstoi.jersey.test.framework.spring.cache.SpringTestContainerPool;
+import nl.bstoi.jersey.test.framework.spring.client.Http2ConnectorProvider;
+import nl.bstoi.jersey.test.framework.spring.client.PooledConnectorSupport;
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.AsyncSpringTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer;
 import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
 import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
 import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.StopPolicy;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.GrizzlyIOStrategy;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.GrizzlyTransportConfig;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.FileTransferFeature;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.Http2Support;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.RequestBuffering;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.ResponseBuffering;
+import nl.bstoi.jersey.test.framework.spring.load.LoadGenerator;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecorder;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecording;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import nl.bstoi.jersey.test.framework.spring.profile.BootPhase;
+import nl.bstoi.jersey.test.framework.spring.profile.BootProfile;
+import nl.bstoi.jersey.test.framework.spring.profile.BootProfiler;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.filter.LoggingFilter;
 import org.glassfish.jersey.internal.ServiceFinderBinder;
@@ -19,6 +50,10 @@ import org.glassfish.jersey.test.spi.TestContainerException;
 import org.glassfish.jersey.test.spi.TestContainerFactory;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
 import org.springframework.context.ApplicationContext;
 
 import javax.ws.rs.RuntimeType;
@@ -27,9 +62,12 @@ import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.UriBuilder;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.security.AccessController;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.*;
 
 /**
@@ -47,20 +85,61 @@ public class SpringContextJerseyTest {
      * tests.
      */
     private static Class<? extends SpringTestContainerFactory> testContainerFactoryClass;
+    /**
+     * Logs how often the tests of a class {@link DirtiesSpringContext dirtied} the Spring application context.
+     */
+    @ClassRule
+    public static final TestWatcher contextRebuildReport = new TestWatcher() {
+
+        @Override
+        protected void finished(final Description description) {
+            if (description.getTestClass() != null) {
+                ContextRebuilds.getInstance().log(description.getTestClass());
+            }
+        }
+    };
+    /**
+     * Test classes whose boot profile is written, the profile is written once per test class.
+     */
+    private static final Set<Class<?>> writtenBootProfiles = Sets.newConcurrentHashSet();
     /**
      * The test container factory which creates an instance of the test container
      * on which the tests would be run.
      */
     private TestContainerFactory testContainerFactory;
     /**
-     * The test container on which the tests would be run.
+     * The test container on which the tests would be run. When the container is leased from a
+     * {@link SpringTestContainerPool} it is only available between {@link #setUp()} and {@link #tearDown()}.
+     */
+    private SpringTestContainer tc;
+    /**
+     * The pool the test container is leased from, {@code null} if pooling is disabled.
      */
-    private final SpringTestContainer tc;
+    private SpringTestContainerPool containerPool;
+    /**
+     * Key of the reused or pooled test container, {@code null} if the container is not shared between tests.
+     */
+    private SpringTestContainerCache.Key containerKey;
     private Client client;
+    /**
+     * {@code true} if the client is shared by the tests using the test container and closed with the container.
+     */
+    private boolean clientShared;
 
     private final ResourceConfig resourceConfig;
 
     private final DeploymentContext deploymentContext;
+
+    /**
+     * Records the boot of the test container, {@code null} if boot profiling is disabled.
+     */
+    private final BootProfiler bootProfiler;
+    private boolean serverStartProfiled;
+
+    /**
+     * Port allocated for this test instance, see {@link #getPort()}.
+     */
+    private Integer allocatedPort;
     /**
      * JerseyTest property bag that can be used to configure the test behavior.
      * These properties can be overridden with a system property.
@@ -71,11 +150,47 @@ public class SpringContextJerseyTest {
      * These property cannot be overridden with a system property.
      */
     private final Map<String, String> forcedPropertyMap = Maps.newHashMap();
+    /**
+     * Test properties resolved from the property bags and the system properties, {@code null} after a property is set.
+     */
+    private volatile TestPropertiesSnapshot testProperties;
+
+    /**
+     * Log recording settings, {@code null} if log recording is disabled.
+     */
+    private LogRecording logRecording;
+    private List<LogRecord> loggedStartupRecords = Collections.emptyList();
+    /**
+     * Buffer of the test container the runtime records are recorded in, only set between setUp() and tearDown().
+     */
+    private LogRecordBuffer loggedRuntimeRecords;
+    private LogRecordBuffer previousLogRecordBuffer;
+
+    /**
+     * The running test method, {@code null} outside a test.
+     */
+    private Description testDescription;
+    /**
+     * Why the running test dirtied the Spring application context, {@code null} if it did not.
+     */
+    private String dirtyReason;
+
+    /**
+     * Records the running test method, so {@link DirtiesSpringContext} can be detected on tear down.
+     */
+    @Rule
+    public final TestWatcher testMethodWatcher = new TestWatcher() {
 
-    private Handler logHandler;
-    private List<LogRecord> loggedStartupRecords = Lists.newArrayList();
-    private List<LogRecord> loggedRuntimeRecords = Lists.newArrayList();
-    private Map<Logger, Level> logLevelMap = Maps.newIdentityHashMap();
+        @Override
+        protected void starting(final Description description) {
+            testDescription = description;
+        }
+
+        @Override
+        protected void finished(final Description description) {
+            testDescription = null;
+        }
+    };
 
     /**
      * An extending class must implement the {@link #configure()} method to
@@ -86,19 +201,72 @@ public class SpringContextJerseyTest {
      *                                                              supported by the test container factory.
      */
     public SpringContextJerseyTest() throws TestContainerException {
+        // the test properties are only known after configure(), so the first phases are always timed
+        final long configureStart = System.nanoTime();
         final Application application = configure();
+        final long configured = System.nanoTime();
         deploymentContext = DeploymentContext.builder(application).build();
         resourceConfig = deploymentContext.getResourceConfig();
         resourceConfig.register(new ServiceFinderBinder<TestContainerFactory>(TestContainerFactory.class, null, RuntimeType.SERVER));
 
-        if (isLogRecordingEnabled()) {
-            registerLogHandler();
+        if (isEnabled(SpringTestProperties.BOOT_PROFILE)) {
+            bootProfiler = new BootProfiler(getClass().getName());
+            bootProfiler.record(BootPhase.CONFIGURE, configured - configureStart);
+            bootProfiler.record(BootPhase.DEPLOYMENT_CONTEXT, System.nanoTime() - configured);
+            bootProfiler.register(resourceConfig);
+        } else {
+            bootProfiler = null;
+        }
+
+        if (isEnabled(SpringTestProperties.REQUEST_METRICS)) {
+            RequestMetrics.register(resourceConfig);
+        }
+
+        final GrizzlyTransportConfig transportConfig = getGrizzlyTransportConfig();
+        if (!transportConfig.isDefault()) {
+            resourceConfig.property(GrizzlyTransportConfig.PROPERTY, transportConfig);
         }
-        this.tc = getContainer(getTestContainerFactory());
+        final ResponseBuffering responseBuffering = getResponseBuffering();
+        if (!responseBuffering.isDefault()) {
+            ResponseBuffering.register(resourceConfig, responseBuffering);
+        }
+        if (isEnabled(SpringTestProperties.RESPONSE_SENDFILE)) {
+            resourceConfig.register(FileTransferFeature.class);
+        }
+        final int requestBufferThreshold = getIntegerProperty(SpringTestProperties.REQUEST_BUFFER_THRESHOLD, -1);
+        if (requestBufferThreshold >= 0) {
+            RequestBuffering.register(resourceConfig, RequestBuffering.buffered(requestBufferThreshold));
+        }
+        if (isEnabled(SpringTestProperties.HTTP2)) {
+            Http2Support.enable(resourceConfig);
+        }
+        final StopPolicy stopPolicy = getStopPolicy();
+        if (stopPolicy.getMode() != StopPolicy.Mode.NOW) {
+            resourceConfig.property(StopPolicy.PROPERTY, stopPolicy);
+        }
+
+        LogRecordBuffer startupRecords = null;
         if (isLogRecordingEnabled()) {
-            loggedStartupRecords.addAll(loggedRuntimeRecords);
-            loggedRuntimeRecords.clear();
-            unregisterLogHandler();
+            logRecording = new LogRecording(Level.parse(getProperty(TestProperties.RECORD_LOG_LEVEL)),
+                    getIntegerProperty(SpringTestProperties.LOG_RECORD_BUFFER_SIZE,
+                            SpringTestProperties.DEFAULT_LOG_RECORD_BUFFER_SIZE));
+            LogRecording.register(resourceConfig, logRecording);
+            startupRecords = logRecording.newBuffer();
+            LogRecorder.activate(startupRecords);
+            previousLogRecordBuffer = LogRecorder.bind(startupRecords);
+        }
+        final SpringTestContainerFactory tcf = getTestContainerFactory();
+        final int poolSize = getIntegerProperty(SpringTestProperties.CONTAINER_POOL_SIZE, 0);
+        if (poolSize > 0) {
+            this.containerPool = getContainerPool(tcf, poolSize);
+        } else {
+            this.containerPool = null;
+            this.tc = getContainer(tcf);
+        }
+        if (startupRecords != null) {
+            loggedStartupRecords = startupRecords.getRecords();
+            LogRecorder.bind(previousLogRecordBuffer);
+            LogRecorder.deactivate(startupRecords);
         }
     }
 
@@ -111,6 +279,7 @@ public class SpringContextJerseyTest {
     protected final void enable(String featureName) {
         // TODO: perhaps we could reuse the resource config for the test properties?
         propertyMap.put(featureName, Boolean.TRUE.toString());
+        testProperties = null;
     }
 
     /**
@@ -121,6 +290,7 @@ public class SpringContextJerseyTest {
      */
     protected final void disable(String featureName) {
         propertyMap.put(featureName, Boolean.FALSE.toString());
+        testProperties = null;
     }
 
     /**
@@ -132,6 +302,7 @@ public class SpringContextJerseyTest {
      */
     protected final void forceEnable(String featureName) {
         forcedPropertyMap.put(featureName, Boolean.TRUE.toString());
+        testProperties = null;
     }
 
     /**
@@ -143,6 +314,7 @@ public class SpringContextJerseyTest {
      */
     protected final void forceDisable(String featureName) {
         forcedPropertyMap.put(featureName, Boolean.FALSE.toString());
+        testProperties = null;
     }
 
     /**
@@ -165,6 +337,7 @@ public class SpringContextJerseyTest {
      */
     protected final void set(String propertyName, String value) {
         propertyMap.put(propertyName, value);
+        testProperties = null;
     }
 
     /**
@@ -176,6 +349,7 @@ public class SpringContextJerseyTest {
      */
     protected final void forceSet(String propertyName, String value) {
         forcedPropertyMap.put(propertyName, value);
+        testProperties = null;
     }
 
     /**
@@ -185,24 +359,23 @@ public class SpringContextJerseyTest {
      * @return {@code true} if the test property has been enabled, {@code false} otherwise.
      */
     protected final boolean isEnabled(String propertyName) {
-        return Boolean.valueOf(getProperty(propertyName));
+        return getTestProperties().isEnabled(propertyName);
     }
 
     private String getProperty(String propertyName) {
-        if (forcedPropertyMap.containsKey(propertyName)) {
-            return forcedPropertyMap.get(propertyName);
-        }
-
-        final Properties systemProperties = AccessController.doPrivileged(PropertiesHelper.getSystemProperties());
-        if (systemProperties.containsKey(propertyName)) {
-            return systemProperties.getProperty(propertyName);
-        }
+        return getTestProperties().get(propertyName);
+    }
 
-        if (propertyMap.containsKey(propertyName)) {
-            return propertyMap.get(propertyName);
+    /**
+     * @return the test properties, resolved once after the last change of a property.
+     */
+    private TestPropertiesSnapshot getTestProperties() {
+        TestPropertiesSnapshot snapshot = testProperties;
+        if (snapshot == null) {
+            snapshot = TestPropertiesSnapshot.resolve(forcedPropertyMap, propertyMap);
+            testProperties = snapshot;
         }
-
-        return null;
+        return snapshot;
     }
 
     /**
@@ -223,8 +396,44 @@ public class SpringContextJerseyTest {
                 "The configure method must be implemented by the extending class");
     }
 
+    /**
+     * Returns the test container factory used to create the test container. The factory class can be selected with
+     * the {@link SpringTestProperties#CONTAINER_FACTORY} property, e.g. to run tests with the
+     * {@link nl.bstoi.jersey.test.framework.spring.inmemory.SpringInMemoryTestContainerFactory}.
+     *
+     * @return test container factory.
+     * @throws TestContainerException if the configured test container factory cannot be instantiated.
+     */
     protected SpringTestContainerFactory getTestContainerFactory() throws TestContainerException {
-        return new SpringGrizzlyTestContainerFactory();
+        try {
+            return getDefaultTestContainerFactoryClass().newInstance();
+        } catch (Exception ex) {
+            throw new TestContainerException(
+                    "The default test container factory class could not be instantiated", ex);
+        }
+    }
+
+    private Class<? extends SpringTestContainerFactory> getDefaultTestContainerFactoryClass() {
+        final String factoryClassName = getProperty(SpringTestProperties.CONTAINER_FACTORY);
+        if (factoryClassName == null) {
+            return SpringGrizzlyTestContainerFactory.class;
+        }
+        if (testContainerFactoryClass == null || !testContainerFactoryClass.getName().equals(factoryClassName)) {
+            try {
+                testContainerFactoryClass = Class.forName(factoryClassName).asSubclass(SpringTestContainerFactory.class);
+            } catch (ClassNotFoundException ex) {
+                throw new TestContainerException(
+                        "The default test container factory class name, "
+                                + factoryClassName
+                                + ", cannot be loaded", ex);
+            } catch (ClassCastException ex) {
+                throw new TestContainerException(
+                        "The default test container factory class, "
+                                + factoryClassName
+                                + ", is not an instance of SpringTestContainerFactory", ex);
+            }
+        }
+        return testContainerFactoryClass;
     }
 
     /**
@@ -234,7 +443,7 @@ public class SpringContextJerseyTest {
      * @return the created web resource
      */
     public WebTarget target() {
-        return client().target(tc.getBaseUri());
+        return client().target(container().getBaseUri());
     }
 
     /**
@@ -251,51 +460,367 @@ public class SpringContextJerseyTest {
     }
 
     /**
-     * Get the client that is configured for this test.
+     * Get the client that is configured for this test. When {@link SpringTestProperties#CLIENT_POOL} is enabled the
+     * client is shared by all tests using the same test container.
      *
      * @return the configured client.
      */
     public Client client() {
         if (client == null) {
-            client = getClient(tc);
+            final SpringTestContainer container = container();
+            final ExtendedSpringTestContainer extendedContainer = extendedContainer();
+            final SharedClient sharedClient = isEnabled(SpringTestProperties.CLIENT_POOL) && extendedContainer != null
+                    ? extendedContainer.getSharedClient() : null;
+            if (sharedClient != null) {
+                client = sharedClient.get(new Supplier<Client>() {
+
+                    @Override
+                    public Client get() {
+                        return getClient(container);
+                    }
+                });
+            } else {
+                client = getClient(container);
+            }
+            clientShared = sharedClient != null;
         }
         return client;
     }
 
+    /**
+     * Create a load generator that sends requests to the running test container, see {@link LoadGenerator}:
+     * <pre>
+     * LoadResult result = load(target("orders")).concurrency(64).duration(30, TimeUnit.SECONDS)
+     *         .rate(5000, TimeUnit.SECONDS).run();
+     * </pre>
+     *
+     * @param target target the requests are sent to.
+     * @return load generator.
+     */
+    protected LoadGenerator load(final WebTarget target) {
+        return new LoadGenerator(target);
+    }
+
     /**
      * Set up the test by invoking {@link TestContainer#start() } on
      * the test container obtained from the test container factory.
+     * When {@link SpringTestProperties#CONTAINER_REUSE} is enabled an already running container is reused, when
+     * {@link SpringTestProperties#CONTAINER_POOL_SIZE} is set a started container is leased from the pool.
      *
      * @throws Exception if an exception is thrown during setting up the test environment.
      */
     @Before
     public void setUp() throws Exception {
-        if (isLogRecordingEnabled()) {
-            loggedRuntimeRecords.clear();
-            registerLogHandler();
+        if (containerPool != null) {
+            if (containerPool.isShutdown()) {
+                // the pool was evicted or discarded after this test instance was created
+                containerPool = getContainerPool(getTestContainerFactory(), containerPool.getSize());
+            }
+            tc = containerPool.lease();
+            startLogRecording();
+        } else {
+            startLogRecording();
+            // the first start of an asynchronously booted container returns at once, the container records the time
+            // the test waits for its boot instead
+            if (bootProfiler != null && !serverStartProfiled && !isEnabled(SpringTestProperties.CONTAINER_ASYNC_BOOT)) {
+                bootProfiler.begin(BootPhase.SERVER_START);
+                tc.start();
+                bootProfiler.end(BootPhase.SERVER_START);
+                serverStartProfiled = true;
+            } else {
+                tc.start();
+            }
         }
-
-        tc.start();
     }
 
     /**
      * Tear down the test by invoking {@link TestContainer#stop() } on
      * the test container obtained from the test container factory.
+     * When {@link SpringTestProperties#CONTAINER_REUSE} is enabled the container is kept running and released to the
+     * {@link SpringTestContainerCache}, a container leased from the pool is
+     * {@link #resetContainer(SpringTestContainer) reset} and returned to the pool. When the test
+     * {@link DirtiesSpringContext dirtied} the Spring application context, the container and the cached application
+     * context are discarded instead.
      *
      * @throws Exception if an exception is thrown during tearing down the test environment.
      */
     @After
     public void tearDown() throws Exception {
-        if (isLogRecordingEnabled()) {
-            loggedRuntimeRecords.clear();
-            unregisterLogHandler();
+        stopLogRecording();
+
+        final String reason = getDirtyReason();
+        dirtyReason = null;
+        try {
+            if (reason != null) {
+                discardContainer(reason);
+            } else if (containerPool != null) {
+                if (tc != null) {
+                    try {
+                        resetContainer(tc);
+                    } finally {
+                        containerPool.release(tc);
+                        tc = null;
+                    }
+                }
+            } else if (containerKey != null) {
+                tc.stop();
+            } else if (!AsyncSpringTestContainerFactory.isBootFailed(tc)) {
+                ApplicationContextCache.getInstance().stop(tc);
+            }
+            // else the failed boot already released the cached application context
+        } finally {
+            if (containerPool == null && containerKey != null) {
+                // a reused container is only shut down by the cache when no test uses it
+                SpringTestContainerCache.getInstance().release((ReusableSpringTestContainer) tc);
+            }
+            closeClient();
         }
+        if (bootProfiler != null) {
+            // written after the first test, a container booted in the background has finished booting by then
+            writeBootProfile();
+        }
+    }
 
-        tc.stop();
+    /**
+     * Mark the Spring application context as dirtied by the running test, e.g. because the test replaced a bean. After
+     * the test the reused or pooled test container and the cached application context are discarded, see
+     * {@link DirtiesSpringContext}.
+     *
+     * @param reason why the test dirtied the application context, reported with the rebuild counts.
+     */
+    protected final void markSpringContextDirty(final String reason) {
+        this.dirtyReason = Preconditions.checkNotNull(reason, "reason");
     }
 
-    private SpringTestContainer getContainer(SpringTestContainerFactory tcf) {
-        return tcf.create(getBaseUri(), deploymentContext);
+    /**
+     * @return why the running test dirtied the application context, {@code null} if it did not.
+     */
+    private String getDirtyReason() {
+        if (dirtyReason != null) {
+            return dirtyReason;
+        }
+        final DirtiesSpringContext methodAnnotation = testDescription == null
+                ? null : testDescription.getAnnotation(DirtiesSpringContext.class);
+        if (methodAnnotation != null) {
+            return methodAnnotation.value().isEmpty()
+                    ? "@DirtiesSpringContext " + getClass().getSimpleName() + "." + testDescription.getMethodName()
+                    : methodAnnotation.value();
+        }
+        final DirtiesSpringContext classAnnotation = getClass().getAnnotation(DirtiesSpringContext.class);
+        if (classAnnotation != null) {
+            return classAnnotation.value().isEmpty()
+                    ? "@DirtiesSpringContext " + getClass().getSimpleName() : classAnnotation.value();
+        }
+        return null;
+    }
+
+    /**
+     * Discard the test container, instead of keeping it for the next test, and the cached application context it used,
+     * so the next test boots fresh ones. The other reused and pooled containers that share the cached context are
+     * discarded too.
+     *
+     * @param reason why the application context is dirty.
+     */
+    private void discardContainer(final String reason) {
+        final boolean contextCached = isEnabled(SpringTestProperties.CONTEXT_CACHE);
+        final ApplicationContext applicationContext = contextCached && tc != null
+                && !AsyncSpringTestContainerFactory.isBootFailed(tc) ? tc.getApplicationContext() : null;
+        try {
+            if (applicationContext != null) {
+                // the cached context may be shared by reused containers and pools of other configurations, all of
+                // them are discarded; the context is closed once the containers leased by other tests are released
+                ApplicationContextCache.getInstance().evict(applicationContext);
+                SpringTestContainerCache.getInstance().evict(applicationContext);
+                SpringTestContainerPool.evict(applicationContext);
+            }
+            if (containerPool != null) {
+                if (tc != null) {
+                    // boots a replacement unless the pool was evicted above
+                    containerPool.discard(tc);
+                    tc = null;
+                }
+            } else if (containerKey != null) {
+                SpringTestContainerCache.getInstance().evict(containerKey);
+            } else if (!AsyncSpringTestContainerFactory.isBootFailed(tc)) {
+                ApplicationContextCache.getInstance().stop(tc);
+            }
+        } finally {
+            ContextRebuilds.getInstance().record(getClass(),
+                    testDescription == null ? null : testDescription.getMethodName(), reason);
+        }
+    }
+
+    /**
+     * Close the client of this test after the container is stopped, so responses to requests drained by a graceful
+     * stop still reach the client. A shared client is closed when the test container is stopped.
+     */
+    private void closeClient() {
+        if (client != null) {
+            try {
+                if (!clientShared) {
+                    client.close();
+                }
+            } finally {
+                client = null;
+            }
+        }
+    }
+
+    private SpringTestContainer getContainer(final SpringTestContainerFactory tcf) {
+        final URI baseUri = getBaseUri();
+        if (isEnabled(SpringTestProperties.CONTAINER_REUSE)) {
+            // A dynamically allocated port differs per test instance, it is not part of the configuration
+            final URI configuredBaseUri = getPortAllocationStrategy() == PortAllocationStrategy.FIXED
+                    ? baseUri : UriBuilder.fromUri(baseUri).port(0).build();
+            final SpringTestContainerCache.Key key = new SpringTestContainerCache.Key(getClass(), tcf.getClass(),
+                    configuredBaseUri, getTestProperties().getConfiguredProperties());
+            containerKey = key;
+            return SpringTestContainerCache.getInstance().get(key, new Supplier<SpringTestContainer>() {
+
+                @Override
+                public SpringTestContainer get() {
+                    return createContainer(tcf, baseUri, bootProfiler, deploymentContext);
+                }
+            });
+        }
+        return createContainer(tcf, baseUri, bootProfiler, deploymentContext);
+    }
+
+    private SpringTestContainerPool getContainerPool(final SpringTestContainerFactory tcf, final int poolSize) {
+        // Pooled containers run side by side, so every container gets a port picked by the operating system
+        final URI baseUri = UriBuilder.fromUri(getBaseUri()).port(0).build();
+        final SpringTestContainerCache.Key key = new SpringTestContainerCache.Key(getClass(), tcf.getClass(),
+                baseUri, getTestProperties().getConfiguredProperties());
+        containerKey = key;
+        // every pooled container gets its own copy of the configuration
+        final ResourceConfig configuration = new ResourceConfig(resourceConfig);
+        final String contextPath = deploymentContext.getContextPath();
+        return SpringTestContainerPool.get(key, poolSize, new Supplier<SpringTestContainer>() {
+
+            @Override
+            public SpringTestContainer get() {
+                // the copies share the registered binder instances, which cannot configure two applications at the
+                // same time, so the containers are created one at a time and only started concurrently
+                synchronized (configuration) {
+                    final DeploymentContext context = DeploymentContext.builder(new ResourceConfig(configuration))
+                            .contextPath(contextPath)
+                            .build();
+                    // pooled containers already boot in the background and are not profiled
+                    return bootContainer(tcf, baseUri, null, context);
+                }
+            }
+        });
+    }
+
+    /**
+     * Can be overridden by subclasses to reset state of a pooled test container before it is returned to the pool,
+     * for example to reset mocks exposed as Spring beans.
+     *
+     * Default implementation of the method is "no-op".
+     *
+     * @param container pooled test container that is returned to the pool.
+     */
+    protected void resetContainer(SpringTestContainer container) {
+        // nothing
+    }
+
+    /**
+     * @return the test container of this test.
+     * @throws IllegalStateException if the test container is leased from a pool and the test is not set up.
+     */
+    private SpringTestContainer container() {
+        if (tc == null) {
+            throw new IllegalStateException("No test container available, pooled test containers are only leased "
+                    + "between setUp() and tearDown().");
+        }
+        return tc;
+    }
+
+    /**
+     * @return the test container, {@code null} if it does not implement {@link ExtendedSpringTestContainer}.
+     */
+    private ExtendedSpringTestContainer extendedContainer() {
+        final SpringTestContainer container = container();
+        return container instanceof ExtendedSpringTestContainer ? (ExtendedSpringTestContainer) container : null;
+    }
+
+    private SpringTestContainer createContainer(final SpringTestContainerFactory tcf, final URI baseUri,
+                                                final BootProfiler profiler, final DeploymentContext context) {
+        if (isEnabled(SpringTestProperties.CONTAINER_ASYNC_BOOT)) {
+            // the Spring refresh runs on the boot thread as well
+            return new AsyncSpringTestContainerFactory(new SpringTestContainerFactory() {
+
+                @Override
+                public SpringTestContainer create(final URI uri, final DeploymentContext deploymentContext) {
+                    return bootContainer(tcf, uri, profiler, deploymentContext);
+                }
+            }, profiler).create(baseUri, context);
+        }
+        return bootContainer(tcf, baseUri, profiler, context);
+    }
+
+    private SpringTestContainer bootContainer(final SpringTestContainerFactory tcf, final URI baseUri,
+                                              final BootProfiler profiler, final DeploymentContext context) {
+        final ResourceConfig resourceConfig = context.getResourceConfig();
+        ApplicationContext cachedContext = null;
+        if (isEnabled(SpringTestProperties.CONTEXT_CACHE)) {
+            if (profiler != null) {
+                profiler.begin(BootPhase.SPRING_CONTEXT_REFRESH);
+            }
+            if (resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG) == null) {
+                ApplicationContextCache.getInstance().apply(resourceConfig);
+                cachedContext = (ApplicationContext) resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG);
+            }
+            if (profiler != null) {
+                profiler.end(BootPhase.SPRING_CONTEXT_REFRESH);
+            }
+        } else if (profiler != null && resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG) == null) {
+            // refresh the context jersey-spring3 would create, so the creation of the beans can be recorded
+            profiler.begin(BootPhase.SPRING_CONTEXT_REFRESH);
+            final Object location = resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG_LOCATION);
+            resourceConfig.property(SpringContexts.CONTEXT_CONFIG, SpringContexts.createXmlApplicationContext(
+                    location == null ? null : location.toString(), profiler.getBeanPostProcessor()));
+            profiler.end(BootPhase.SPRING_CONTEXT_REFRESH);
+        }
+
+        if (profiler != null) {
+            profiler.begin(BootPhase.APPLICATION_HANDLER);
+            profiler.begin(BootPhase.HK2_LOCATOR);
+        }
+        boolean created = false;
+        try {
+            final SpringTestContainer container = tcf.create(baseUri, context);
+            created = true;
+            return container;
+        } finally {
+            if (profiler != null) {
+                profiler.end(BootPhase.APPLICATION_HANDLER);
+            }
+            if (!created && cachedContext != null) {
+                // a container that failed to boot does not keep the cached context referenced
+                ApplicationContextCache.getInstance().release(cachedContext);
+            }
+        }
+    }
+
+    private void writeBootProfile() {
+        final String directory = getProperty(SpringTestProperties.BOOT_PROFILE_DIRECTORY);
+        if (directory == null || !writtenBootProfiles.add(getClass())) {
+            return;
+        }
+        final BootProfile profile = bootProfiler.getProfile();
+        final File profileDirectory = new File(directory);
+        try {
+            if (!profileDirectory.isDirectory() && !profileDirectory.mkdirs()) {
+                throw new IOException("Cannot create directory " + profileDirectory);
+            }
+            Files.write(profile.toJson(), new File(profileDirectory, getClass().getName() + ".boot-profile.json"),
+                    Charsets.UTF_8);
+            Files.write(profile.toString(), new File(profileDirectory, getClass().getName() + ".boot-profile.txt"),
+                    Charsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write the boot profile of " + getClass().getName(), e);
+        }
     }
 
     /**
@@ -305,7 +830,9 @@ public class SpringContextJerseyTest {
      * if not, empty new {@link org.glassfish.jersey.client.ClientConfig} instance
      * will be used to create new client instance.
      *
-     * This method is called exactly once when JerseyTest is created.
+     * This method is called once per test instance, or once per test container when
+     * {@link SpringTestProperties#CLIENT_POOL} is enabled. With {@link SpringTestProperties#HTTP2} the client uses
+     * an HTTP/2 connector.
      *
      * @param tc instance of {@link TestContainer}
      * @return A Client instance.
@@ -315,6 +842,12 @@ public class SpringContextJerseyTest {
 
         if (cc == null) {
             cc = new ClientConfig();
+            if (isEnabled(SpringTestProperties.HTTP2)) {
+                // one multiplexed connection, no pool needed
+                cc.connectorProvider(new Http2ConnectorProvider());
+            } else if (isEnabled(SpringTestProperties.CLIENT_POOL)) {
+                configurePooledConnector(cc);
+            }
         }
 
         //check if logging is required
@@ -327,6 +860,20 @@ public class SpringContextJerseyTest {
         return ClientBuilder.newClient(cc);
     }
 
+    /**
+     * Use a connector with a pool of keep-alive connections, see {@link PooledConnectorSupport}. Tests must close the
+     * responses they do not read, a request fails when no pooled connection is released within the lease timeout.
+     *
+     * @param cc client configuration.
+     */
+    private void configurePooledConnector(final ClientConfig cc) {
+        PooledConnectorSupport.configure(cc,
+                getIntegerProperty(SpringTestProperties.CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE,
+                        SpringTestProperties.DEFAULT_CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE),
+                getIntegerProperty(SpringTestProperties.CLIENT_POOL_LEASE_TIMEOUT,
+                        SpringTestProperties.DEFAULT_CLIENT_POOL_LEASE_TIMEOUT));
+    }
+
     /**
      * Can be overridden by subclasses to conveniently configure the client instance
      * used by the test.
@@ -351,22 +898,39 @@ public class SpringContextJerseyTest {
     /**
      * Get the port to be used for test applicationHandler deployments.
      *
+     * The port is allocated once per test instance using the {@link SpringTestProperties#CONTAINER_PORT_STRATEGY}.
+     * When the port is picked by the operating system ({@code 0}) the real port is returned once the test container
+     * is started.
+     *
      * @return The HTTP port of the URI
      */
     protected final int getPort() {
+        if (tc != null && tc.getBaseUri().getPort() > 0) {
+            return tc.getBaseUri().getPort();
+        }
+        if (allocatedPort == null) {
+            allocatedPort = getPortAllocationStrategy().allocate(getConfiguredPort(),
+                    getIntegerProperty(SpringTestProperties.CONTAINER_PORT_FORK_NUMBER, 0),
+                    getIntegerProperty(SpringTestProperties.CONTAINER_PORT_RANGE_SIZE,
+                            SpringTestProperties.DEFAULT_CONTAINER_PORT_RANGE_SIZE));
+        }
+        return allocatedPort;
+    }
+
+    private int getConfiguredPort() {
         final String value = AccessController.doPrivileged(PropertiesHelper.getSystemProperty(TestProperties.CONTAINER_PORT));
         if (value != null) {
 
             try {
                 final int i = Integer.parseInt(value);
-                if (i <= 0) {
-                    throw new NumberFormatException("Value not positive.");
+                if (i < 0) {
+                    throw new NumberFormatException("Value is negative.");
                 }
                 return i;
             } catch (NumberFormatException e) {
                 LOGGER.log(Level.CONFIG,
                         "Value of " + TestProperties.CONTAINER_PORT
-                                + " property is not a valid positive integer [" + value + "]."
+                                + " property is not a valid non-negative integer [" + value + "]."
                                 + " Reverting to default [" + TestProperties.DEFAULT_CONTAINER_PORT + "].",
                         e
                 );
@@ -375,6 +939,109 @@ public class SpringContextJerseyTest {
         return TestProperties.DEFAULT_CONTAINER_PORT;
     }
 
+    private PortAllocationStrategy getPortAllocationStrategy() {
+        final String value = getProperty(SpringTestProperties.CONTAINER_PORT_STRATEGY);
+        if (value != null) {
+            try {
+                return PortAllocationStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.CONFIG,
+                        "Value of " + SpringTestProperties.CONTAINER_PORT_STRATEGY
+                                + " property is not a valid port allocation strategy [" + value + "]."
+                                + " Reverting to default [" + PortAllocationStrategy.FIXED + "].",
+                        e
+                );
+            }
+        }
+        return PortAllocationStrategy.FIXED;
+    }
+
+    /**
+     * @return stop policy of the test container configured by {@link SpringTestProperties#CONTAINER_STOP_MODE}.
+     */
+    private StopPolicy getStopPolicy() {
+        final String mode = getProperty(SpringTestProperties.CONTAINER_STOP_MODE);
+        if (mode == null) {
+            return StopPolicy.now();
+        }
+        try {
+            return StopPolicy.of(StopPolicy.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)),
+                    getIntegerProperty(SpringTestProperties.CONTAINER_DRAIN_TIMEOUT,
+                            SpringTestProperties.DEFAULT_CONTAINER_DRAIN_TIMEOUT), TimeUnit.MILLISECONDS);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.CONFIG,
+                    "Value of " + SpringTestProperties.CONTAINER_STOP_MODE
+                            + " property is not a valid stop mode [" + mode + "]."
+                            + " Reverting to " + StopPolicy.Mode.NOW + ".",
+                    e
+            );
+            return StopPolicy.now();
+        }
+    }
+
+    /**
+     * @return response buffering of the test container configured by {@link SpringTestProperties#RESPONSE_STREAMING},
+     * {@link SpringTestProperties#RESPONSE_BUFFER_THRESHOLD} and {@link SpringTestProperties#GRIZZLY_OUTPUT_BUFFER_SIZE}.
+     */
+    private ResponseBuffering getResponseBuffering() {
+        ResponseBuffering buffering = ResponseBuffering.defaults();
+        if (isEnabled(SpringTestProperties.RESPONSE_STREAMING)) {
+            buffering = ResponseBuffering.streaming();
+        } else {
+            final int threshold = getIntegerProperty(SpringTestProperties.RESPONSE_BUFFER_THRESHOLD, -1);
+            if (threshold > 0) {
+                buffering = ResponseBuffering.buffered(threshold);
+            }
+        }
+        final int outputBufferSize = getIntegerProperty(SpringTestProperties.GRIZZLY_OUTPUT_BUFFER_SIZE, -1);
+        if (outputBufferSize > 0) {
+            buffering = buffering.withOutputBufferSize(outputBufferSize);
+        }
+        return buffering;
+    }
+
+    /**
+     * @return thread topology of the Grizzly test container configured by the Grizzly transport test properties.
+     */
+    private GrizzlyTransportConfig getGrizzlyTransportConfig() {
+        final GrizzlyTransportConfig.Builder builder = GrizzlyTransportConfig.builder();
+        final String ioStrategy = getProperty(SpringTestProperties.GRIZZLY_IO_STRATEGY);
+        if (ioStrategy != null) {
+            try {
+                builder.ioStrategy(GrizzlyIOStrategy.valueOf(ioStrategy.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.CONFIG,
+                        "Value of " + SpringTestProperties.GRIZZLY_IO_STRATEGY
+                                + " property is not a valid IO strategy [" + ioStrategy + "]."
+                                + " Reverting to the Grizzly default.",
+                        e
+                );
+            }
+        }
+        final int selectorRunners = getIntegerProperty(SpringTestProperties.GRIZZLY_SELECTOR_RUNNERS, -1);
+        if (selectorRunners > 0) {
+            builder.selectorRunners(selectorRunners);
+        }
+        final int corePoolSize = getIntegerProperty(SpringTestProperties.GRIZZLY_WORKER_CORE_POOL_SIZE, -1);
+        if (corePoolSize >= 0) {
+            builder.workerCorePoolSize(corePoolSize);
+        }
+        final int maxPoolSize = getIntegerProperty(SpringTestProperties.GRIZZLY_WORKER_MAX_POOL_SIZE, -1);
+        if (maxPoolSize > 0) {
+            builder.workerMaxPoolSize(maxPoolSize);
+        }
+        final int queueLimit = getIntegerProperty(SpringTestProperties.GRIZZLY_WORKER_QUEUE_LIMIT, -1);
+        if (queueLimit > 0) {
+            builder.workerQueueLimit(queueLimit);
+        }
+        builder.virtualThreads(isEnabled(SpringTestProperties.GRIZZLY_VIRTUAL_THREADS));
+        return builder.build();
+    }
+
+    private int getIntegerProperty(final String propertyName, final int defaultValue) {
+        return getTestProperties().getInt(propertyName, defaultValue);
+    }
+
     /**
      * Get stored {@link LogRecord log records} if enabled by setting {@link TestProperties#RECORD_LOG_LEVEL} or an empty list.
      *
@@ -383,7 +1050,9 @@ public class SpringContextJerseyTest {
     protected List<LogRecord> getLoggedRecords() {
         final List<LogRecord> logRecords = Lists.newArrayList();
         logRecords.addAll(loggedStartupRecords);
-        logRecords.addAll(loggedRuntimeRecords);
+        if (loggedRuntimeRecords != null) {
+            logRecords.addAll(loggedRuntimeRecords.getRecords());
+        }
         return logRecords;
     }
 
@@ -398,59 +1067,36 @@ public class SpringContextJerseyTest {
     }
 
     /**
-     * Retrieves a list of root loggers.
-     *
-     * @return list of root loggers.
+     * Record the log records of the test container in its buffer, the test thread is bound to the buffer so records
+     * of parallel tests are kept apart.
      */
-    private Set<Logger> getRootLoggers() {
-        final LogManager logManager = LogManager.getLogManager();
-        final Enumeration<String> loggerNames = logManager.getLoggerNames();
-
-        final Set<Logger> rootLoggers = Sets.newHashSet();
-
-        while (loggerNames.hasMoreElements()) {
-            Logger logger = logManager.getLogger(loggerNames.nextElement());
-            if (logger != null) {
-                while (logger.getParent() != null) {
-                    logger = logger.getParent();
-                }
-                rootLoggers.add(logger);
-            }
+    private void startLogRecording() {
+        if (logRecording == null) {
+            return;
         }
-
-        return rootLoggers;
-    }
-
-    /**
-     * Register {@link Handler log handler} to the list of root loggers.
-     */
-    private void registerLogHandler() {
-        final String recordLogLevel = getProperty(TestProperties.RECORD_LOG_LEVEL);
-        final int recordLogLevelInt = Integer.valueOf(recordLogLevel);
-        final Level level = Level.parse(recordLogLevel);
-
-        logLevelMap.clear();
-
-        for (final Logger root : getRootLoggers()) {
-            logLevelMap.put(root, root.getLevel());
-
-            if (root.getLevel().intValue() > recordLogLevelInt) {
-                root.setLevel(level);
-            }
-
-            root.addHandler(getLogHandler());
+        LogRecordBuffer buffer = tc instanceof ExtendedSpringTestContainer
+                ? ((ExtendedSpringTestContainer) tc).getLogRecordBuffer() : null;
+        if (buffer == null) {
+            // container created with log recording disabled, or a container that does not record log records
+            buffer = logRecording.newBuffer();
         }
+        buffer.clear();
+        LogRecorder.activate(buffer);
+        previousLogRecordBuffer = LogRecorder.bind(buffer);
+        loggedRuntimeRecords = buffer;
     }
 
     /**
-     * Un-register {@link Handler log handler} from the list of root loggers.
+     * Stop recording the log records of the test container.
      */
-    private void unregisterLogHandler() {
-        for (final Logger root : getRootLoggers()) {
-            root.setLevel(logLevelMap.get(root));
-            root.removeHandler(getLogHandler());
+    private void stopLogRecording() {
+        if (loggedRuntimeRecords != null) {
+            LogRecorder.bind(previousLogRecordBuffer);
+            LogRecorder.deactivate(loggedRuntimeRecords);
+            loggedRuntimeRecords.clear();
+            loggedRuntimeRecords = null;
+            previousLogRecordBuffer = null;
         }
-        logHandler = null;
     }
 
     /**
@@ -462,41 +1108,82 @@ public class SpringContextJerseyTest {
         return getProperty(TestProperties.RECORD_LOG_LEVEL) != null;
     }
 
+    protected ApplicationContext getSpringApplicationContext() {
+        return container().getApplicationContext();
+    }
+
     /**
-     * Retrieves {@link Handler log handler} capable of storing {@link LogRecord logged records}.
+     * Replace the resources and providers under test. The running Spring application context is kept, only the Jersey
+     * resource model and providers are rebuilt, which takes milliseconds instead of a full boot. The new application
+     * gets the properties of the configured application. A reused or pooled container keeps serving the new resources
+     * in the following tests.
      *
-     * @return log handler.
+     * @param components resource and provider classes of the new application.
+     * @throws IllegalStateException if the test container does not implement {@link ExtendedSpringTestContainer}.
      */
-    private Handler getLogHandler() {
-        if (logHandler == null) {
-            final Integer logLevel = Integer.valueOf(getProperty(TestProperties.RECORD_LOG_LEVEL));
-            logHandler = new Handler() {
-
-                @Override
-                public void publish(LogRecord record) {
-                    final String loggerName = record.getLoggerName();
-
-                    if (record.getLevel().intValue() >= logLevel
-                            && loggerName.startsWith("org.glassfish.jersey")
-                            && !loggerName.startsWith("org.glassfish.jersey.test")) {
-                        loggedRuntimeRecords.add(record);
-                    }
-                }
+    protected void reloadResources(final Class<?>... components) {
+        final ExtendedSpringTestContainer container = extendedContainer();
+        if (container == null) {
+            throw new IllegalStateException("The test container cannot reload its application.");
+        }
+        final ResourceConfig configuration = new ResourceConfig(components)
+                .addProperties(resourceConfig.getProperties());
+        container.reload(configuration, true);
+    }
 
-                @Override
-                public void flush() {
-                }
+    /**
+     * Get the latency histograms of the requests handled by the test container, see {@link RequestMetrics}. A reused
+     * or pooled container keeps recording over test methods, use {@link RequestMetrics#reset()} to start over.
+     *
+     * @return request metrics of the test container.
+     * @throws IllegalStateException if {@link SpringTestProperties#REQUEST_METRICS} is not enabled, or the test container
+     *                               does not implement {@link ExtendedSpringTestContainer}.
+     */
+    protected RequestMetrics getRequestMetrics() {
+        final ExtendedSpringTestContainer container = extendedContainer();
+        if (container == null) {
+            throw new IllegalStateException("The test container does not record request metrics.");
+        }
+        final RequestMetrics metrics = container.getRequestMetrics();
+        if (metrics == null) {
+            throw new IllegalStateException("Request metrics are not enabled, enable "
+                    + SpringTestProperties.REQUEST_METRICS + ".");
+        }
+        return metrics;
+    }
 
-                @Override
-                public void close() throws SecurityException {
-                }
-            };
+    /**
+     * Get the counters of the requests suspended by asynchronous resources, e.g. long-poll endpoints, of the test
+     * container. A reused or pooled container keeps counting over test methods, use {@link SuspendMetrics#reset()} to
+     * start over.
+     *
+     * @return suspend metrics of the test container.
+     * @throws IllegalStateException if the test container does not track suspended requests, e.g. the in-memory
+     *                               container.
+     */
+    protected SuspendMetrics getSuspendMetrics() {
+        final ExtendedSpringTestContainer container = extendedContainer();
+        final SuspendMetrics metrics = container == null ? null : container.getSuspendMetrics();
+        if (metrics == null) {
+            throw new IllegalStateException("The test container does not track suspended requests.");
         }
-        return logHandler;
+        return metrics;
     }
 
-    protected ApplicationContext getSpringApplicationContext() {
-        return tc.getApplicationContext();
+    /**
+     * Get the boot profile of this test instance: the duration of every phase of booting the test container and the
+     * creation time of every Spring bean. When the test container is reused or leased from a pool, only the phases
+     * that took place for this test instance are recorded.
+     *
+     * @return boot profile.
+     * @throws IllegalStateException if {@link SpringTestProperties#BOOT_PROFILE} is not enabled.
+     */
+    protected BootProfile getBootProfile() {
+        if (bootProfiler == null) {
+            throw new IllegalStateException("Boot profiling is not enabled, enable "
+                    + SpringTestProperties.BOOT_PROFILE + ".");
+        }
+        return bootProfiler.getProfile();
     }
 }
 
@@ -0,0 +1,471 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+/**
+ * Properties used to configure the spring exposed test framework, on top of the Jersey
+ * {@link org.glassfish.jersey.test.TestProperties}. Like those, the values can be set programmatically
+ * from a {@link SpringContextJerseyTest} or overridden using a system property.
+ */
+public final class SpringTestProperties {
+
+    /**
+     * Fully qualified class name of the {@link nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainerFactory}
+     * used to create the test container, for example
+     * {@code nl.bstoi.jersey.test.framework.spring.inmemory.SpringInMemoryTestContainerFactory}.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTAINER_FACTORY}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_FACTORY = "jersey.config.test.spring.container.factory";
+
+    /**
+     * Default value of {@link #CONTAINER_FACTORY}.
+     */
+    public static final String DEFAULT_CONTAINER_FACTORY =
+            "nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory";
+
+    /**
+     * Strategy used to allocate the port of the test container, one of the {@link PortAllocationStrategy} names:
+     * {@code fixed}, {@code ephemeral} or {@code range}. Use {@code ephemeral} or {@code range} to run tests in
+     * parallel threads or forks.
+     * <p>
+     * The default value is {@code fixed}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_PORT_STRATEGY = "jersey.config.test.spring.container.port.strategy";
+
+    /**
+     * Number of ports reserved for every fork by the {@link PortAllocationStrategy#RANGE range} port allocation
+     * strategy.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTAINER_PORT_RANGE_SIZE}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_PORT_RANGE_SIZE = "jersey.config.test.spring.container.port.range.size";
+
+    /**
+     * Default value of {@link #CONTAINER_PORT_RANGE_SIZE}.
+     */
+    public static final int DEFAULT_CONTAINER_PORT_RANGE_SIZE = 100;
+
+    /**
+     * Number of the fork running the tests, used by the {@link PortAllocationStrategy#RANGE range} port allocation
+     * strategy. With surefire set it to <tt>${surefire.forkNumber}</tt> in the {@code systemPropertyVariables}.
+     * <p>
+     * The default value is {@code 0}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_PORT_FORK_NUMBER = "jersey.config.test.spring.container.port.fork";
+
+    /**
+     * If set to {@code true} the test container is cached and shared between all test instances of the same
+     * test class (and effective configuration) instead of being booted for every test method.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_REUSE = "jersey.config.test.spring.container.reuse";
+
+    /**
+     * Maximum number of reusable test containers that are kept alive at the same time. When the maximum
+     * is exceeded the least recently used container that is not used by a running test is shut down. This value is only
+     * read from a system property.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTAINER_CACHE_SIZE}, which allows reuse with a fixed container port. Use a
+     * larger size together with a dynamic {@link #CONTAINER_PORT_STRATEGY port allocation strategy}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_CACHE_SIZE = "jersey.config.test.spring.container.cache.size";
+
+    /**
+     * Default value of {@link #CONTAINER_CACHE_SIZE}.
+     */
+    public static final int DEFAULT_CONTAINER_CACHE_SIZE = 1;
+
+    /**
+     * If set to {@code true} the test container, including its Spring application context, is booted in the
+     * background. The test instance is created immediately and the test thread only waits for the container when it is
+     * first used, e.g. by {@code target()} or {@code getSpringApplicationContext()}.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_ASYNC_BOOT = "jersey.config.test.spring.container.async";
+
+    /**
+     * Number of pre-warmed test containers that are booted in the background for parallel test execution. Test
+     * threads lease a started container in {@code setUp()} and return it in {@code tearDown()}. Pooled containers
+     * always use a port picked by the operating system.
+     * <p>
+     * The default value is {@code 0}, which disables pooling.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_POOL_SIZE = "jersey.config.test.spring.container.pool.size";
+
+    /**
+     * Maximum number of container pools that are kept alive at the same time, every test class (and effective
+     * configuration) has its own pool. When the maximum is exceeded the least recently used pool is shut down. This
+     * value is only read from a system property.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTAINER_POOL_LIMIT}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_POOL_LIMIT = "jersey.config.test.spring.container.pool.limit";
+
+    /**
+     * Default value of {@link #CONTAINER_POOL_LIMIT}.
+     */
+    public static final int DEFAULT_CONTAINER_POOL_LIMIT = 4;
+
+    /**
+     * How the Grizzly test container is stopped, see {@link nl.bstoi.jersey.test.framework.spring.grizzly.StopPolicy}:
+     * <ul>
+     * <li>{@code NOW}: in-flight requests are aborted.</li>
+     * <li>{@code GRACEFUL}: in-flight requests are drained first, waiting at most {@link #CONTAINER_DRAIN_TIMEOUT}.</li>
+     * <li>{@code PAUSE}: a reused or pooled container drains the in-flight requests and pauses its listener between
+     * tests, the port stays bound and the transport threads keep running.</li>
+     * </ul>
+     * <p>
+     * The default value is {@code NOW}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_STOP_MODE = "jersey.config.test.spring.container.stop.mode";
+
+    /**
+     * Maximum time in milliseconds to wait for in-flight requests when the test container is stopped gracefully or
+     * paused, see {@link #CONTAINER_STOP_MODE}.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTAINER_DRAIN_TIMEOUT}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTAINER_DRAIN_TIMEOUT = "jersey.config.test.spring.container.drain.timeout";
+
+    /**
+     * Default value of {@link #CONTAINER_DRAIN_TIMEOUT}.
+     */
+    public static final int DEFAULT_CONTAINER_DRAIN_TIMEOUT = 5000;
+
+    /**
+     * If set to {@code true} the Spring application context is taken from a JVM wide cache, shared with all test
+     * classes that use the same resources and Spring config location.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTEXT_CACHE = "jersey.config.test.spring.context.cache";
+
+    /**
+     * Maximum number of cached Spring application contexts. When the maximum is exceeded the least recently used
+     * context is closed. This value is only read from a system property.
+     * <p>
+     * The default value is {@value #DEFAULT_CONTEXT_CACHE_SIZE}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CONTEXT_CACHE_SIZE = "jersey.config.test.spring.context.cache.size";
+
+    /**
+     * Default value of {@link #CONTEXT_CACHE_SIZE}.
+     */
+    public static final int DEFAULT_CONTEXT_CACHE_SIZE = 32;
+
+    /**
+     * If set to {@code true} the latency of every stage of the request processing is recorded in histograms, available
+     * through {@link SpringContextJerseyTest#getRequestMetrics()}.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String REQUEST_METRICS = "jersey.config.test.spring.request.metrics";
+
+    /**
+     * If set to {@code true} the duration of every phase of booting the test container, and the creation time of every
+     * Spring bean, is recorded, available through {@link SpringContextJerseyTest#getBootProfile()}.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String BOOT_PROFILE = "jersey.config.test.spring.boot.profile";
+
+    /**
+     * Directory the boot profile of every test class is written to, as {@code <test class>.boot-profile.json} and
+     * {@code <test class>.boot-profile.txt}. Only used when {@link #BOOT_PROFILE} is enabled.
+     * <p>
+     * By default the boot profile is not written.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String BOOT_PROFILE_DIRECTORY = "jersey.config.test.spring.boot.profile.dir";
+
+    /**
+     * IO strategy of the Grizzly test container: {@code WORKER_THREAD}, {@code SAME_THREAD}, {@code DYNAMIC} or
+     * {@code LEADER_FOLLOWER}, see
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.GrizzlyIOStrategy}.
+     * <p>
+     * By default the Grizzly default ({@code WORKER_THREAD}) is used.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_IO_STRATEGY = "jersey.config.test.spring.grizzly.io.strategy";
+
+    /**
+     * Number of selector threads of the Grizzly test container.
+     * <p>
+     * By default the Grizzly default (the number of processors) is used.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_SELECTOR_RUNNERS = "jersey.config.test.spring.grizzly.selector.runners";
+
+    /**
+     * Number of worker threads of the Grizzly test container that are kept alive when idle. Set together with
+     * {@link #GRIZZLY_WORKER_MAX_POOL_SIZE}.
+     * <p>
+     * By default the Grizzly default is used.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_WORKER_CORE_POOL_SIZE = "jersey.config.test.spring.grizzly.worker.core";
+
+    /**
+     * Maximum number of worker threads of the Grizzly test container.
+     * <p>
+     * By default the Grizzly default is used.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_WORKER_MAX_POOL_SIZE = "jersey.config.test.spring.grizzly.worker.max";
+
+    /**
+     * Maximum number of requests queued for the worker threads of the Grizzly test container.
+     * <p>
+     * By default the queue is unbounded.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_WORKER_QUEUE_LIMIT = "jersey.config.test.spring.grizzly.worker.queue";
+
+    /**
+     * If set to {@code true} the Grizzly test container handles every request on a new virtual thread instead of a
+     * worker pool thread, so blocking resources are not limited by the size of the worker pool. Requires Java 21 or
+     * later, on older versions the worker pool is used.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_VIRTUAL_THREADS = "jersey.config.test.spring.grizzly.virtual.threads";
+
+    /**
+     * If set to {@code true} the Grizzly test container does not buffer response entities: the status and headers are
+     * sent before the entity is written and every entity is sent with chunked transfer encoding, so large downloads
+     * do not sit on the heap and clients get their first byte sooner.
+     * <p>
+     * The default value is {@code false}, the start of an entity is buffered to determine its content length, see
+     * {@link #RESPONSE_BUFFER_THRESHOLD}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String RESPONSE_STREAMING = "jersey.config.test.spring.response.streaming";
+
+    /**
+     * Number of entity bytes buffered to determine the content length of a response, larger entities are sent with
+     * chunked transfer encoding. Ignored when {@link #RESPONSE_STREAMING} is enabled.
+     * <p>
+     * The default value is the Jersey default of {@code 8192}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String RESPONSE_BUFFER_THRESHOLD = "jersey.config.test.spring.response.buffer.threshold";
+
+    /**
+     * Size in bytes of the Grizzly output buffer of a response, the amount of entity bytes collected before they are
+     * written to the connection.
+     * <p>
+     * The default value is the Grizzly default.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String GRIZZLY_OUTPUT_BUFFER_SIZE = "jersey.config.test.spring.grizzly.output.buffer";
+
+    /**
+     * If set to {@code true} file response entities ({@link java.io.File}, {@link java.nio.file.Path} and
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.FileRegion}) are sent by the Grizzly test
+     * container with a zero-copy file transfer and byte range requests on them are answered, see
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.FileTransferFeature}.
+     * <p>
+     * The default value is {@code false}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String RESPONSE_SENDFILE = "jersey.config.test.spring.response.sendfile";
+
+    /**
+     * If set the Grizzly test container receives request entities with non-blocking reads before the request is
+     * handed to the resource, so slow uploads do not hold a worker thread. Entities up to this number of bytes are
+     * kept on the heap, larger entities are spilled to a temporary file, see
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.RequestBuffering}.
+     * <p>
+     * By default request entities are not buffered, the resource reads them while they are received.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String REQUEST_BUFFER_THRESHOLD = "jersey.config.test.spring.request.buffer.threshold";
+
+    /**
+     * If set to {@code true} the Grizzly test container speaks HTTP/2, cleartext (h2c) or negotiated with ALPN on a
+     * secure listener, and the test client sends its requests with HTTP/2, see
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.Http2Support} and
+     * {@link nl.bstoi.jersey.test.framework.spring.client.Http2ConnectorProvider}. Needs
+     * {@code org.glassfish.grizzly:grizzly-http2} and {@code com.squareup.okhttp3:okhttp} on the test class path.
+     * <p>
+     * The default value is {@code false}, the container and client speak HTTP/1.1.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String HTTP2 = "jersey.config.test.spring.http2";
+
+    /**
+     * Maximum number of log records kept per test container when log recording is enabled with
+     * {@link org.glassfish.jersey.test.TestProperties#RECORD_LOG_LEVEL}. When the maximum is exceeded the oldest records
+     * are overwritten.
+     * <p>
+     * The default value is {@value #DEFAULT_LOG_RECORD_BUFFER_SIZE}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String LOG_RECORD_BUFFER_SIZE = "jersey.config.test.spring.log.buffer.size";
+
+    /**
+     * Default value of {@link #LOG_RECORD_BUFFER_SIZE}.
+     */
+    public static final int DEFAULT_LOG_RECORD_BUFFER_SIZE = 1000;
+
+    /**
+     * If set to {@code true} the test client of an HTTP test container uses a pooled connector with keep-alive
+     * connections. The client is shared by all tests using the same test container, e.g. with
+     * {@link #CONTAINER_REUSE}, and closed when the container is stopped. Tests must close the responses they do not
+     * read, otherwise their connections stay leased. Needs
+     * {@code org.glassfish.jersey.connectors:jersey-apache-connector} on the class path.
+     * <p>
+     * The default value is {@code false}, every test instance gets its own client with the default connector.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CLIENT_POOL = "jersey.config.test.spring.client.pool";
+
+    /**
+     * Maximum number of pooled connections of the test client to the test container, when {@link #CLIENT_POOL} is
+     * enabled.
+     * <p>
+     * The default value is {@value #DEFAULT_CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE =
+            "jersey.config.test.spring.client.pool.max.per.route";
+
+    /**
+     * Default value of {@link #CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE}.
+     */
+    public static final int DEFAULT_CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    /**
+     * How long a request of the pooled test client waits for a free connection, in milliseconds, when
+     * {@link #CLIENT_POOL} is enabled. A request fails when all connections stay leased, e.g. because a test did not
+     * close its responses.
+     * <p>
+     * The default value is {@value #DEFAULT_CLIENT_POOL_LEASE_TIMEOUT}.
+     * </p>
+     * <p>
+     * The name of the configuration property is <tt>{@value}</tt>.
+     * </p>
+     */
+    public static final String CLIENT_POOL_LEASE_TIMEOUT = "jersey.config.test.spring.client.pool.lease.timeout";
+
+    /**
+     * Default value of {@link #CLIENT_POOL_LEASE_TIMEOUT}.
+     */
+    public static final int DEFAULT_CLIENT_POOL_LEASE_TIMEOUT = 5000;
+
+    /**
+     * Prevents instantiation.
+     */
+    private SpringTestProperties() {
+    }
+}
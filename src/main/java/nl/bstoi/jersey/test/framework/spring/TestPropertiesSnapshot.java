@@ -0,0 +1,104 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.glassfish.jersey.internal.util.PropertiesHelper;
+
+import java.security.AccessController;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test properties resolved once from the forced, system and programmatically set properties, in that order of
+ * precedence. The snapshot is immutable, {@link SpringContextJerseyTest} resolves a new snapshot after a property is
+ * set. Changes of system properties after the snapshot is resolved are not seen.
+ */
+final class TestPropertiesSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(TestPropertiesSnapshot.class.getName());
+
+    private final Map<String, String> properties;
+
+    private final ImmutableMap<String, String> configuredProperties;
+
+    private TestPropertiesSnapshot(final Map<String, String> properties,
+                                   final ImmutableMap<String, String> configuredProperties) {
+        this.properties = properties;
+        this.configuredProperties = configuredProperties;
+    }
+
+    /**
+     * Resolve the test properties.
+     *
+     * @param forcedProperties properties that cannot be overridden by a system property.
+     * @param properties       properties that can be overridden by a system property.
+     * @return resolved test properties.
+     */
+    static TestPropertiesSnapshot resolve(final Map<String, String> forcedProperties,
+                                          final Map<String, String> properties) {
+        final Map<String, String> resolved = Maps.newHashMap(properties);
+        final Properties systemProperties = AccessController.doPrivileged(PropertiesHelper.getSystemProperties());
+        for (final String name : systemProperties.stringPropertyNames()) {
+            resolved.put(name, systemProperties.getProperty(name));
+        }
+        resolved.putAll(forcedProperties);
+
+        // sorted, but not an ImmutableSortedMap: ImmutableMap.copyOf() of the cache key would copy a sorted map
+        final ImmutableMap.Builder<String, String> configured = ImmutableMap.builder();
+        for (final String name : Sets.newTreeSet(Sets.union(properties.keySet(), forcedProperties.keySet()))) {
+            final String value = resolved.get(name);
+            if (value != null) {
+                configured.put(name, value);
+            }
+        }
+        return new TestPropertiesSnapshot(resolved, configured.build());
+    }
+
+    /**
+     * @param propertyName name of the property.
+     * @return value of the property, {@code null} if the property is not set.
+     */
+    String get(final String propertyName) {
+        return properties.get(propertyName);
+    }
+
+    /**
+     * @param propertyName name of the boolean property.
+     * @return {@code true} if the property is set to {@code true}.
+     */
+    boolean isEnabled(final String propertyName) {
+        return Boolean.valueOf(properties.get(propertyName));
+    }
+
+    /**
+     * @param propertyName name of the integer property.
+     * @param defaultValue value used when the property is not set or not a valid integer.
+     * @return value of the property.
+     */
+    int getInt(final String propertyName, final int defaultValue) {
+        final String value = properties.get(propertyName);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.CONFIG,
+                        "Value of " + propertyName + " property is not a valid integer [" + value + "]."
+                                + " Reverting to default [" + defaultValue + "].",
+                        e
+                );
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return the resolved values of the forced and programmatically set properties, sorted by name, e.g. to tell
+     * apart test configurations.
+     */
+    ImmutableMap<String, String> getConfiguredProperties() {
+        return configuredProperties;
+    }
+}
@@ -0,0 +1,391 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JVM wide cache of Spring application contexts, shared between test classes that use the same resources and Spring
+ * config locations. The cache is bounded ({@link SpringTestProperties#CONTEXT_CACHE_SIZE}), the least recently used
+ * context is evicted when the maximum size is exceeded. All cached contexts are closed when the JVM exits.
+ * <p>
+ * Cached contexts are handed to jersey-spring3 through the {@link SpringContexts#CONTEXT_CONFIG} property as a
+ * {@link SpringContexts#nonClosingView(ApplicationContext) non closing view}, so shutting down a test container does
+ * not close the shared context. Every view holds a reference to the context until the test container using it is
+ * stopped for good and {@link #release(ApplicationContext) releases} it. An evicted context is closed when its last
+ * reference is released, so reused, pooled and running containers keep a working context.
+ * </p>
+ */
+public final class ApplicationContextCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ApplicationContextCache.class.getName());
+
+    private static final ApplicationContextCache INSTANCE = new ApplicationContextCache(
+            SpringTestContainerCache.readPositiveInteger(SpringTestProperties.CONTEXT_CACHE_SIZE,
+                    SpringTestProperties.DEFAULT_CONTEXT_CACHE_SIZE));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("spring-application-context-cache-shutdown") {
+            @Override
+            public void run() {
+                LOGGER.log(Level.FINE, "Closing cached application contexts, " + INSTANCE);
+                INSTANCE.closeAll();
+            }
+        });
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> contexts = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    /**
+     * Views handed out by {@link #apply(ResourceConfig)}, each view holds one reference to its entry.
+     */
+    private final Map<ApplicationContext, Entry> views = new IdentityHashMap<ApplicationContext, Entry>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    ApplicationContextCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the JVM wide application context cache.
+     */
+    public static ApplicationContextCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Provide the cached application context matching the resource config to jersey-spring3. Nothing is done when the
+     * resource config already contains a {@link SpringContexts#CONTEXT_CONFIG application context}. The provided view
+     * references the cached context until it is {@link #release(ApplicationContext) released}.
+     *
+     * @param resourceConfig resource config of the tested application.
+     */
+    public synchronized void apply(final ResourceConfig resourceConfig) {
+        if (resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG) == null) {
+            final Entry entry = getEntry(resourceConfig);
+            final ApplicationContext view = SpringContexts.nonClosingView(entry.applicationContext);
+            entry.references++;
+            views.put(view, entry);
+            resourceConfig.property(SpringContexts.CONTEXT_CONFIG, view);
+        }
+    }
+
+    /**
+     * Get the cached application context for the resource config, creating it when it is not cached. The returned
+     * context is not referenced, it is closed as soon as it is evicted.
+     *
+     * @param resourceConfig resource config of the tested application.
+     * @return cached application context.
+     */
+    public synchronized ApplicationContext get(final ResourceConfig resourceConfig) {
+        return getEntry(resourceConfig).applicationContext;
+    }
+
+    private Entry getEntry(final ResourceConfig resourceConfig) {
+        final Key key = Key.of(resourceConfig);
+        Entry entry = contexts.get(key);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            return entry;
+        }
+
+        missCount.incrementAndGet();
+        while (contexts.size() >= maxSize && !contexts.isEmpty()) {
+            evictEldest();
+        }
+        LOGGER.log(Level.FINE, "Creating cached application context for " + key);
+        entry = new Entry(key, SpringContexts.createXmlApplicationContext(key.contextConfigLocation));
+        contexts.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Release the reference of a view provided by {@link #apply(ResourceConfig)}, called when the test container using
+     * the view is stopped for good. An evicted context is closed when its last reference is released.
+     *
+     * @param applicationContext application context of the stopped test container, may be {@code null}.
+     * @return {@code true} if the application context is a view provided by this cache that was not released yet.
+     */
+    public synchronized boolean release(final ApplicationContext applicationContext) {
+        final Entry entry = applicationContext == null ? null : views.remove(applicationContext);
+        if (entry == null) {
+            return false;
+        }
+        entry.references--;
+        if (entry.evicted && entry.references == 0) {
+            close(entry);
+        }
+        return true;
+    }
+
+    /**
+     * @param applicationContext application context of a test container, may be {@code null}.
+     * @return {@code true} if the application context is a view provided by this cache on a context that has been
+     * evicted since, e.g. because a test dirtied it.
+     */
+    public synchronized boolean isEvicted(final ApplicationContext applicationContext) {
+        final Entry entry = applicationContext == null ? null : views.get(applicationContext);
+        return entry != null && entry.evicted;
+    }
+
+    /**
+     * Stop a test container that is not used anymore and release its reference to the cached application context.
+     *
+     * @param container test container to stop.
+     */
+    public void stop(final SpringTestContainer container) {
+        final ApplicationContext applicationContext = container.getApplicationContext();
+        try {
+            container.stop();
+        } finally {
+            release(applicationContext);
+        }
+    }
+
+    /**
+     * Remove the cached application context for the resource config, if any. The context is closed as soon as it is
+     * not referenced anymore.
+     *
+     * @param resourceConfig resource config of the tested application.
+     */
+    public synchronized void evict(final ResourceConfig resourceConfig) {
+        evict(Key.of(resourceConfig));
+    }
+
+    /**
+     * Remove the given application context if it is cached, e.g. because a test dirtied it. The context is closed as
+     * soon as it is not referenced anymore.
+     *
+     * @param applicationContext application context, or a view on it.
+     * @return {@code true} if the application context was cached.
+     */
+    public synchronized boolean evict(final ApplicationContext applicationContext) {
+        final ApplicationContext delegate = SpringContexts.unwrap(applicationContext);
+        for (final Map.Entry<Key, Entry> entry : contexts.entrySet()) {
+            if (entry.getValue().applicationContext == delegate) {
+                evict(entry.getKey());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all cached application contexts, each context is closed as soon as it is not referenced anymore.
+     */
+    public synchronized void clear() {
+        final List<Key> keys = Lists.newArrayList(contexts.keySet());
+        for (final Key key : keys) {
+            evict(key);
+        }
+    }
+
+    /**
+     * @return number of cached application contexts.
+     */
+    public synchronized int size() {
+        return contexts.size();
+    }
+
+    /**
+     * @return number of times a cached application context was reused.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of times an application context had to be created.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return number of application contexts evicted because the cache exceeded its maximum size.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size())
+                .add("maxSize", maxSize)
+                .add("hitCount", getHitCount())
+                .add("missCount", getMissCount())
+                .add("evictionCount", getEvictionCount())
+                .toString();
+    }
+
+    /**
+     * Evict the least recently used context that is not referenced, or the least recently used context if all cached
+     * contexts are in use.
+     */
+    private void evictEldest() {
+        Key eldest = null;
+        for (final Map.Entry<Key, Entry> entry : contexts.entrySet()) {
+            if (eldest == null) {
+                eldest = entry.getKey();
+            }
+            if (entry.getValue().references == 0) {
+                eldest = entry.getKey();
+                break;
+            }
+        }
+        evictionCount.incrementAndGet();
+        evict(eldest);
+    }
+
+    private void evict(final Key key) {
+        final Entry entry = contexts.remove(key);
+        if (entry != null) {
+            entry.evicted = true;
+            if (entry.references == 0) {
+                close(entry);
+            } else {
+                LOGGER.log(Level.FINE, "Evicted cached application context for " + key + ", it is closed when "
+                        + entry.references + " test containers released it");
+            }
+        }
+    }
+
+    /**
+     * Close all cached and evicted application contexts, also the ones that are still referenced.
+     */
+    private synchronized void closeAll() {
+        final Set<Entry> entries = Sets.newLinkedHashSet(contexts.values());
+        entries.addAll(views.values());
+        contexts.clear();
+        views.clear();
+        for (final Entry entry : entries) {
+            close(entry);
+        }
+    }
+
+    private void close(final Entry entry) {
+        LOGGER.log(Level.FINE, "Closing cached application context for " + entry.key);
+        try {
+            entry.applicationContext.close();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to close cached application context for " + entry.key, e);
+        }
+    }
+
+    /**
+     * Cached application context with the number of views referencing it.
+     */
+    private static final class Entry {
+
+        private final Key key;
+        private final ConfigurableApplicationContext applicationContext;
+        private int references;
+        private boolean evicted;
+
+        private Entry(final Key key, final ConfigurableApplicationContext applicationContext) {
+            this.key = key;
+            this.applicationContext = applicationContext;
+        }
+    }
+
+    /**
+     * Fingerprint of a resource config: the Spring config location, the registered classes and instances and the
+     * (simple valued) properties.
+     */
+    static final class Key {
+
+        private final String contextConfigLocation;
+        private final ImmutableSortedSet<String> components;
+        private final ImmutableSortedMap<String, String> properties;
+
+        private Key(final String contextConfigLocation, final ImmutableSortedSet<String> components,
+                    final ImmutableSortedMap<String, String> properties) {
+            this.contextConfigLocation = contextConfigLocation;
+            this.components = components;
+            this.properties = properties;
+        }
+
+        static Key of(final ResourceConfig resourceConfig) {
+            final Object location = resourceConfig.getProperty(SpringContexts.CONTEXT_CONFIG_LOCATION);
+
+            final ImmutableSortedSet.Builder<String> components = ImmutableSortedSet.naturalOrder();
+            for (final Class<?> componentClass : resourceConfig.getClasses()) {
+                components.add(componentClass.getName());
+            }
+            for (final Object instance : resourceConfig.getInstances()) {
+                components.add(instance.getClass().getName());
+            }
+
+            final SortedMap<String, String> properties = Maps.newTreeMap();
+            for (final Map.Entry<String, Object> property : resourceConfig.getProperties().entrySet()) {
+                if (SpringContexts.CONTEXT_CONFIG.equals(property.getKey()) || property.getValue() == null) {
+                    continue;
+                }
+                properties.put(property.getKey(), fingerprint(property.getValue()));
+            }
+
+            return new Key(location == null ? null : location.toString(), components.build(),
+                    ImmutableSortedMap.copyOfSorted(properties));
+        }
+
+        private static String fingerprint(final Object value) {
+            if (value instanceof String || value instanceof Number || value instanceof Boolean
+                    || value instanceof Enum || value instanceof Class) {
+                return value.toString();
+            }
+            return value.getClass().getName();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return Objects.equal(contextConfigLocation, other.contextConfigLocation)
+                    && components.equals(other.components)
+                    && properties.equals(other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(contextConfigLocation, components, properties);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("contextConfigLocation", contextConfigLocation)
+                    .add("components", components)
+                    .add("properties", properties)
+                    .toString();
+        }
+    }
+}
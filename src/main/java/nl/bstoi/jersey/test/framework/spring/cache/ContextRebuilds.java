@@ -0,0 +1,142 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JVM wide count of the test containers and application contexts that were discarded because a test dirtied its
+ * Spring application context, see {@link nl.bstoi.jersey.test.framework.spring.DirtiesSpringContext}. Rebuilds are
+ * counted per reason, the counts of a test class are logged after the tests of the class and the totals are logged at
+ * the end of the test run by {@link ContextRebuildsReporter}.
+ */
+public final class ContextRebuilds {
+
+    private static final Logger LOGGER = Logger.getLogger(ContextRebuilds.class.getName());
+
+    private static final ContextRebuilds INSTANCE = new ContextRebuilds();
+
+    private final Map<String, Integer> countsByReason = Maps.newLinkedHashMap();
+    private final Map<Class<?>, Map<String, Integer>> countsByTestClass = Maps.newHashMap();
+    private int count;
+
+    ContextRebuilds() {
+    }
+
+    /**
+     * @return the JVM wide count of rebuilds.
+     */
+    public static ContextRebuilds getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record that a test dirtied its application context.
+     *
+     * @param testClass class of the test.
+     * @param testName  name of the test method, {@code null} if unknown.
+     * @param reason    why the application context is dirty.
+     */
+    public synchronized void record(final Class<?> testClass, final String testName, final String reason) {
+        Preconditions.checkNotNull(testClass, "testClass");
+        Preconditions.checkNotNull(reason, "reason");
+        count++;
+        increment(countsByReason, reason);
+        Map<String, Integer> classCounts = countsByTestClass.get(testClass);
+        if (classCounts == null) {
+            classCounts = Maps.newLinkedHashMap();
+            countsByTestClass.put(testClass, classCounts);
+        }
+        increment(classCounts, reason);
+        LOGGER.log(Level.FINE, "Discarding the test container and application context after "
+                + testClass.getName() + (testName == null ? "" : "." + testName) + ": " + reason);
+    }
+
+    private static void increment(final Map<String, Integer> counts, final String reason) {
+        final Integer reasonCount = counts.get(reason);
+        counts.put(reason, reasonCount == null ? 1 : reasonCount + 1);
+    }
+
+    /**
+     * @return number of rebuilds.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of rebuilds per reason, in order of first occurrence.
+     */
+    public synchronized Map<String, Integer> getCountsByReason() {
+        return ImmutableMap.copyOf(countsByReason);
+    }
+
+    /**
+     * @param testClass class of the tests.
+     * @return number of rebuilds after tests of the given class per reason, in order of first occurrence.
+     */
+    public synchronized Map<String, Integer> getCountsByReason(final Class<?> testClass) {
+        final Map<String, Integer> classCounts = countsByTestClass.get(testClass);
+        return classCounts == null ? ImmutableMap.<String, Integer>of() : ImmutableMap.copyOf(classCounts);
+    }
+
+    /**
+     * Log the number of rebuilds per reason after the tests of a class, if any of its tests dirtied the context.
+     *
+     * @param testClass class of the tests.
+     */
+    public void log(final Class<?> testClass) {
+        final Map<String, Integer> counts = getCountsByReason(testClass);
+        if (!counts.isEmpty() && LOGGER.isLoggable(Level.INFO)) {
+            int classCount = 0;
+            for (final Integer reasonCount : counts.values()) {
+                classCount += reasonCount;
+            }
+            LOGGER.info(testClass.getName() + " dirtied the Spring application context " + classCount
+                    + (classCount == 1 ? " time: " : " times: ") + counts);
+        }
+    }
+
+    /**
+     * @return summary of the rebuilds of the whole run, {@code null} if no test dirtied its context.
+     */
+    public synchronized String getSummary() {
+        if (count == 0) {
+            return null;
+        }
+        return "Spring application contexts dirtied by tests " + count + (count == 1 ? " time: " : " times: ")
+                + countsByReason;
+    }
+
+    /**
+     * Log the number of rebuilds per reason of the whole run, if any test dirtied its context.
+     */
+    public void logSummary() {
+        final String summary = getSummary();
+        if (summary != null) {
+            LOGGER.info(summary);
+        }
+    }
+
+    /**
+     * Forget all recorded rebuilds.
+     */
+    public synchronized void reset() {
+        count = 0;
+        countsByReason.clear();
+        countsByTestClass.clear();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("count", getCount())
+                .add("countsByReason", getCountsByReason())
+                .toString();
+    }
+}
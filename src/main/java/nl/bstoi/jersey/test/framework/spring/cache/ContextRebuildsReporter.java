@@ -0,0 +1,36 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.Preconditions;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * JUnit run listener that logs the number of {@link ContextRebuilds rebuilds} per reason of the whole test run when
+ * the run is finished. Register it with the test runner, for the Maven Surefire plugin:
+ *
+ * <pre>
+ * &lt;properties&gt;
+ *     &lt;property&gt;
+ *         &lt;name&gt;listener&lt;/name&gt;
+ *         &lt;value&gt;nl.bstoi.jersey.test.framework.spring.cache.ContextRebuildsReporter&lt;/value&gt;
+ *     &lt;/property&gt;
+ * &lt;/properties&gt;
+ * </pre>
+ */
+public class ContextRebuildsReporter extends RunListener {
+
+    private final ContextRebuilds rebuilds;
+
+    public ContextRebuildsReporter() {
+        this(ContextRebuilds.getInstance());
+    }
+
+    ContextRebuildsReporter(final ContextRebuilds rebuilds) {
+        this.rebuilds = Preconditions.checkNotNull(rebuilds, "rebuilds");
+    }
+
+    @Override
+    public void testRunFinished(final Result result) {
+        rebuilds.logSummary();
+    }
+}
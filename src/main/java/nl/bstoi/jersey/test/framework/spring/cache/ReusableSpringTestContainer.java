@@ -0,0 +1,140 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
+import nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.PausableTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.StopPolicy;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.springframework.context.ApplicationContext;
+
+import java.net.URI;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test container that is shared between test instances. The underlying container is started once, {@link #stop()}
+ * only releases it and the container is really stopped when {@link #shutdown()} is called by the
+ * {@link SpringTestContainerCache}. A {@link PausableTestContainer} with the {@link StopPolicy.Mode#PAUSE} stop policy
+ * is paused between tests.
+ */
+public class ReusableSpringTestContainer implements ExtendedSpringTestContainer {
+
+    private static final Logger LOGGER = Logger.getLogger(ReusableSpringTestContainer.class.getName());
+
+    private final SpringTestContainer delegate;
+
+    private boolean started;
+    private boolean shutdown;
+
+    ReusableSpringTestContainer(final SpringTestContainer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ClientConfig getClientConfig() {
+        return delegate.getClientConfig();
+    }
+
+    @Override
+    public URI getBaseUri() {
+        return delegate.getBaseUri();
+    }
+
+    @Override
+    public ApplicationContext getApplicationContext() {
+        return delegate.getApplicationContext();
+    }
+
+    @Override
+    public RequestMetrics getRequestMetrics() {
+        return delegate instanceof ExtendedSpringTestContainer
+                ? ((ExtendedSpringTestContainer) delegate).getRequestMetrics() : null;
+    }
+
+    @Override
+    public SuspendMetrics getSuspendMetrics() {
+        return delegate instanceof ExtendedSpringTestContainer
+                ? ((ExtendedSpringTestContainer) delegate).getSuspendMetrics() : null;
+    }
+
+    @Override
+    public LogRecordBuffer getLogRecordBuffer() {
+        return delegate instanceof ExtendedSpringTestContainer
+                ? ((ExtendedSpringTestContainer) delegate).getLogRecordBuffer() : null;
+    }
+
+    @Override
+    public SharedClient getSharedClient() {
+        return delegate instanceof ExtendedSpringTestContainer
+                ? ((ExtendedSpringTestContainer) delegate).getSharedClient() : null;
+    }
+
+    @Override
+    public void reload(final ResourceConfig configuration, final boolean keepApplicationContext) {
+        if (!(delegate instanceof ExtendedSpringTestContainer)) {
+            throw new UnsupportedOperationException("The reused test container cannot reload its application.");
+        }
+        ((ExtendedSpringTestContainer) delegate).reload(configuration, keepApplicationContext);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (shutdown) {
+            throw new IllegalStateException("Reusable test container has already been shut down.");
+        }
+        if (!started) {
+            delegate.start();
+            started = true;
+        } else if (isPausedBetweenTests(delegate)) {
+            ((PausableTestContainer) delegate).resume();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (started && isPausedBetweenTests(delegate)) {
+            LOGGER.log(Level.FINE, "Pausing reusable test container until the next test.");
+            ((PausableTestContainer) delegate).pause();
+        } else {
+            LOGGER.log(Level.FINE, "Keeping reusable test container running for the next test.");
+        }
+    }
+
+    /**
+     * @param container test container.
+     * @return {@code true} if the container is paused when it is not used by a test.
+     */
+    static boolean isPausedBetweenTests(final SpringTestContainer container) {
+        return container instanceof PausableTestContainer
+                && ((PausableTestContainer) container).getStopPolicy().getMode() == StopPolicy.Mode.PAUSE;
+    }
+
+    /**
+     * Really stop the underlying test container and release its cached application context, after this call the
+     * container cannot be started again.
+     */
+    synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        if (started) {
+            started = false;
+            ApplicationContextCache.getInstance().stop(delegate);
+        } else {
+            ApplicationContextCache.getInstance().release(delegate.getApplicationContext());
+        }
+    }
+
+    /**
+     * @return the wrapped test container.
+     */
+    public SpringTestContainer getDelegate() {
+        return delegate;
+    }
+}
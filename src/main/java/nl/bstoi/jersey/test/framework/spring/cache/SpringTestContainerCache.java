@@ -0,0 +1,380 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.jersey.internal.util.PropertiesHelper;
+import org.springframework.context.ApplicationContext;
+
+import java.net.URI;
+import java.security.AccessController;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JVM wide cache of booted test containers, so the Spring and Jersey boot is only paid once per test class and
+ * configuration instead of once per test method. The cache is bounded, the least recently used container that is not
+ * used by a test is shut down when the maximum size ({@link SpringTestProperties#CONTAINER_CACHE_SIZE}) is exceeded.
+ * A test uses a container from {@link #get(Key, Supplier)} until it {@link #release(ReusableSpringTestContainer)
+ * releases} it, containers are created outside the lock of the cache so test classes running in parallel boot their
+ * containers concurrently. All cached containers are shut down when the JVM exits.
+ */
+public final class SpringTestContainerCache {
+
+    private static final Logger LOGGER = Logger.getLogger(SpringTestContainerCache.class.getName());
+
+    private static final SpringTestContainerCache INSTANCE = new SpringTestContainerCache(
+            readPositiveInteger(SpringTestProperties.CONTAINER_CACHE_SIZE, SpringTestProperties.DEFAULT_CONTAINER_CACHE_SIZE));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("spring-test-container-cache-shutdown") {
+            @Override
+            public void run() {
+                INSTANCE.clear();
+            }
+        });
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> containers = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    /**
+     * Evicted entries that are still used by a test, they are shut down when the last test releases them.
+     */
+    private final List<Entry> evicted = Lists.newArrayList();
+
+    SpringTestContainerCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the JVM wide container cache.
+     */
+    public static SpringTestContainerCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the cached container for the given key, or create (and cache) a new one using the given factory. The
+     * container is used by the caller until it is {@link #release(ReusableSpringTestContainer) released}, a used
+     * container is not shut down when it is evicted. When another thread is creating the container for the key, the
+     * caller waits for it.
+     *
+     * @param key     key of the container.
+     * @param factory creates the container when no container is cached for the key.
+     * @return the reusable test container.
+     */
+    public ReusableSpringTestContainer get(final Key key, final Supplier<? extends SpringTestContainer> factory) {
+        final Entry entry;
+        final List<Entry> idle;
+        final boolean create;
+        synchronized (this) {
+            Entry cached = containers.get(key);
+            create = cached == null;
+            if (create) {
+                // Make room first, so an evicted container releases its port before the new one is started
+                idle = removeIdle(maxSize - 1);
+                cached = new Entry(key);
+                containers.put(key, cached);
+            } else {
+                idle = Collections.emptyList();
+            }
+            cached.users++;
+            entry = cached;
+        }
+        shutdown(idle);
+        if (create) {
+            LOGGER.log(Level.FINE, "Creating reusable test container for " + key);
+            try {
+                entry.container.set(new ReusableSpringTestContainer(factory.get()));
+            } catch (RuntimeException e) {
+                failed(entry, e);
+                throw e;
+            } catch (Error e) {
+                failed(entry, e);
+                throw e;
+            }
+        }
+        try {
+            return Uninterruptibles.getUninterruptibly(entry.container);
+        } catch (ExecutionException e) {
+            // the container was created by another thread, which already removed the entry
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private void failed(final Entry entry, final Throwable failure) {
+        synchronized (this) {
+            if (containers.get(entry.key) == entry) {
+                containers.remove(entry.key);
+            }
+            evicted.remove(entry);
+        }
+        entry.container.setException(failure);
+    }
+
+    /**
+     * Release a container provided by {@link #get(Key, Supplier)}, called when the test using the container has
+     * finished. An evicted container is shut down when it is released by the last test using it.
+     *
+     * @param container container provided by this cache.
+     */
+    public void release(final ReusableSpringTestContainer container) {
+        final List<Entry> idle = Lists.newArrayList();
+        synchronized (this) {
+            final Entry entry = find(container);
+            if (entry == null) {
+                return;
+            }
+            entry.users--;
+            if (entry.users == 0 && evicted.remove(entry)) {
+                idle.add(entry);
+            }
+            // containers that were in use when the cache was full are evicted now
+            idle.addAll(removeIdle(maxSize));
+        }
+        shutdown(idle);
+    }
+
+    /**
+     * Remove the cached container for the given key, if any. The container is shut down at once when no test uses
+     * it, otherwise when it is released by the last test using it.
+     *
+     * @param key key of the container.
+     */
+    public void evict(final Key key) {
+        final List<Entry> idle = Lists.newArrayList();
+        synchronized (this) {
+            final Entry entry = containers.remove(key);
+            if (entry != null) {
+                evict(entry, idle);
+            }
+        }
+        shutdown(idle);
+    }
+
+    /**
+     * Remove the cached containers that use the given application context, e.g. because the context is closed. The
+     * containers are shut down at once when no test uses them, otherwise when they are released by the last test
+     * using them.
+     *
+     * @param applicationContext application context, or a view on it.
+     */
+    public void evict(final ApplicationContext applicationContext) {
+        final ApplicationContext delegate = SpringContexts.unwrap(applicationContext);
+        final List<Entry> idle = Lists.newArrayList();
+        synchronized (this) {
+            final Iterator<Entry> entries = containers.values().iterator();
+            while (entries.hasNext()) {
+                final Entry entry = entries.next();
+                final ReusableSpringTestContainer container = entry.getCreated();
+                if (container != null && SpringContexts.unwrap(container.getApplicationContext()) == delegate) {
+                    entries.remove();
+                    evict(entry, idle);
+                }
+            }
+        }
+        shutdown(idle);
+    }
+
+    /**
+     * Shut down and remove all cached containers, including the containers that are still used by a test. Called
+     * when the JVM exits.
+     */
+    public void clear() {
+        final List<Entry> all;
+        synchronized (this) {
+            all = Lists.newArrayList(containers.values());
+            all.addAll(evicted);
+            containers.clear();
+            evicted.clear();
+        }
+        shutdown(all);
+    }
+
+    /**
+     * @return number of cached containers.
+     */
+    public synchronized int size() {
+        return containers.size();
+    }
+
+    private void evict(final Entry entry, final List<Entry> idle) {
+        if (entry.users == 0) {
+            idle.add(entry);
+        } else {
+            evicted.add(entry);
+        }
+    }
+
+    /**
+     * Remove the least recently used containers that are not used by a test until at most the given number of
+     * containers is cached.
+     *
+     * @return the removed containers.
+     */
+    private List<Entry> removeIdle(final int size) {
+        final List<Entry> idle = Lists.newArrayList();
+        final Iterator<Entry> entries = containers.values().iterator();
+        while (containers.size() > size && entries.hasNext()) {
+            final Entry entry = entries.next();
+            if (entry.users == 0) {
+                entries.remove();
+                idle.add(entry);
+            }
+        }
+        return idle;
+    }
+
+    private Entry find(final ReusableSpringTestContainer container) {
+        for (final Entry entry : Iterables.concat(containers.values(), evicted)) {
+            if (entry.getCreated() == container) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void shutdown(final List<Entry> entries) {
+        for (final Entry entry : entries) {
+            final ReusableSpringTestContainer container = entry.getCreated();
+            if (container != null) {
+                LOGGER.log(Level.FINE, "Shutting down reusable test container for " + entry.key);
+                try {
+                    container.shutdown();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Unable to shut down reusable test container for " + entry.key, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a positive integer from a system property.
+     *
+     * @param propertyName name of the system property.
+     * @param defaultValue value used when the property is not set or invalid.
+     * @return value of the property.
+     */
+    static int readPositiveInteger(final String propertyName, final int defaultValue) {
+        final String value = AccessController.doPrivileged(PropertiesHelper.getSystemProperty(propertyName));
+        if (value != null) {
+            try {
+                final int i = Integer.parseInt(value);
+                if (i <= 0) {
+                    throw new NumberFormatException("Value not positive.");
+                }
+                return i;
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.CONFIG,
+                        "Value of " + propertyName
+                                + " property is not a valid positive integer [" + value + "]."
+                                + " Reverting to default [" + defaultValue + "].",
+                        e
+                );
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * A cached container, together with the number of tests using it.
+     */
+    private static final class Entry {
+
+        private final Key key;
+        private final SettableFuture<ReusableSpringTestContainer> container = SettableFuture.create();
+        private int users;
+
+        private Entry(final Key key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the container, {@code null} if it is still being created or its creation failed.
+         */
+        private ReusableSpringTestContainer getCreated() {
+            if (!container.isDone()) {
+                return null;
+            }
+            try {
+                return Uninterruptibles.getUninterruptibly(container);
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Key of a cached container, the test class together with the effective configuration it was created with.
+     */
+    public static final class Key {
+
+        private final Class<?> testClass;
+        private final Class<?> factoryClass;
+        private final URI baseUri;
+        private final Map<String, String> properties;
+        private final int hashCode;
+
+        /**
+         * Create a new cache key.
+         *
+         * @param testClass    class of the test.
+         * @param factoryClass class of the test container factory.
+         * @param baseUri      base URI the container is created for.
+         * @param properties   effective test properties.
+         */
+        public Key(final Class<?> testClass, final Class<?> factoryClass, final URI baseUri,
+                   final Map<String, String> properties) {
+            this.testClass = testClass;
+            this.factoryClass = factoryClass;
+            this.baseUri = baseUri;
+            this.properties = ImmutableMap.copyOf(properties);
+            this.hashCode = Objects.hashCode(testClass, factoryClass, baseUri, this.properties);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return testClass.equals(other.testClass)
+                    && factoryClass.equals(other.factoryClass)
+                    && baseUri.equals(other.baseUri)
+                    && properties.equals(other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("testClass", testClass.getName())
+                    .add("factoryClass", factoryClass.getName())
+                    .add("baseUri", baseUri)
+                    .add("properties", properties)
+                    .toString();
+        }
+    }
+}
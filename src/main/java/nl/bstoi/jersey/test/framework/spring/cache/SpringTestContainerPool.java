@@ -0,0 +1,386 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.PausableTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of pre-warmed test containers for one configuration, used when tests run in parallel threads. The containers
+ * are booted and started in the background, a test thread leases a container in {@code setUp()} and returns it in
+ * {@code tearDown()}. The number of pools is bounded ({@link SpringTestProperties#CONTAINER_POOL_LIMIT}), the least
+ * recently used pool is shut down when the maximum is exceeded. All pooled containers are stopped when the JVM exits.
+ */
+public final class SpringTestContainerPool {
+
+    private static final Logger LOGGER = Logger.getLogger(SpringTestContainerPool.class.getName());
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final int MAX_POOLS = SpringTestContainerCache.readPositiveInteger(
+            SpringTestProperties.CONTAINER_POOL_LIMIT, SpringTestProperties.DEFAULT_CONTAINER_POOL_LIMIT);
+
+    private static final LinkedHashMap<SpringTestContainerCache.Key, SpringTestContainerPool> POOLS =
+            new LinkedHashMap<SpringTestContainerCache.Key, SpringTestContainerPool>(16, 0.75f, true);
+
+    private static final ExecutorService BOOT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("spring-test-container-pool-%d").setDaemon(true).build());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("spring-test-container-pool-shutdown") {
+            @Override
+            public void run() {
+                shutdownAll();
+            }
+        });
+    }
+
+    private final SpringTestContainerCache.Key key;
+    private final int size;
+    private volatile Supplier<? extends SpringTestContainer> factory;
+    private final BlockingQueue<SpringTestContainer> available = new LinkedBlockingQueue<SpringTestContainer>();
+    /**
+     * The started containers of the pool, available or leased.
+     */
+    private final List<SpringTestContainer> containers = Lists.newCopyOnWriteArrayList();
+    private final AtomicInteger booting = new AtomicInteger();
+    private volatile Throwable bootFailure;
+    private volatile boolean shutdown;
+
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    private SpringTestContainerPool(final SpringTestContainerCache.Key key, final int size) {
+        this.key = key;
+        this.size = size;
+    }
+
+    /**
+     * Get the pool for the given configuration. When the pool does not exist yet it is created and the containers
+     * are booted in the background.
+     *
+     * @param key     key of the configuration.
+     * @param size    number of containers in the pool.
+     * @param factory creates (not yet started) containers for the pool, called concurrently from background threads.
+     *                Every call must return a container with its own resource config.
+     * @return pool of test containers.
+     */
+    public static SpringTestContainerPool get(final SpringTestContainerCache.Key key, final int size,
+                                              final Supplier<? extends SpringTestContainer> factory) {
+        final List<SpringTestContainerPool> evicted = Lists.newArrayList();
+        final SpringTestContainerPool pool;
+        synchronized (POOLS) {
+            SpringTestContainerPool existing = POOLS.get(key);
+            if (existing == null) {
+                final Iterator<SpringTestContainerPool> eldest = POOLS.values().iterator();
+                while (POOLS.size() >= MAX_POOLS && eldest.hasNext()) {
+                    evicted.add(eldest.next());
+                    eldest.remove();
+                }
+                existing = new SpringTestContainerPool(key, size);
+                POOLS.put(key, existing);
+            }
+            pool = existing;
+        }
+        for (final SpringTestContainerPool eldest : evicted) {
+            LOGGER.log(Level.FINE, "Shutting down least recently used " + eldest);
+            eldest.shutdown();
+        }
+        pool.boot(factory);
+        return pool;
+    }
+
+    /**
+     * Stop all containers of the pool for the given configuration and remove the pool, if any.
+     *
+     * @param key key of the configuration.
+     */
+    public static void evict(final SpringTestContainerCache.Key key) {
+        final SpringTestContainerPool pool;
+        synchronized (POOLS) {
+            pool = POOLS.remove(key);
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Stop the containers of all pools whose containers use the given application context and remove the pools, e.g.
+     * after a test dirtied a cached context shared by several pools. Leased containers are stopped when they are
+     * released.
+     *
+     * @param applicationContext application context of a container.
+     */
+    public static void evict(final ApplicationContext applicationContext) {
+        final ApplicationContext delegate = SpringContexts.unwrap(applicationContext);
+        final List<SpringTestContainerPool> evicted = Lists.newArrayList();
+        synchronized (POOLS) {
+            final Iterator<SpringTestContainerPool> pools = POOLS.values().iterator();
+            while (pools.hasNext()) {
+                final SpringTestContainerPool pool = pools.next();
+                if (pool.uses(delegate)) {
+                    pools.remove();
+                    evicted.add(pool);
+                }
+            }
+        }
+        for (final SpringTestContainerPool pool : evicted) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Stop the containers of all pools.
+     */
+    public static void shutdownAll() {
+        final List<SpringTestContainerPool> pools;
+        synchronized (POOLS) {
+            pools = Lists.newArrayList(POOLS.values());
+            POOLS.clear();
+        }
+        for (final SpringTestContainerPool pool : pools) {
+            LOGGER.log(Level.INFO, "Shutting down " + pool);
+            pool.shutdown();
+        }
+    }
+
+    private synchronized void boot(final Supplier<? extends SpringTestContainer> factory) {
+        if (this.factory == null) {
+            this.factory = factory;
+            boot(size);
+        }
+    }
+
+    private void boot(final int count) {
+        for (int i = 0; i < count; i++) {
+            booting.incrementAndGet();
+            BOOT_EXECUTOR.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        final SpringTestContainer container = factory.get();
+                        boolean started = false;
+                        try {
+                            container.start();
+                            started = true;
+                        } finally {
+                            if (!started) {
+                                stop(container);
+                            }
+                        }
+                        if (!add(container)) {
+                            // the pool was shut down, or its cached context evicted, while the container was booting
+                            stop(container);
+                            if (!shutdown) {
+                                boot(1);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        LOGGER.log(Level.WARNING, "Unable to boot pooled test container for " + key, t);
+                        bootFailure = t;
+                    } finally {
+                        booting.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Make a started container available, unless the pool has been shut down or the cached application context of the
+     * container has been evicted, e.g. because a test dirtied it, while the container was booting.
+     *
+     * @param container started container.
+     * @return {@code true} if the container was added to the pool.
+     */
+    private synchronized boolean add(final SpringTestContainer container) {
+        if (shutdown || ApplicationContextCache.getInstance().isEvicted(container.getApplicationContext())) {
+            return false;
+        }
+        containers.add(container);
+        available.add(container);
+        return true;
+    }
+
+    /**
+     * Lease a started container, waiting until one is available.
+     *
+     * @return started test container, return it to the pool with {@link #release(SpringTestContainer)}.
+     * @throws TestContainerException if no container could be booted or the pool has been shut down.
+     * @see #isShutdown()
+     */
+    public SpringTestContainer lease() {
+        final long start = System.nanoTime();
+        try {
+            SpringTestContainer container = null;
+            while (container == null) {
+                if (shutdown) {
+                    throw new TestContainerException("Test container pool has been shut down.");
+                }
+                if (bootFailure != null && booting.get() == 0 && containers.isEmpty()) {
+                    throw new TestContainerException("Unable to boot pooled test container.", bootFailure);
+                }
+                container = available.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            recordLease(System.nanoTime() - start);
+            if (ReusableSpringTestContainer.isPausedBetweenTests(container)) {
+                ((PausableTestContainer) container).resume();
+            }
+            return container;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TestContainerException("Interrupted while waiting for a pooled test container.", e);
+        }
+    }
+
+    /**
+     * Return a leased container to the pool.
+     *
+     * @param container leased container.
+     */
+    public void release(final SpringTestContainer container) {
+        if (ReusableSpringTestContainer.isPausedBetweenTests(container)) {
+            ((PausableTestContainer) container).pause();
+        }
+        synchronized (this) {
+            if (!shutdown) {
+                available.add(container);
+                return;
+            }
+        }
+        containers.remove(container);
+        stop(container);
+    }
+
+    /**
+     * Stop a leased container instead of returning it to the pool, e.g. because its application context is dirty, and
+     * boot a replacement in the background.
+     *
+     * @param container leased container.
+     */
+    public void discard(final SpringTestContainer container) {
+        containers.remove(container);
+        stop(container);
+        if (!shutdown) {
+            boot(1);
+        }
+    }
+
+    /**
+     * @return {@code true} if the pool has been shut down, e.g. because it was evicted, and cannot be leased from.
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    private void recordLease(final long waitNanos) {
+        leaseCount.incrementAndGet();
+        totalLeaseWaitNanos.addAndGet(waitNanos);
+        long max = maxLeaseWaitNanos.get();
+        while (waitNanos > max && !maxLeaseWaitNanos.compareAndSet(max, waitNanos)) {
+            max = maxLeaseWaitNanos.get();
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Leased pooled test container for " + key + " after "
+                    + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms");
+        }
+    }
+
+    /**
+     * Stop the available containers, leased containers are stopped when they are released and containers that are
+     * still booting when they are started.
+     */
+    private void shutdown() {
+        final List<SpringTestContainer> idle = Lists.newArrayList();
+        synchronized (this) {
+            shutdown = true;
+            available.drainTo(idle);
+            containers.removeAll(idle);
+        }
+        for (final SpringTestContainer container : idle) {
+            stop(container);
+        }
+    }
+
+    private synchronized boolean uses(final ApplicationContext delegate) {
+        for (final SpringTestContainer container : containers) {
+            if (SpringContexts.unwrap(container.getApplicationContext()) == delegate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void stop(final SpringTestContainer container) {
+        try {
+            ApplicationContextCache.getInstance().stop(container);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to stop pooled test container for " + key, e);
+        }
+    }
+
+    /**
+     * @return number of containers in the pool.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of leases.
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return total time test threads waited for a container.
+     */
+    public long getTotalLeaseWait(final TimeUnit unit) {
+        return unit.convert(totalLeaseWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return longest time a test thread waited for a container.
+     */
+    public long getMaxLeaseWait(final TimeUnit unit) {
+        return unit.convert(maxLeaseWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        final long leases = getLeaseCount();
+        return MoreObjects.toStringHelper(this)
+                .add("key", key)
+                .add("size", size)
+                .add("leaseCount", leases)
+                .add("totalLeaseWaitMillis", getTotalLeaseWait(TimeUnit.MILLISECONDS))
+                .add("averageLeaseWaitMillis", leases == 0 ? 0 : getTotalLeaseWait(TimeUnit.MILLISECONDS) / leases)
+                .add("maxLeaseWaitMillis", getMaxLeaseWait(TimeUnit.MILLISECONDS))
+                .toString();
+    }
+}
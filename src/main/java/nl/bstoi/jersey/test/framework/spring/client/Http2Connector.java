@@ -0,0 +1,207 @@
+package nl.bstoi.jersey.test.framework.spring.client;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.OutboundMessageContext;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client connector speaking HTTP/2 with OkHttp. Plain HTTP requests use HTTP/2 with prior knowledge (h2c), HTTPS
+ * requests negotiate HTTP/2 with ALPN and fall back to HTTP/1.1. Concurrent requests to the test container are
+ * multiplexed over one connection, the number of concurrent streams is only limited by the server.
+ */
+class Http2Connector implements Connector {
+
+    private static final byte[] NO_ENTITY = new byte[0];
+
+    private final OkHttpClient cleartextClient;
+    private final OkHttpClient secureClient;
+
+    Http2Connector(final Client client, final Configuration runtimeConfig) {
+        final Map<String, Object> properties = runtimeConfig.getProperties();
+        final int connectTimeout = ClientProperties.getValue(properties, ClientProperties.CONNECT_TIMEOUT, 0);
+        final int readTimeout = ClientProperties.getValue(properties, ClientProperties.READ_TIMEOUT, 0);
+        final boolean followRedirects = ClientProperties.getValue(properties, ClientProperties.FOLLOW_REDIRECTS,
+                true);
+
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Integer.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(0, TimeUnit.MILLISECONDS)
+                .followRedirects(followRedirects);
+        final HostnameVerifier hostnameVerifier = client.getHostnameVerifier();
+        if (hostnameVerifier != null) {
+            builder.hostnameVerifier(hostnameVerifier);
+        }
+        this.cleartextClient = builder.build();
+        // shares the dispatcher and connection pool of the cleartext client
+        this.secureClient = cleartextClient.newBuilder()
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .build();
+    }
+
+    @Override
+    public ClientResponse apply(final ClientRequest request) {
+        final Call call = newCall(request);
+        try {
+            return toClientResponse(request, call.execute());
+        } catch (IOException e) {
+            throw new ProcessingException("Unable to send the HTTP/2 request.", e);
+        }
+    }
+
+    @Override
+    public Future<?> apply(final ClientRequest request, final AsyncConnectorCallback callback) {
+        final Call call;
+        try {
+            call = newCall(request);
+        } catch (ProcessingException e) {
+            callback.failure(e);
+            return Futures.immediateFailedFuture(e);
+        }
+        final SettableFuture<ClientResponse> future = SettableFuture.create();
+        call.enqueue(new Callback() {
+
+            @Override
+            public void onResponse(final Call call, final Response response) {
+                final ClientResponse clientResponse = toClientResponse(request, response);
+                future.set(clientResponse);
+                callback.response(clientResponse);
+            }
+
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                final ProcessingException failure = new ProcessingException("Unable to send the HTTP/2 request.", e);
+                future.setException(failure);
+                callback.failure(failure);
+            }
+        });
+        future.addListener(new Runnable() {
+
+            @Override
+            public void run() {
+                if (future.isCancelled()) {
+                    call.cancel();
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private Call newCall(final ClientRequest request) {
+        final byte[] entity = writeEntity(request);
+        final String method = request.getMethod();
+        final RequestBody body;
+        if (entity != null) {
+            final String contentType = request.getHeaderString(HttpHeaders.CONTENT_TYPE);
+            body = RequestBody.create(contentType == null ? null : MediaType.parse(contentType), entity);
+        } else if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
+            // OkHttp requires a body for these methods
+            body = RequestBody.create(null, NO_ENTITY);
+        } else {
+            body = null;
+        }
+
+        final Request.Builder builder = new Request.Builder()
+                .url(request.getUri().toString())
+                .method(method, body);
+        for (final Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+            for (final String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+        final OkHttpClient client = "https".equalsIgnoreCase(request.getUri().getScheme())
+                ? secureClient : cleartextClient;
+        return client.newCall(builder.build());
+    }
+
+    /**
+     * Buffer the entity of a request, OkHttp needs the complete entity before the request is sent.
+     *
+     * @param request client request.
+     * @return serialized entity, {@code null} if the request has no entity.
+     */
+    private static byte[] writeEntity(final ClientRequest request) {
+        if (request.getEntity() == null) {
+            return null;
+        }
+        final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        request.setStreamProvider(new OutboundMessageContext.StreamProvider() {
+
+            @Override
+            public OutputStream getOutputStream(final int contentLength) throws IOException {
+                return entity;
+            }
+        });
+        request.enableBuffering();
+        try {
+            request.writeEntity();
+        } catch (IOException e) {
+            throw new ProcessingException("Error while writing entity to the HTTP/2 request.", e);
+        }
+        return entity.toByteArray();
+    }
+
+    private static ClientResponse toClientResponse(final ClientRequest request, final Response response) {
+        // HTTP/2 has no reason phrase
+        final String message = response.message();
+        final ClientResponse clientResponse = new ClientResponse(message == null || message.isEmpty()
+                ? Statuses.from(response.code()) : Statuses.from(response.code(), message), request);
+        final Headers headers = response.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            clientResponse.getHeaders().add(headers.name(i), headers.value(i));
+        }
+        final ResponseBody body = response.body();
+        clientResponse.setEntityStream(body == null ? new ByteArrayInputStream(NO_ENTITY) : body.byteStream());
+        return clientResponse;
+    }
+
+    @Override
+    public String getName() {
+        return "HTTP/2 connector (OkHttp)";
+    }
+
+    @Override
+    public void close() {
+        cleartextClient.dispatcher().executorService().shutdown();
+        cleartextClient.connectionPool().evictAll();
+    }
+}
@@ -0,0 +1,22 @@
+package nl.bstoi.jersey.test.framework.spring.client;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+
+/**
+ * Provides client connectors speaking HTTP/2 to a test container that has HTTP/2 enabled: h2c with prior knowledge
+ * over plain HTTP, ALPN negotiated HTTP/2 over HTTPS. Needs {@code com.squareup.okhttp3:okhttp} on the class path.
+ * <pre>
+ * config.connectorProvider(new Http2ConnectorProvider());
+ * </pre>
+ */
+public class Http2ConnectorProvider implements ConnectorProvider {
+
+    @Override
+    public Connector getConnector(final Client client, final Configuration runtimeConfig) {
+        return new Http2Connector(client, runtimeConfig);
+    }
+}
@@ -0,0 +1,64 @@
+package nl.bstoi.jersey.test.framework.spring.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+
+/**
+ * Pooled keep-alive connector of the test client, backed by the Jersey Apache connector. A request holds its pooled
+ * connection until the response entity is read or the response is closed, so tests must close the responses they do
+ * not read. When all connections stay leased, a request fails after the lease timeout instead of waiting forever.
+ * <p>
+ * The pooled connector needs {@code org.glassfish.jersey.connectors:jersey-apache-connector} on the class path.
+ * </p>
+ */
+public final class PooledConnectorSupport {
+
+    private static final String CONNECTOR_CLASS_NAME = "org.glassfish.jersey.apache.connector.ApacheConnectorProvider";
+
+    /**
+     * @return {@code true} if the Jersey Apache connector is on the class path.
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName(CONNECTOR_CLASS_NAME, false, PooledConnectorSupport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Use a connector with a pool of keep-alive connections. The connection pool is closed with the client.
+     *
+     * @param config                 client configuration.
+     * @param maxConnectionsPerRoute maximum number of pooled connections to the test container.
+     * @param leaseTimeoutMillis     how long a request waits for a pooled connection, in milliseconds.
+     * @throws IllegalStateException if the Jersey Apache connector is not on the class path.
+     */
+    public static void configure(final ClientConfig config, final int maxConnectionsPerRoute,
+                                 final int leaseTimeoutMillis) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("The pooled test client is enabled, but " + CONNECTOR_CLASS_NAME
+                    + " is not on the class path. Add org.glassfish.jersey.connectors:jersey-apache-connector to the "
+                    + "test dependencies.");
+        }
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnectionsPerRoute);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+        // the connect and read timeouts of the client properties are added by the connector
+        config.property(ApacheClientProperties.REQUEST_CONFIG, RequestConfig.custom()
+                .setConnectionRequestTimeout(leaseTimeoutMillis)
+                .build());
+        config.connectorProvider(new ApacheConnectorProvider());
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private PooledConnectorSupport() {
+    }
+}
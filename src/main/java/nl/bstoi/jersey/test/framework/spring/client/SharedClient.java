@@ -0,0 +1,40 @@
+package nl.bstoi.jersey.test.framework.spring.client;
+
+import com.google.common.base.Supplier;
+
+import javax.ws.rs.client.Client;
+
+/**
+ * Client shared by the tests that use the same test container. The client is created by the first test that asks for
+ * it and closed when the container is stopped, so its pooled connections do not outlive the server.
+ */
+public final class SharedClient {
+
+    private Client client;
+
+    /**
+     * Get the shared client, create it if there is none yet.
+     *
+     * @param factory creates the client.
+     * @return shared client.
+     */
+    public synchronized Client get(final Supplier<Client> factory) {
+        if (client == null) {
+            client = factory.get();
+        }
+        return client;
+    }
+
+    /**
+     * Close the shared client, if any. A later call to {@link #get(Supplier)} creates a new client.
+     */
+    public synchronized void close() {
+        if (client != null) {
+            try {
+                client.close();
+            } finally {
+                client = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package nl.bstoi.jersey.test.framework.spring.context;
+
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Keeps the Spring application context of a container running when the Jersey application is reloaded. The new
+ * application gets the running context as a {@link SpringContexts#nonClosingView(ApplicationContext) non closing view},
+ * so jersey-spring3 neither closes it when the old application shuts down nor refreshes it when the new application
+ * starts. A context that was created by jersey-spring3 is owned by the container from then on, it is closed by
+ * {@link #close()} on a full reload or when the container is destroyed.
+ */
+public final class RetainedApplicationContext {
+
+    private ApplicationContext retained;
+
+    /**
+     * Get the configuration of an application that reuses the Spring application context of the running application.
+     *
+     * @param handler       running application.
+     * @param configuration configuration of the new application.
+     * @return configuration of the new application, the given configuration if it provides another application
+     * context or the running application has no application context.
+     */
+    public synchronized ResourceConfig retain(final ApplicationHandler handler, final ResourceConfig configuration) {
+        final ApplicationContext applicationContext = getApplicationContext(handler);
+        final Object provided = configuration.getProperty(SpringContexts.CONTEXT_CONFIG);
+        if (applicationContext == null || provided != null && !isSameContext(provided, applicationContext)) {
+            return configuration;
+        }
+        if (!SpringContexts.isNonClosingView(applicationContext)) {
+            retained = applicationContext;
+        }
+        return new ResourceConfig(configuration)
+                .property(SpringContexts.CONTEXT_CONFIG, SpringContexts.nonClosingView(applicationContext));
+    }
+
+    /**
+     * Get the configuration of an application that creates a new Spring application context, for a full reload after
+     * the application context was retained.
+     *
+     * @param configuration configuration of the new application.
+     * @return configuration of the new application without the retained application context.
+     */
+    public synchronized ResourceConfig release(final ResourceConfig configuration) {
+        if (retained == null || !isSameContext(configuration.getProperty(SpringContexts.CONTEXT_CONFIG), retained)) {
+            return configuration;
+        }
+        return new ResourceConfig(configuration).property(SpringContexts.CONTEXT_CONFIG, null);
+    }
+
+    /**
+     * Shut down an application that is replaced. When the application still holds the retained application context,
+     * its container lifecycle listeners are skipped, as jersey-spring3 would close the context, and only its services
+     * are destroyed.
+     *
+     * @param handler   replaced application.
+     * @param container container the application was deployed in.
+     */
+    public synchronized void shutdown(final ApplicationHandler handler, final Container container) {
+        if (retained != null && getApplicationContext(handler) == retained) {
+            handler.getServiceLocator().shutdown();
+        } else {
+            handler.onShutdown(container);
+        }
+    }
+
+    /**
+     * Close the retained application context, if any.
+     */
+    public synchronized void close() {
+        if (retained != null) {
+            try {
+                SpringContexts.close(retained);
+            } finally {
+                retained = null;
+            }
+        }
+    }
+
+    private static boolean isSameContext(final Object provided, final ApplicationContext applicationContext) {
+        return provided instanceof ApplicationContext
+                && SpringContexts.unwrap((ApplicationContext) provided) == SpringContexts.unwrap(applicationContext);
+    }
+
+    private static ApplicationContext getApplicationContext(final ApplicationHandler handler) {
+        return handler.getServiceLocator().getService(ApplicationContext.class);
+    }
+}
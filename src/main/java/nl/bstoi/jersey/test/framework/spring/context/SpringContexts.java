@@ -0,0 +1,149 @@
+package nl.bstoi.jersey.test.framework.spring.context;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Utilities to create and share the Spring application contexts used by the jersey-spring3 bridge.
+ */
+public final class SpringContexts {
+
+    /**
+     * Resource config property holding the Spring config location, as read by jersey-spring3.
+     */
+    public static final String CONTEXT_CONFIG_LOCATION = "contextConfigLocation";
+
+    /**
+     * Resource config property holding a ready to use Spring application context, as read by jersey-spring3.
+     */
+    public static final String CONTEXT_CONFIG = "contextConfig";
+
+    /**
+     * Default Spring config location used by jersey-spring3.
+     */
+    public static final String DEFAULT_CONTEXT_CONFIG_LOCATION = "applicationContext.xml";
+
+    private static final String JERSEY_SPRING_CONTEXT_CONFIG_LOCATION = "jersey-spring-applicationContext.xml";
+
+    /**
+     * Create a Spring application context the same way jersey-spring3 does when no context is provided.
+     *
+     * @param contextConfigLocation Spring config location, {@code null} for the default location.
+     * @return refreshed application context.
+     */
+    public static ConfigurableApplicationContext createXmlApplicationContext(final String contextConfigLocation) {
+        final String location = contextConfigLocation == null ? DEFAULT_CONTEXT_CONFIG_LOCATION : contextConfigLocation;
+        return new ClassPathXmlApplicationContext(location, JERSEY_SPRING_CONTEXT_CONFIG_LOCATION);
+    }
+
+    /**
+     * Create a Spring application context the same way jersey-spring3 does when no context is provided, with a bean
+     * post processor that is applied to every bean, including the bean factory post processors defined in the config.
+     *
+     * @param contextConfigLocation Spring config location, {@code null} for the default location.
+     * @param beanPostProcessor     bean post processor to add before the context is refreshed.
+     * @return refreshed application context.
+     */
+    public static ConfigurableApplicationContext createXmlApplicationContext(final String contextConfigLocation,
+                                                                            final BeanPostProcessor beanPostProcessor) {
+        final String location = contextConfigLocation == null ? DEFAULT_CONTEXT_CONFIG_LOCATION : contextConfigLocation;
+        final ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext(
+                new String[]{location, JERSEY_SPRING_CONTEXT_CONFIG_LOCATION}, false) {
+            @Override
+            protected void postProcessBeanFactory(final ConfigurableListableBeanFactory beanFactory) {
+                // runs before any post processor bean is created
+                beanFactory.addBeanPostProcessor(beanPostProcessor);
+            }
+        };
+        applicationContext.refresh();
+        return applicationContext;
+    }
+
+    /**
+     * Create a view on an application context that does not expose the
+     * {@link ConfigurableApplicationContext} lifecycle. jersey-spring3 closes a configurable context on
+     * container shutdown and refreshes it on reload, the view keeps a shared context out of that lifecycle.
+     *
+     * @param applicationContext shared application context.
+     * @return non closing view of the application context.
+     */
+    public static ApplicationContext nonClosingView(final ApplicationContext applicationContext) {
+        if (isNonClosingView(applicationContext)) {
+            return applicationContext;
+        }
+        return (ApplicationContext) Proxy.newProxyInstance(SpringContexts.class.getClassLoader(),
+                new Class<?>[]{ApplicationContext.class}, new NonClosingInvocationHandler(applicationContext));
+    }
+
+    /**
+     * @param applicationContext application context.
+     * @return {@code true} if the application context is created by {@link #nonClosingView(ApplicationContext)}.
+     */
+    public static boolean isNonClosingView(final ApplicationContext applicationContext) {
+        return applicationContext != null
+                && Proxy.isProxyClass(applicationContext.getClass())
+                && Proxy.getInvocationHandler(applicationContext) instanceof NonClosingInvocationHandler;
+    }
+
+    /**
+     * Get the application context behind a view created by {@link #nonClosingView(ApplicationContext)}.
+     *
+     * @param applicationContext application context or view.
+     * @return the application context behind the view, or the given application context if it is not a view.
+     */
+    public static ApplicationContext unwrap(final ApplicationContext applicationContext) {
+        if (isNonClosingView(applicationContext)) {
+            return ((NonClosingInvocationHandler) Proxy.getInvocationHandler(applicationContext)).delegate;
+        }
+        return applicationContext;
+    }
+
+    /**
+     * Close the application context (or the context behind a view) if it is configurable.
+     *
+     * @param applicationContext application context to close.
+     */
+    public static void close(final ApplicationContext applicationContext) {
+        final ApplicationContext delegate = unwrap(applicationContext);
+        if (delegate instanceof ConfigurableApplicationContext) {
+            ((ConfigurableApplicationContext) delegate).close();
+        }
+    }
+
+    private static class NonClosingInvocationHandler implements InvocationHandler {
+
+        private final ApplicationContext delegate;
+
+        private NonClosingInvocationHandler(final ApplicationContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName()) && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private SpringContexts() {
+    }
+}
@@ -0,0 +1,261 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import nl.bstoi.jersey.test.framework.spring.profile.BootPhase;
+import nl.bstoi.jersey.test.framework.spring.profile.BootProfiler;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.spi.TestContainer;
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.springframework.context.ApplicationContext;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test container factory that boots the containers of another factory in the background. {@link #create} returns
+ * immediately, the Spring refresh, Jersey application model building and listener bind of the wrapped container run
+ * on a background thread. {@link TestContainer#start()} does not wait for the boot, the test thread only blocks when
+ * the container is first used, e.g. for its base URI or application context. When profiled, the time the test thread
+ * waits for the boot is recorded as the {@link BootPhase#SERVER_START server start}.
+ */
+public class AsyncSpringTestContainerFactory implements SpringTestContainerFactory {
+
+    private static final ExecutorService BOOT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("spring-test-container-boot-%d").setDaemon(true).build());
+
+    private final SpringTestContainerFactory delegate;
+    private final BootProfiler profiler;
+
+    private static class AsyncSpringTestContainer implements PausableTestContainer, ExtendedSpringTestContainer {
+
+        private static final Logger LOGGER = Logger.getLogger(AsyncSpringTestContainer.class.getName());
+
+        private final Future<SpringTestContainer> container;
+        private final BootProfiler profiler;
+
+        /**
+         * {@code true} while the container started in the background is not stopped.
+         */
+        private boolean started = true;
+
+        private AsyncSpringTestContainer(final Future<SpringTestContainer> container, final BootProfiler profiler) {
+            this.container = container;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public ClientConfig getClientConfig() {
+            return getContainer().getClientConfig();
+        }
+
+        @Override
+        public URI getBaseUri() {
+            return getContainer().getBaseUri();
+        }
+
+        @Override
+        public ApplicationContext getApplicationContext() {
+            return getContainer().getApplicationContext();
+        }
+
+        @Override
+        public RequestMetrics getRequestMetrics() {
+            final ExtendedSpringTestContainer delegate = getExtendedContainer();
+            return delegate == null ? null : delegate.getRequestMetrics();
+        }
+
+        @Override
+        public SuspendMetrics getSuspendMetrics() {
+            final ExtendedSpringTestContainer delegate = getExtendedContainer();
+            return delegate == null ? null : delegate.getSuspendMetrics();
+        }
+
+        @Override
+        public LogRecordBuffer getLogRecordBuffer() {
+            final ExtendedSpringTestContainer delegate = getExtendedContainer();
+            return delegate == null ? null : delegate.getLogRecordBuffer();
+        }
+
+        @Override
+        public SharedClient getSharedClient() {
+            final ExtendedSpringTestContainer delegate = getExtendedContainer();
+            return delegate == null ? null : delegate.getSharedClient();
+        }
+
+        @Override
+        public void reload(final ResourceConfig configuration, final boolean keepApplicationContext) {
+            final ExtendedSpringTestContainer delegate = getExtendedContainer();
+            if (delegate == null) {
+                throw new UnsupportedOperationException("The booted test container cannot reload its application.");
+            }
+            delegate.reload(configuration, keepApplicationContext);
+        }
+
+        /**
+         * @return the booted container, {@code null} if it does not implement {@link ExtendedSpringTestContainer}.
+         */
+        private ExtendedSpringTestContainer getExtendedContainer() {
+            final SpringTestContainer delegate = getContainer();
+            return delegate instanceof ExtendedSpringTestContainer ? (ExtendedSpringTestContainer) delegate : null;
+        }
+
+        @Override
+        public StopPolicy getStopPolicy() {
+            final SpringTestContainer delegate = getContainer();
+            return delegate instanceof PausableTestContainer
+                    ? ((PausableTestContainer) delegate).getStopPolicy() : StopPolicy.now();
+        }
+
+        @Override
+        public int getInFlightRequests() {
+            final SpringTestContainer delegate = getContainer();
+            return delegate instanceof PausableTestContainer
+                    ? ((PausableTestContainer) delegate).getInFlightRequests() : 0;
+        }
+
+        @Override
+        public void pause() {
+            final SpringTestContainer delegate = getContainer();
+            if (delegate instanceof PausableTestContainer) {
+                ((PausableTestContainer) delegate).pause();
+            }
+        }
+
+        @Override
+        public void resume() {
+            final SpringTestContainer delegate = getContainer();
+            if (delegate instanceof PausableTestContainer) {
+                ((PausableTestContainer) delegate).resume();
+            }
+        }
+
+        /**
+         * Start the container again after it was stopped. The first start happens in the background, it is not waited
+         * for.
+         */
+        @Override
+        public synchronized void start() {
+            if (!started) {
+                getContainer().start();
+                started = true;
+            }
+        }
+
+        /**
+         * Stop the container, a container that failed to boot is not running and its boot failure is not thrown again.
+         */
+        @Override
+        public synchronized void stop() {
+            if (!isBootFailed()) {
+                getContainer().stop();
+            }
+            started = false;
+        }
+
+        /**
+         * Wait for the background boot to finish.
+         *
+         * @return {@code true} if the boot failed.
+         */
+        private boolean isBootFailed() {
+            try {
+                awaitBoot();
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Wait for the background boot to finish.
+         *
+         * @return the booted and started container.
+         */
+        private SpringTestContainer getContainer() {
+            try {
+                return awaitBoot();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TestContainerException("Interrupted while waiting for the test container to boot.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new TestContainerException("Unable to boot the test container.", e.getCause());
+            }
+        }
+
+        private SpringTestContainer awaitBoot() throws InterruptedException, ExecutionException {
+            if (container.isDone()) {
+                return container.get();
+            }
+            LOGGER.log(Level.FINE, "Waiting for the test container to finish booting...");
+            final long start = System.nanoTime();
+            try {
+                return container.get();
+            } finally {
+                if (profiler != null) {
+                    profiler.record(BootPhase.SERVER_START, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a factory booting the containers of the given factory in the background.
+     *
+     * @param delegate factory creating the containers.
+     */
+    public AsyncSpringTestContainerFactory(final SpringTestContainerFactory delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Create a factory booting the containers of the given factory in the background.
+     *
+     * @param delegate factory creating the containers.
+     * @param profiler profiler recording the time the test waits for the boot, may be {@code null}.
+     */
+    public AsyncSpringTestContainerFactory(final SpringTestContainerFactory delegate, final BootProfiler profiler) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Wait for the boot of a container created by this factory.
+     *
+     * @param container test container.
+     * @return {@code true} if the container was booted in the background and the boot failed.
+     */
+    public static boolean isBootFailed(final TestContainer container) {
+        return container instanceof AsyncSpringTestContainer && ((AsyncSpringTestContainer) container).isBootFailed();
+    }
+
+    @Override
+    public SpringTestContainer create(final URI baseUri, final DeploymentContext deploymentContext) {
+        return new AsyncSpringTestContainer(BOOT_EXECUTOR.submit(new Callable<SpringTestContainer>() {
+
+            @Override
+            public SpringTestContainer call() throws Exception {
+                final SpringTestContainer container = delegate.create(baseUri, deploymentContext);
+                container.start();
+                return container;
+            }
+        }), profiler);
+    }
+}
@@ -0,0 +1,49 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * Test container that exposes the request metrics, the recorded log records and a shared client, and can reload its
+ * application. The containers of this framework implement it, a container of a custom {@link SpringTestContainerFactory}
+ * may implement only {@link SpringTestContainer}, the tests then work without the features that need these methods.
+ */
+public interface ExtendedSpringTestContainer extends SpringTestContainer {
+
+    /**
+     * @return request metrics of the deployed application, {@code null} if request metrics are not enabled.
+     */
+    public RequestMetrics getRequestMetrics();
+
+    /**
+     * @return counters of the requests suspended by asynchronous resources, {@code null} if the container does not
+     * track suspended requests.
+     */
+    public SuspendMetrics getSuspendMetrics();
+
+    /**
+     * @return buffer the log records of the requests handled by the container are recorded in, {@code null} if log
+     * recording is not enabled.
+     */
+    public LogRecordBuffer getLogRecordBuffer();
+
+    /**
+     * @return client shared by the tests using the container, closed when the container is stopped, {@code null} if
+     * the container does not share a client.
+     */
+    public SharedClient getSharedClient();
+
+    /**
+     * Replace the deployed application, e.g. to swap the resources under test.
+     *
+     * @param configuration          configuration of the new application.
+     * @param keepApplicationContext {@code true} to keep the running Spring application context and only rebuild the
+     *                               Jersey resource model and providers, {@code false} to create a new application
+     *                               context as well.
+     * @throws UnsupportedOperationException if the container cannot reload its application.
+     */
+    public void reload(ResourceConfig configuration, boolean keepApplicationContext);
+}
@@ -0,0 +1,30 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+/**
+ * Test container that can stop handling requests between tests while its listener stays bound and its transport
+ * threads keep running. Reused and pooled containers are paused between tests when their {@link StopPolicy} is
+ * {@link StopPolicy.Mode#PAUSE}.
+ */
+public interface PausableTestContainer extends SpringTestContainer {
+
+    /**
+     * @return stop policy of the container.
+     */
+    public StopPolicy getStopPolicy();
+
+    /**
+     * @return number of requests that are received but not completed yet, including suspended async requests.
+     */
+    public int getInFlightRequests();
+
+    /**
+     * Wait for the in-flight requests to finish, at most the drain timeout of the {@link StopPolicy}, and pause the
+     * listener. Requests received while paused are handled after {@link #resume()}.
+     */
+    public void pause();
+
+    /**
+     * Handle requests again after {@link #pause()}.
+     */
+    public void resume();
+}
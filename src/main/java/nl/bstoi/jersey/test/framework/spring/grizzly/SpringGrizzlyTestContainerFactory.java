@@ -1,43 +1,88 @@
 package nl.bstoi.jersey.test.framework.spring.grizzly;
 
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
 import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.SpringGrizzlyHttpContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.GrizzlyTransportConfig;
 import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.SpringGrizzlyHttpServerFactory;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.DeploymentContext;
 import org.glassfish.jersey.test.spi.TestContainerException;
-import org.glassfish.jersey.test.spi.TestHelper;
 import org.springframework.context.ApplicationContext;
 
 import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Hylke Stapersma (codecentric nl)
  * hylke.stapersma@codecentric.nl
+ *
+ * Test container factory that runs the application in a Grizzly HTTP server. The thread topology of the server is
+ * taken from the {@link GrizzlyTransportConfig} of the application, e.g. set through the Grizzly transport
+ * {@link nl.bstoi.jersey.test.framework.spring.SpringTestProperties test properties}, or else from the configuration
+ * the factory is created with.
  */
 public class SpringGrizzlyTestContainerFactory implements SpringTestContainerFactory {
 
-    private static class SpringGrizzlyTestContainer implements SpringTestContainer {
+    private final GrizzlyTransportConfig transportConfig;
+
+    /**
+     * Create a factory of test containers with the Grizzly transport defaults.
+     */
+    public SpringGrizzlyTestContainerFactory() {
+        this(null);
+    }
+
+    /**
+     * Create a factory of test containers with a configured Grizzly transport.
+     *
+     * @param transportConfig thread topology of the Grizzly transport, {@code null} for the Grizzly defaults.
+     */
+    public SpringGrizzlyTestContainerFactory(final GrizzlyTransportConfig transportConfig) {
+        this.transportConfig = transportConfig;
+    }
+
+    private static class SpringGrizzlyTestContainer implements PausableTestContainer, ExtendedSpringTestContainer {
 
         private static final Logger LOGGER = Logger.getLogger(SpringGrizzlyTestContainer.class.getName());
 
-        private URI baseUri;
+        private volatile URI baseUri;
+
+        /**
+         * {@code true} if the port is picked by the operating system every time the container is started.
+         */
+        private final boolean ephemeralPort;
 
         private final HttpServer server;
 
-        private SpringGrizzlyTestContainer(final URI baseUri, final DeploymentContext context) {
+        private final SharedClient sharedClient = new SharedClient();
+
+        private final StopPolicy stopPolicy;
+
+        private boolean paused;
+
+        private SpringGrizzlyTestContainer(final URI baseUri, final DeploymentContext context,
+                                           final GrizzlyTransportConfig transportConfig) {
             this.baseUri = UriBuilder.fromUri(baseUri).path(context.getContextPath()).build();
+            this.ephemeralPort = baseUri.getPort() == 0;
+            this.stopPolicy = StopPolicy.get(context.getResourceConfig());
 
             if (LOGGER.isLoggable(Level.INFO)) {
-                LOGGER.info("Creating GrizzlyTestContainer configured at the base URI "
-                        + TestHelper.zeroPortToAvailablePort(baseUri));
+                LOGGER.info("Creating GrizzlyTestContainer configured at the base URI " + this.baseUri
+                        + (ephemeralPort ? " (the port is assigned when the container is started)" : ""));
             }
 
-            this.server = SpringGrizzlyHttpServerFactory.createHttpServer(this.baseUri, context.getResourceConfig(), false);
+            this.server = SpringGrizzlyHttpServerFactory.createHttpServer(this.baseUri, context.getResourceConfig(),
+                    transportConfig, false);
         }
 
         @Override
@@ -52,17 +97,101 @@ public class SpringGrizzlyTestContainerFactory implements SpringTestContainerFac
 
         @Override
         public ApplicationContext getApplicationContext() {
+            return getHttpContainer().getSpringApplicationContext();
+        }
+
+        @Override
+        public RequestMetrics getRequestMetrics() {
+            return getHttpContainer().getRequestMetrics();
+        }
+
+        @Override
+        public SuspendMetrics getSuspendMetrics() {
+            return getHttpContainer().getSuspendMetrics();
+        }
+
+        @Override
+        public LogRecordBuffer getLogRecordBuffer() {
+            return getHttpContainer().getLogRecordBuffer();
+        }
+
+        @Override
+        public SharedClient getSharedClient() {
+            return sharedClient;
+        }
+
+        @Override
+        public void reload(final ResourceConfig configuration, final boolean keepApplicationContext) {
+            getHttpContainer().reload(configuration, keepApplicationContext);
+        }
+
+        private SpringGrizzlyHttpContainer getHttpContainer() {
             for (org.glassfish.grizzly.http.server.HttpHandler httpHandler : this.server.getServerConfiguration().getHttpHandlers().keySet()) {
                 if (httpHandler instanceof SpringGrizzlyHttpContainer) {
-                    return ((SpringGrizzlyHttpContainer) httpHandler).getSpringApplicationContext();
+                    return (SpringGrizzlyHttpContainer) httpHandler;
                 }
             }
             throw new IllegalStateException("No http handler found that exposes a spring application context");
         }
 
         @Override
-        public void start() {
-            if (server.isStarted()) {
+        public StopPolicy getStopPolicy() {
+            return stopPolicy;
+        }
+
+        @Override
+        public int getInFlightRequests() {
+            return getHttpContainer().getInFlightRequests();
+        }
+
+        @Override
+        public synchronized void pause() {
+            if (server.isStarted() && !paused) {
+                LOGGER.log(Level.FINE, "Pausing GrizzlyTestContainer...");
+                awaitInFlightRequests();
+                awaitPendingWrites();
+                server.getListener("grizzly").pause();
+                paused = true;
+            }
+        }
+
+        @Override
+        public synchronized void resume() {
+            if (paused) {
+                LOGGER.log(Level.FINE, "Resuming GrizzlyTestContainer...");
+                server.getListener("grizzly").resume();
+                paused = false;
+            }
+        }
+
+        private void awaitInFlightRequests() {
+            final long timeout = stopPolicy.getDrainTimeout(TimeUnit.MILLISECONDS);
+            try {
+                if (!getHttpContainer().awaitInFlightRequests(timeout, TimeUnit.MILLISECONDS)) {
+                    LOGGER.log(Level.WARNING, getInFlightRequests() + " requests still in flight after waiting "
+                            + timeout + " ms.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void awaitPendingWrites() {
+            final long timeout = stopPolicy.getDrainTimeout(TimeUnit.MILLISECONDS);
+            try {
+                if (!getHttpContainer().awaitPendingWrites(timeout, TimeUnit.MILLISECONDS)) {
+                    LOGGER.log(Level.WARNING, "Responses still being written after waiting " + timeout + " ms.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void start() {
+            if (paused) {
+                resume();
+            } else if (server.isStarted()) {
                 LOGGER.log(Level.WARNING, "Ignoring start request - GrizzlyTestContainer is already started.");
 
             } else {
@@ -70,7 +199,7 @@ public class SpringGrizzlyTestContainerFactory implements SpringTestContainerFac
                 try {
                     server.start();
 
-                    if (baseUri.getPort() == 0) {
+                    if (ephemeralPort) {
                         baseUri = UriBuilder.fromUri(baseUri)
                                 .port(server.getListener("grizzly").getPort())
                                 .build();
@@ -83,10 +212,24 @@ public class SpringGrizzlyTestContainerFactory implements SpringTestContainerFac
         }
 
         @Override
-        public void stop() {
+        public synchronized void stop() {
             if (server.isStarted()) {
                 LOGGER.log(Level.FINE, "Stopping GrizzlyTestContainer...");
+                if (stopPolicy.getMode() != StopPolicy.Mode.NOW && !paused) {
+                    // stop accepting connections and reading new requests, then drain the in-flight requests;
+                    // Grizzly's graceful shutdown would answer suspended requests with 503. A paused listener keeps
+                    // its port bound, so the port is closed first, the selector has to run to close it.
+                    final NetworkListener listener = server.getListener("grizzly");
+                    listener.getTransport().unbindAll();
+                    listener.pause();
+                    awaitInFlightRequests();
+                    // the paused selectors do not write the responses Grizzly still queued for the drained requests
+                    listener.resume();
+                    awaitPendingWrites();
+                }
+                sharedClient.close();
                 this.server.shutdownNow();
+                paused = false;
             } else {
                 LOGGER.log(Level.WARNING, "Ignoring stop request - GrizzlyTestContainer is already stopped.");
             }
@@ -95,6 +238,8 @@ public class SpringGrizzlyTestContainerFactory implements SpringTestContainerFac
 
     @Override
     public SpringTestContainer create(final URI baseUri, final DeploymentContext context) {
-        return new SpringGrizzlyTestContainer(baseUri, context);
+        final GrizzlyTransportConfig applicationTransportConfig = GrizzlyTransportConfig.get(context.getResourceConfig());
+        return new SpringGrizzlyTestContainer(baseUri, context,
+                applicationTransportConfig == null ? transportConfig : applicationTransportConfig);
     }
 }
\ No newline at end of file
@@ -6,6 +6,9 @@ import org.springframework.context.ApplicationContext;
 /**
  * Hylke Stapersma (codecentric nl)
  * hylke.stapersma@codecentric.nl
+ *
+ * The optional features of the framework are provided by containers that implement
+ * {@link ExtendedSpringTestContainer} or {@link PausableTestContainer} as well.
  */
 public interface SpringTestContainer extends TestContainer {
     public ApplicationContext getApplicationContext();
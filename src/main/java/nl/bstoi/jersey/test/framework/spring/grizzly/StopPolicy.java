@@ -0,0 +1,125 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import javax.ws.rs.core.Configuration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a Grizzly test container stops: immediately, after draining the in-flight requests, or by pausing the listener
+ * so a reused or pooled container can be resumed for the next test without binding the port and starting the
+ * transport threads again.
+ */
+public final class StopPolicy {
+
+    /**
+     * Name of the configuration property holding the stop policy of an application.
+     */
+    public static final String PROPERTY = StopPolicy.class.getName();
+
+    /**
+     * Stop modes.
+     */
+    public enum Mode {
+
+        /**
+         * Shut the server down immediately, in-flight requests are aborted.
+         */
+        NOW,
+
+        /**
+         * Stop accepting connections and wait for the in-flight requests to finish, at most the drain timeout, before
+         * shutting the server down.
+         */
+        GRACEFUL,
+
+        /**
+         * Between tests, wait for the in-flight requests to finish and pause the listener; the port stays bound and
+         * the transport threads keep running. A reused or pooled container is resumed when the next test starts it,
+         * when the container is really stopped it is shut down as with {@link #GRACEFUL}.
+         */
+        PAUSE
+    }
+
+    private static final StopPolicy NOW = new StopPolicy(Mode.NOW, 0);
+
+    private final Mode mode;
+    private final long drainTimeoutNanos;
+
+    private StopPolicy(final Mode mode, final long drainTimeoutNanos) {
+        this.mode = mode;
+        this.drainTimeoutNanos = drainTimeoutNanos;
+    }
+
+    /**
+     * @return policy shutting the server down immediately, the default.
+     */
+    public static StopPolicy now() {
+        return NOW;
+    }
+
+    /**
+     * @param drainTimeout maximum time to wait for in-flight requests.
+     * @param unit         time unit of the timeout.
+     * @return policy draining the in-flight requests before the server is shut down.
+     */
+    public static StopPolicy graceful(final long drainTimeout, final TimeUnit unit) {
+        return of(Mode.GRACEFUL, drainTimeout, unit);
+    }
+
+    /**
+     * @param drainTimeout maximum time to wait for in-flight requests.
+     * @param unit         time unit of the timeout.
+     * @return policy pausing the listener of a reused or pooled container between tests.
+     */
+    public static StopPolicy pause(final long drainTimeout, final TimeUnit unit) {
+        return of(Mode.PAUSE, drainTimeout, unit);
+    }
+
+    /**
+     * @param mode         stop mode.
+     * @param drainTimeout maximum time to wait for in-flight requests, ignored by {@link Mode#NOW}.
+     * @param unit         time unit of the timeout.
+     * @return stop policy.
+     */
+    public static StopPolicy of(final Mode mode, final long drainTimeout, final TimeUnit unit) {
+        Preconditions.checkNotNull(mode, "mode");
+        Preconditions.checkArgument(drainTimeout >= 0, "drainTimeout must not be negative: %s", drainTimeout);
+        return mode == Mode.NOW ? NOW : new StopPolicy(mode, unit.toNanos(drainTimeout));
+    }
+
+    /**
+     * Get the stop policy of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return stop policy, {@link #now()} if none is set.
+     */
+    public static StopPolicy get(final Configuration configuration) {
+        final Object policy = configuration.getProperty(PROPERTY);
+        return policy instanceof StopPolicy ? (StopPolicy) policy : NOW;
+    }
+
+    /**
+     * @return stop mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return maximum time to wait for in-flight requests.
+     */
+    public long getDrainTimeout(final TimeUnit unit) {
+        return unit.convert(drainTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("mode", mode)
+                .add("drainTimeoutMillis", getDrainTimeout(TimeUnit.MILLISECONDS))
+                .toString();
+    }
+}
@@ -0,0 +1,61 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Writer interceptors telling the {@link FileTransferWriter} whether the entity stream of the container reaches the
+ * writer as is, or is wrapped by another writer interceptor, e.g. the {@code GZipEncoder}, in which case the entity
+ * has to be written to the stream.
+ */
+final class EntityStreamInterceptors {
+
+    /**
+     * Name of the request property that is {@link Boolean#TRUE} while the entity is written to the unwrapped entity
+     * stream of the container.
+     */
+    static final String UNWRAPPED = EntityStreamInterceptors.class.getName() + ".unwrapped";
+
+    private static final String ENTITY_STREAM = EntityStreamInterceptors.class.getName() + ".entityStream";
+
+    /**
+     * Prevents instantiation.
+     */
+    private EntityStreamInterceptors() {
+    }
+
+    /**
+     * Outermost writer interceptor, records the entity stream before other interceptors can wrap it.
+     */
+    static final class Outermost implements WriterInterceptor {
+
+        @Override
+        public void aroundWriteTo(final WriterInterceptorContext context) throws IOException, WebApplicationException {
+            context.setProperty(ENTITY_STREAM, context.getOutputStream());
+            try {
+                context.proceed();
+            } finally {
+                context.removeProperty(ENTITY_STREAM);
+            }
+        }
+    }
+
+    /**
+     * Innermost writer interceptor, compares the entity stream handed to the writer with the recorded one.
+     */
+    static final class Innermost implements WriterInterceptor {
+
+        @Override
+        public void aroundWriteTo(final WriterInterceptorContext context) throws IOException, WebApplicationException {
+            final Object entityStream = context.getProperty(ENTITY_STREAM);
+            context.setProperty(UNWRAPPED, entityStream != null && entityStream == context.getOutputStream());
+            try {
+                context.proceed();
+            } finally {
+                context.removeProperty(UNWRAPPED);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns {@link File} and {@link Path} entities of successful responses into {@link FileRegion}s, so the
+ * {@link FileTransferWriter} can send them with a file transfer, and answers single byte range requests
+ * ({@code Range: bytes=first-last}, {@code bytes=first-} or {@code bytes=-suffix}) on them with
+ * {@code 206 Partial Content} and the requested part of the file. A range beyond the end of the file is answered with
+ * {@code 416 Requested Range Not Satisfiable}. Multiple ranges, invalid ranges and conditional ranges
+ * ({@code If-Range}) get the complete file, which is always a valid answer.
+ */
+public final class FileRangeFilter implements ContainerResponseFilter {
+
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String RANGE = "Range";
+    private static final String IF_RANGE = "If-Range";
+    private static final String BYTES = "bytes";
+
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        final FileRegion region = FileRegion.of(responseContext.getEntity());
+        if (region == null) {
+            return;
+        }
+        responseContext.getHeaders().putSingle(ACCEPT_RANGES, BYTES);
+
+        final String range = requestContext.getHeaderString(RANGE);
+        if (range == null || !HttpMethod.GET.equals(requestContext.getMethod())
+                || requestContext.getHeaderString(IF_RANGE) != null) {
+            setEntity(responseContext, region);
+            return;
+        }
+        final Matcher matcher = BYTE_RANGE.matcher(range.trim());
+        if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+            // multiple or invalid ranges, ignored
+            setEntity(responseContext, region);
+            return;
+        }
+        final long length = region.getLength();
+        long first;
+        long last;
+        try {
+            if (matcher.group(1).isEmpty()) {
+                final long suffix = Long.parseLong(matcher.group(2));
+                first = suffix == 0 ? length : Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(matcher.group(1));
+                last = matcher.group(2).isEmpty() ? length - 1 : Long.parseLong(matcher.group(2));
+            }
+        } catch (NumberFormatException e) {
+            // too large to be a valid range, ignored
+            first = 0;
+            last = length - 1;
+        }
+
+        if (first >= length) {
+            responseContext.setStatus(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode());
+            responseContext.getHeaders().putSingle(CONTENT_RANGE, BYTES + " */" + length);
+            responseContext.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+            responseContext.setEntity(null);
+        } else if (last < first || first == 0 && last >= length - 1) {
+            // invalid range ignored, or the complete file requested
+            setEntity(responseContext, region);
+        } else {
+            last = Math.min(last, length - 1);
+            responseContext.setStatus(Response.Status.PARTIAL_CONTENT.getStatusCode());
+            responseContext.getHeaders().putSingle(CONTENT_RANGE, BYTES + " " + first + "-" + last + "/" + length);
+            setEntity(responseContext, region.slice(first, last - first + 1));
+        }
+    }
+
+    private static void setEntity(final ContainerResponseContext responseContext, final FileRegion region) {
+        if (responseContext.getEntity() != region) {
+            responseContext.setEntity(region, responseContext.getEntityAnnotations(), responseContext.getMediaType());
+        }
+    }
+}
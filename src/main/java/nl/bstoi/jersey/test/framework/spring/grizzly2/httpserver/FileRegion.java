@@ -0,0 +1,136 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+/**
+ * Part of a file sent as response entity, e.g. the requested range of a range request. The Grizzly test container
+ * sends file regions with a zero-copy file transfer, see {@link FileTransferFeature}.
+ */
+public final class FileRegion {
+
+    private final File file;
+    private final long offset;
+    private final long length;
+
+    /**
+     * @param file   file.
+     * @param offset position of the first byte of the region.
+     * @param length number of bytes of the region.
+     */
+    public FileRegion(final File file, final long offset, final long length) {
+        Preconditions.checkNotNull(file, "file");
+        Preconditions.checkArgument(offset >= 0, "offset must not be negative: %s", offset);
+        Preconditions.checkArgument(length >= 0, "length must not be negative: %s", length);
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Get the file region of a response entity.
+     *
+     * @param entity response entity.
+     * @return the complete file of a {@link File} or a {@link Path} on the default file system, the entity itself if
+     * it is a file region, {@code null} for other entities.
+     */
+    public static FileRegion of(final Object entity) {
+        if (entity instanceof FileRegion) {
+            return (FileRegion) entity;
+        } else if (entity instanceof File) {
+            final File file = (File) entity;
+            return new FileRegion(file, 0, file.length());
+        } else if (entity instanceof Path && ((Path) entity).getFileSystem() == FileSystems.getDefault()) {
+            return of(((Path) entity).toFile());
+        }
+        return null;
+    }
+
+    /**
+     * @param first position of the first byte, relative to this region.
+     * @param count number of bytes.
+     * @return part of this region.
+     */
+    public FileRegion slice(final long first, final long count) {
+        Preconditions.checkArgument(first >= 0 && count >= 0 && first + count <= length,
+                "Slice [%s, %s] is not within the region of %s bytes", first, count, length);
+        return new FileRegion(file, offset + first, count);
+    }
+
+    /**
+     * @return file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return position of the first byte of the region.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return number of bytes of the region.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Copy the region to a stream, when it cannot be sent with a file transfer.
+     *
+     * @param out stream to copy the region to.
+     * @throws IOException if reading the file or writing the stream fails.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            transfer(in.getChannel(), offset, length, Channels.newChannel(out));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Copy part of a file channel to a channel.
+     *
+     * @param channel file channel.
+     * @param offset  position of the first byte.
+     * @param length  number of bytes.
+     * @param target  channel to copy to.
+     * @throws IOException if reading the file or writing the channel fails.
+     */
+    static void transfer(final FileChannel channel, final long offset, final long length,
+                         final WritableByteChannel target) throws IOException {
+        long position = offset;
+        final long end = offset + length;
+        while (position < end) {
+            final long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0 && position >= channel.size()) {
+                throw new IOException("File truncated while it is sent: " + position + " of " + end + " bytes");
+            }
+            position += transferred;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("file", file)
+                .add("offset", offset)
+                .add("length", length)
+                .toString();
+    }
+}
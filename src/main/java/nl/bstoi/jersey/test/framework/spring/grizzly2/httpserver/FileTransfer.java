@@ -0,0 +1,17 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+/**
+ * Response writer of a container that can send a file region directly from the file system to the connection,
+ * without copying it through the entity stream.
+ */
+interface FileTransfer {
+
+    /**
+     * Send a file region as response entity once the status and headers are committed.
+     *
+     * @param region file region to send.
+     * @return {@code true} if the container sends the region, nothing must be written to the entity stream,
+     * {@code false} if the region must be written to the entity stream.
+     */
+    boolean transfer(FileRegion region);
+}
@@ -0,0 +1,34 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+
+/**
+ * Sends {@link java.io.File}, {@link java.nio.file.Path} and {@link FileRegion} response entities with a zero-copy
+ * Grizzly file transfer ({@code sendfile}) instead of copying them through the entity stream, and answers byte range
+ * requests on them. On containers without file transfer support, e.g. the in-memory container, or over HTTPS the files
+ * are copied as usual.
+ * <pre>
+ * resourceConfig.register(FileTransferFeature.class);
+ * </pre>
+ */
+public final class FileTransferFeature implements Feature {
+
+    @Override
+    public boolean configure(final FeatureContext context) {
+        context.register(FileTransferWriter.class);
+        context.register(new EntityStreamInterceptors.Outermost(), Integer.MIN_VALUE);
+        context.register(new EntityStreamInterceptors.Innermost(), Integer.MAX_VALUE);
+        context.register(FileRangeFilter.class);
+        return true;
+    }
+
+    /**
+     * @param configuration runtime configuration of an application.
+     * @return {@code true} if file transfer is enabled for the application.
+     */
+    static boolean isEnabled(final Configuration configuration) {
+        return configuration.isEnabled(FileTransferFeature.class);
+    }
+}
@@ -0,0 +1,91 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.spi.ContainerResponseWriter;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes {@link FileRegion}, {@link Path} and {@link FileChannel} entities, {@link File} entities are turned into file
+ * regions by the {@link FileRangeFilter}. When the response writer of the container supports it, as the Grizzly test
+ * container does for plain HTTP, the file is handed to the container and sent with a zero-copy file transfer after the
+ * status and headers. Otherwise, or when a writer interceptor or a content encoding has to process the entity, the
+ * file is copied to the entity stream. File channels are always copied, from their current position, and closed
+ * afterwards.
+ */
+@Singleton
+@Produces({MediaType.APPLICATION_OCTET_STREAM, MediaType.WILDCARD})
+public final class FileTransferWriter implements MessageBodyWriter<Object> {
+
+    @Inject
+    private Provider<ContainerRequest> requestProvider;
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+                               final MediaType mediaType) {
+        return FileRegion.class == type || Path.class.isAssignableFrom(type)
+                || FileChannel.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final Object entity, final Class<?> type, final Type genericType,
+                        final Annotation[] annotations, final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Object entity, final Class<?> type, final Type genericType,
+                        final Annotation[] annotations, final MediaType mediaType,
+                        final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        if (entity instanceof FileChannel) {
+            final FileChannel channel = (FileChannel) entity;
+            try {
+                final long position = channel.position();
+                FileRegion.transfer(channel, position, channel.size() - position, Channels.newChannel(entityStream));
+            } finally {
+                channel.close();
+            }
+            return;
+        }
+        final FileRegion region = FileRegion.of(entity);
+        if (region == null) {
+            // a path on another file system, e.g. within a zip file
+            Files.copy((Path) entity, entityStream);
+        } else if (!transfer(region, httpHeaders)) {
+            region.writeTo(entityStream);
+        }
+    }
+
+    /**
+     * Hand the region to the container, unless the entity has to pass the writer interceptors: a file transfer bypasses
+     * the entity stream, so a stream wrapped by an interceptor, e.g. the {@code GZipEncoder}, or a content encoding set
+     * by a filter would be ignored.
+     */
+    private boolean transfer(final FileRegion region, final MultivaluedMap<String, Object> httpHeaders) {
+        final ContainerRequest request = requestProvider.get();
+        if (!Boolean.TRUE.equals(request.getProperty(EntityStreamInterceptors.UNWRAPPED))
+                || httpHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        final ContainerResponseWriter responseWriter = request.getResponseWriter();
+        return responseWriter instanceof FileTransfer && ((FileTransfer) responseWriter).transfer(region);
+    }
+}
@@ -0,0 +1,59 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.grizzly.IOStrategy;
+import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.strategies.SimpleDynamicNIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+
+/**
+ * The Grizzly IO strategies, deciding which thread handles a request read by a selector thread.
+ */
+public enum GrizzlyIOStrategy {
+
+    /**
+     * Requests are handed to the worker thread pool, the Grizzly default. Suits resources that block.
+     */
+    WORKER_THREAD {
+        @Override
+        IOStrategy getIOStrategy() {
+            return WorkerThreadIOStrategy.getInstance();
+        }
+    },
+
+    /**
+     * Requests are handled on the selector thread that read them, no worker thread pool is used. Suits small
+     * resources that never block, a blocking resource stalls all connections of the selector thread.
+     */
+    SAME_THREAD {
+        @Override
+        IOStrategy getIOStrategy() {
+            return SameThreadIOStrategy.getInstance();
+        }
+    },
+
+    /**
+     * Switches between the same thread and worker thread strategies depending on the load of the selector thread.
+     */
+    DYNAMIC {
+        @Override
+        IOStrategy getIOStrategy() {
+            return SimpleDynamicNIOStrategy.getInstance();
+        }
+    },
+
+    /**
+     * The selector thread handles the request itself and hands its selector over to a worker thread.
+     */
+    LEADER_FOLLOWER {
+        @Override
+        IOStrategy getIOStrategy() {
+            return LeaderFollowerNIOStrategy.getInstance();
+        }
+    };
+
+    /**
+     * @return the Grizzly IO strategy.
+     */
+    abstract IOStrategy getIOStrategy();
+}
@@ -0,0 +1,281 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.MoreObjects;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+import javax.ws.rs.core.Configuration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thread topology of the Grizzly transport of a test server: the IO strategy, the number of selector runners and the
+ * size of the worker thread pool. Settings that are not set keep the Grizzly defaults.
+ * <p>
+ * Instead of the worker thread pool, requests can be handled on a new virtual thread per request (Java 21 and later),
+ * so resources that block on JDBC or downstream calls are not limited by the number of worker threads.
+ * </p>
+ * <pre>
+ * GrizzlyTransportConfig.builder()
+ *         .ioStrategy(GrizzlyIOStrategy.WORKER_THREAD)
+ *         .selectorRunners(2)
+ *         .workerPoolSize(16, 64)
+ *         .build();
+ * </pre>
+ */
+public final class GrizzlyTransportConfig {
+
+    /**
+     * Name of the configuration property holding the transport configuration of an application, read by the
+     * {@link nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory}.
+     */
+    public static final String PROPERTY = GrizzlyTransportConfig.class.getName();
+
+    private static final Logger LOGGER = Logger.getLogger(GrizzlyTransportConfig.class.getName());
+
+    private final GrizzlyIOStrategy ioStrategy;
+    private final int selectorRunners;
+    private final int workerCorePoolSize;
+    private final int workerMaxPoolSize;
+    private final int workerQueueLimit;
+    private final boolean virtualThreads;
+
+    private GrizzlyTransportConfig(final Builder builder) {
+        this.ioStrategy = builder.ioStrategy;
+        this.selectorRunners = builder.selectorRunners;
+        this.workerCorePoolSize = builder.workerCorePoolSize;
+        this.workerMaxPoolSize = builder.workerMaxPoolSize;
+        this.workerQueueLimit = builder.workerQueueLimit;
+        this.virtualThreads = builder.virtualThreads;
+    }
+
+    /**
+     * @return new builder of a transport configuration.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the transport configuration of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return transport configuration, {@code null} if the application does not configure the transport.
+     */
+    public static GrizzlyTransportConfig get(final Configuration configuration) {
+        final Object transportConfig = configuration.getProperty(PROPERTY);
+        return transportConfig instanceof GrizzlyTransportConfig ? (GrizzlyTransportConfig) transportConfig : null;
+    }
+
+    /**
+     * @return IO strategy, {@code null} for the Grizzly default.
+     */
+    public GrizzlyIOStrategy getIOStrategy() {
+        return ioStrategy;
+    }
+
+    /**
+     * @return number of selector runners, {@code -1} for the Grizzly default (the number of processors).
+     */
+    public int getSelectorRunners() {
+        return selectorRunners;
+    }
+
+    /**
+     * @return core size of the worker thread pool, {@code -1} for the Grizzly default.
+     */
+    public int getWorkerCorePoolSize() {
+        return workerCorePoolSize;
+    }
+
+    /**
+     * @return maximum size of the worker thread pool, {@code -1} for the Grizzly default.
+     */
+    public int getWorkerMaxPoolSize() {
+        return workerMaxPoolSize;
+    }
+
+    /**
+     * @return maximum number of requests queued for the worker thread pool, {@code -1} for an unbounded queue.
+     */
+    public int getWorkerQueueLimit() {
+        return workerQueueLimit;
+    }
+
+    /**
+     * @return {@code true} if requests are handled on a new virtual thread per request instead of the worker thread
+     * pool.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return {@code true} if none of the settings is set.
+     */
+    public boolean isDefault() {
+        return ioStrategy == null && selectorRunners == -1 && workerCorePoolSize == -1 && workerMaxPoolSize == -1
+                && workerQueueLimit == -1 && !virtualThreads;
+    }
+
+    /**
+     * Apply the configuration to a transport that is not started yet.
+     *
+     * @param transport Grizzly transport of a network listener.
+     */
+    public void configure(final TCPNIOTransport transport) {
+        if (ioStrategy != null) {
+            transport.setIOStrategy(ioStrategy.getIOStrategy());
+        }
+        if (selectorRunners != -1) {
+            transport.setSelectorRunnersCount(selectorRunners);
+        }
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            // the transport does not shut down an executor it did not create, idle virtual threads cost nothing
+            transport.setWorkerThreadPoolConfig(null);
+            transport.setWorkerThreadPool(VirtualThreads.newVirtualThreadPerTaskExecutor());
+            return;
+        } else if (virtualThreads) {
+            LOGGER.log(Level.WARNING, "Virtual threads require Java 21 or later, running "
+                    + System.getProperty("java.version") + ". Reverting to the worker thread pool.");
+        }
+        if (ioStrategy == GrizzlyIOStrategy.SAME_THREAD) {
+            // without a worker pool config the transport does not start a worker thread pool
+            transport.setWorkerThreadPoolConfig(null);
+        } else if (workerCorePoolSize != -1 || workerMaxPoolSize != -1 || workerQueueLimit != -1) {
+            final ThreadPoolConfig current = transport.getWorkerThreadPoolConfig();
+            final ThreadPoolConfig workerPoolConfig = current == null
+                    ? ThreadPoolConfig.defaultConfig().copy().setPoolName("Grizzly-worker") : current.copy();
+            if (workerMaxPoolSize != -1) {
+                workerPoolConfig.setMaxPoolSize(workerMaxPoolSize);
+            }
+            if (workerCorePoolSize != -1) {
+                workerPoolConfig.setCorePoolSize(workerCorePoolSize);
+            }
+            if (workerQueueLimit != -1) {
+                workerPoolConfig.setQueueLimit(workerQueueLimit);
+            }
+            transport.setWorkerThreadPoolConfig(workerPoolConfig);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ioStrategy", ioStrategy)
+                .add("selectorRunners", selectorRunners)
+                .add("workerCorePoolSize", workerCorePoolSize)
+                .add("workerMaxPoolSize", workerMaxPoolSize)
+                .add("workerQueueLimit", workerQueueLimit)
+                .add("virtualThreads", virtualThreads)
+                .toString();
+    }
+
+    /**
+     * Builder of a {@link GrizzlyTransportConfig}.
+     */
+    public static final class Builder {
+
+        private GrizzlyIOStrategy ioStrategy;
+        private int selectorRunners = -1;
+        private int workerCorePoolSize = -1;
+        private int workerMaxPoolSize = -1;
+        private int workerQueueLimit = -1;
+        private boolean virtualThreads;
+
+        private Builder() {
+        }
+
+        /**
+         * @param ioStrategy IO strategy of the transport.
+         * @return this builder.
+         */
+        public Builder ioStrategy(final GrizzlyIOStrategy ioStrategy) {
+            this.ioStrategy = ioStrategy;
+            return this;
+        }
+
+        /**
+         * @param selectorRunners number of selector threads.
+         * @return this builder.
+         */
+        public Builder selectorRunners(final int selectorRunners) {
+            this.selectorRunners = positive("selectorRunners", selectorRunners);
+            return this;
+        }
+
+        /**
+         * @param corePoolSize number of worker threads kept alive when idle.
+         * @param maxPoolSize  maximum number of worker threads.
+         * @return this builder.
+         */
+        public Builder workerPoolSize(final int corePoolSize, final int maxPoolSize) {
+            return workerCorePoolSize(corePoolSize).workerMaxPoolSize(maxPoolSize);
+        }
+
+        /**
+         * @param corePoolSize number of worker threads kept alive when idle.
+         * @return this builder.
+         */
+        public Builder workerCorePoolSize(final int corePoolSize) {
+            if (corePoolSize < 0) {
+                throw new IllegalArgumentException("corePoolSize must not be negative: " + corePoolSize);
+            }
+            this.workerCorePoolSize = corePoolSize;
+            return this;
+        }
+
+        /**
+         * @param maxPoolSize maximum number of worker threads.
+         * @return this builder.
+         */
+        public Builder workerMaxPoolSize(final int maxPoolSize) {
+            this.workerMaxPoolSize = positive("maxPoolSize", maxPoolSize);
+            return this;
+        }
+
+        /**
+         * @param queueLimit maximum number of requests queued for the worker threads, requests beyond the limit are
+         *                   rejected.
+         * @return this builder.
+         */
+        public Builder workerQueueLimit(final int queueLimit) {
+            this.workerQueueLimit = positive("queueLimit", queueLimit);
+            return this;
+        }
+
+        /**
+         * Handle requests on a new virtual thread per request instead of the worker thread pool, the worker pool
+         * settings are not used. Requires Java 21 or later, on older versions the worker thread pool is used.
+         *
+         * @param virtualThreads {@code true} to use virtual threads.
+         * @return this builder.
+         */
+        public Builder virtualThreads(final boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @return the transport configuration.
+         */
+        public GrizzlyTransportConfig build() {
+            if (workerCorePoolSize != -1 && workerMaxPoolSize != -1 && workerCorePoolSize > workerMaxPoolSize) {
+                throw new IllegalArgumentException("corePoolSize " + workerCorePoolSize
+                        + " must not be larger than maxPoolSize " + workerMaxPoolSize);
+            }
+            if (virtualThreads && ioStrategy != null && ioStrategy != GrizzlyIOStrategy.WORKER_THREAD) {
+                throw new IllegalArgumentException("Virtual threads require the " + GrizzlyIOStrategy.WORKER_THREAD
+                        + " IO strategy, not " + ioStrategy);
+            }
+            return new GrizzlyTransportConfig(this);
+        }
+
+        private static int positive(final String name, final int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
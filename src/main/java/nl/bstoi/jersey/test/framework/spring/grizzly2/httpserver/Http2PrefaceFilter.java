@@ -0,0 +1,65 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.server.AddOn;
+import org.glassfish.grizzly.http.server.NetworkListener;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Holds back the HTTP/2 connection preface of an h2c client until the first frame following it has arrived. Grizzly
+ * 2.3 answers {@code 400 Bad Request} over HTTP/1.1 when the preface is read on its own, which happens whenever a
+ * client flushes the preface before its settings, as OkHttp does. Reads of other connections are passed on as is.
+ */
+final class Http2PrefaceFilter extends BaseFilter {
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(Charset.forName("US-ASCII"));
+
+    private static final Attribute<Boolean> CHECKED = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            Http2PrefaceFilter.class.getName() + ".checked");
+
+    /**
+     * Add the filter directly after the transport filter of a plain listener, a secure listener negotiates HTTP/2
+     * with ALPN.
+     */
+    static final class Installer implements AddOn {
+
+        @Override
+        public void setup(final NetworkListener networkListener, final FilterChainBuilder builder) {
+            if (!networkListener.isSecure()) {
+                builder.add(builder.indexOfType(TransportFilter.class) + 1, new Http2PrefaceFilter());
+            }
+        }
+    }
+
+    @Override
+    public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+        final Connection<?> connection = ctx.getConnection();
+        if (CHECKED.isSet(connection)) {
+            return ctx.getInvokeAction();
+        }
+        final Buffer input = ctx.getMessage();
+        final int length = Math.min(input.remaining(), PREFACE.length);
+        for (int i = 0; i < length; i++) {
+            if (input.get(input.position() + i) != PREFACE[i]) {
+                CHECKED.set(connection, Boolean.TRUE);
+                return ctx.getInvokeAction();
+            }
+        }
+        if (input.remaining() <= PREFACE.length) {
+            // the client sends its settings right after the preface, Grizzly keeps the input for the next read
+            return ctx.getStopAction(input);
+        }
+        CHECKED.set(connection, Boolean.TRUE);
+        return ctx.getInvokeAction();
+    }
+}
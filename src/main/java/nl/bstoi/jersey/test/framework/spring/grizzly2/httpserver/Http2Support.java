@@ -0,0 +1,86 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import javax.ws.rs.core.Configuration;
+
+/**
+ * HTTP/2 support of the Grizzly test server. When enabled for an application the Grizzly HTTP/2 filter is added to the
+ * listener: a plain listener speaks HTTP/2 over cleartext (h2c), a secure listener negotiates HTTP/2 with ALPN. Clients
+ * that do not ask for HTTP/2 are still served with HTTP/1.1.
+ * <p>
+ * HTTP/2 needs {@code org.glassfish.grizzly:grizzly-http2} and {@code org.glassfish.grizzly:grizzly-npn-api} on the
+ * class path, grizzly-http2 only declares the latter as provided. ALPN on Java 8 additionally needs the Grizzly ALPN
+ * bootstrap on the boot class path. Grizzly sendfile is not used for HTTP/2 connections.
+ * </p>
+ */
+public final class Http2Support {
+
+    /**
+     * Name of the configuration property enabling HTTP/2 for an application.
+     */
+    public static final String PROPERTY = Http2Support.class.getName();
+
+    private static final String ADD_ON_CLASS_NAME = "org.glassfish.grizzly.http2.Http2AddOn";
+    // loaded by the add-on even for h2c
+    private static final String NEGOTIATOR_CLASS_NAME = "org.glassfish.grizzly.npn.AlpnServerNegotiator";
+
+    /**
+     * Enable HTTP/2 for an application.
+     *
+     * @param configuration configuration of the application.
+     */
+    public static void enable(final ResourceConfig configuration) {
+        configuration.property(PROPERTY, Boolean.TRUE);
+    }
+
+    /**
+     * @param configuration configuration of an application.
+     * @return {@code true} if HTTP/2 is enabled for the application.
+     */
+    public static boolean isEnabled(final Configuration configuration) {
+        final Object enabled = configuration.getProperty(PROPERTY);
+        return enabled != null && Boolean.parseBoolean(enabled.toString());
+    }
+
+    /**
+     * @return {@code true} if the Grizzly HTTP/2 module and the ALPN negotiator API it needs are on the class path.
+     */
+    public static boolean isAvailable() {
+        return isLoadable(ADD_ON_CLASS_NAME) && isLoadable(NEGOTIATOR_CLASS_NAME);
+    }
+
+    private static boolean isLoadable(final String className) {
+        try {
+            Class.forName(className, false, Http2Support.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add the HTTP/2 filter to a listener that is not started yet, together with the {@link Http2PrefaceFilter} working
+     * around Grizzly's handling of an h2c preface that arrives on its own.
+     *
+     * @param listener Grizzly listener.
+     * @throws IllegalStateException if the Grizzly HTTP/2 module is not on the class path.
+     */
+    static void configure(final NetworkListener listener) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("HTTP/2 is enabled, but " + ADD_ON_CLASS_NAME + " or "
+                    + NEGOTIATOR_CLASS_NAME + " is not on the class path. Add org.glassfish.grizzly:grizzly-http2 and "
+                    + "org.glassfish.grizzly:grizzly-npn-api to the test dependencies.");
+        }
+        listener.registerAddOn(new Http2PrefaceFilter.Installer());
+        listener.registerAddOn(new Http2AddOn());
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private Http2Support() {
+    }
+}
@@ -0,0 +1,96 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import javax.ws.rs.core.Configuration;
+
+/**
+ * How the Grizzly test container reads request entities. By default a request is handed to Jersey as soon as its
+ * headers are received and the resource reads the entity from a blocking stream, which holds a worker thread for as
+ * long as the client takes to upload it. When request buffering is enabled the entity is read with non-blocking reads
+ * first, without holding a worker thread, and the request is handed to Jersey once the complete entity is received.
+ * Entities up to the memory threshold are kept on the heap, larger entities are spilled to a temporary file that is
+ * deleted when the response is finished.
+ * <pre>
+ * RequestBuffering.buffered(1024 * 1024);
+ * </pre>
+ */
+public final class RequestBuffering {
+
+    /**
+     * Name of the configuration property holding the request buffering of an application.
+     */
+    public static final String PROPERTY = RequestBuffering.class.getName();
+
+    private static final RequestBuffering DEFAULT = new RequestBuffering(false, -1);
+
+    private final boolean enabled;
+    private final int memoryThreshold;
+
+    private RequestBuffering(final boolean enabled, final int memoryThreshold) {
+        this.enabled = enabled;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * @return no buffering, the resource reads the entity while it is received.
+     */
+    public static RequestBuffering defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param memoryThreshold number of entity bytes kept on the heap, larger entities are spilled to a temporary file.
+     * @return buffering of complete entities before the request is handed to Jersey.
+     */
+    public static RequestBuffering buffered(final int memoryThreshold) {
+        Preconditions.checkArgument(memoryThreshold >= 0, "memoryThreshold must not be negative: %s",
+                memoryThreshold);
+        return new RequestBuffering(true, memoryThreshold);
+    }
+
+    /**
+     * Set the request buffering of an application.
+     *
+     * @param configuration configuration of the application.
+     * @param buffering     request buffering.
+     */
+    public static void register(final ResourceConfig configuration, final RequestBuffering buffering) {
+        configuration.property(PROPERTY, buffering);
+    }
+
+    /**
+     * Get the request buffering of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return request buffering, {@link #defaults()} if none is set.
+     */
+    public static RequestBuffering get(final Configuration configuration) {
+        final Object buffering = configuration.getProperty(PROPERTY);
+        return buffering instanceof RequestBuffering ? (RequestBuffering) buffering : DEFAULT;
+    }
+
+    /**
+     * @return {@code true} if entities are received before the request is handed to Jersey.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of entity bytes kept on the heap, {@code -1} if buffering is not enabled.
+     */
+    public int getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("enabled", enabled)
+                .add("memoryThreshold", memoryThreshold)
+                .toString();
+    }
+}
@@ -0,0 +1,203 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.ReadHandler;
+import org.glassfish.grizzly.http.io.NIOInputStream;
+import org.glassfish.grizzly.http.server.AfterServiceListener;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives the entity of a request with non-blocking reads before the request is handed to Jersey, see
+ * {@link RequestBuffering}. Grizzly notifies the reader when entity bytes arrive, no thread waits for a slow client in
+ * the meantime. Once the entity is complete it is passed to {@link #entityRead(InputStream)} on the thread Grizzly
+ * notified the reader on, a worker thread unless the container uses the same thread IO strategy. The response is
+ * expected to be suspended while the entity is read.
+ */
+abstract class RequestEntityReader implements ReadHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(RequestEntityReader.class.getName());
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final Request request;
+    private final Response response;
+    private final NIOInputStream inputStream;
+    private final int memoryThreshold;
+
+    private byte[] memory;
+    private int memoryLength;
+    private File file;
+    private FileChannel fileChannel;
+    private InputStream fileStream;
+
+    /**
+     * @param request         Grizzly request.
+     * @param response        suspended Grizzly response.
+     * @param memoryThreshold number of entity bytes kept on the heap, larger entities are spilled to a temporary file.
+     */
+    RequestEntityReader(final Request request, final Response response, final int memoryThreshold) {
+        this.request = request;
+        this.response = response;
+        this.inputStream = request.getNIOInputStream();
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * @param request Grizzly request.
+     * @return {@code true} if the request has an entity that is not received completely yet.
+     */
+    static boolean isPending(final Request request) {
+        final long contentLength = request.getContentLengthLong();
+        if (contentLength > 0) {
+            return request.getNIOInputStream().readyData() < contentLength;
+        }
+        return request.getRequest().isChunked() && !request.getNIOInputStream().isFinished();
+    }
+
+    /**
+     * Start reading the entity, the buffered entity is released when the response is finished.
+     */
+    void start() {
+        request.addAfterServiceListener(new AfterServiceListener() {
+
+            @Override
+            public void onAfterService(final Request request) {
+                release();
+            }
+        });
+        inputStream.notifyAvailable(this);
+    }
+
+    /**
+     * Called once the complete entity is received.
+     *
+     * @param entityStream stream of the received entity.
+     */
+    abstract void entityRead(InputStream entityStream);
+
+    @Override
+    public void onDataAvailable() throws Exception {
+        drain();
+        inputStream.notifyAvailable(this);
+    }
+
+    @Override
+    public void onAllDataRead() throws Exception {
+        drain();
+        entityRead(getEntityStream());
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        LOGGER.log(Level.FINE, "Unable to read the request entity", t);
+        release();
+        if (response.isSuspended()) {
+            if (!response.isCommitted()) {
+                response.setStatus(500, "Request failed.");
+            }
+            response.resume();
+        }
+    }
+
+    private void drain() throws IOException {
+        while (inputStream.isReady()) {
+            final Buffer buffer = inputStream.readBuffer();
+            try {
+                append(buffer);
+            } finally {
+                buffer.tryDispose();
+            }
+        }
+    }
+
+    private void append(final Buffer buffer) throws IOException {
+        final int size = buffer.remaining();
+        if (fileChannel == null && request.getContentLengthLong() <= memoryThreshold
+                && (long) memoryLength + size <= memoryThreshold) {
+            ensureCapacity(memoryLength + size);
+            buffer.get(memory, memoryLength, size);
+            memoryLength += size;
+        } else {
+            if (fileChannel == null) {
+                spill();
+            }
+            write(buffer.toByteBuffer());
+        }
+    }
+
+    private void ensureCapacity(final int required) {
+        if (memory != null && memory.length >= required) {
+            return;
+        }
+        final long contentLength = request.getContentLengthLong();
+        final int capacity;
+        if (contentLength >= required) {
+            // the content length is within the memory threshold
+            capacity = (int) contentLength;
+        } else {
+            final long grown = memory == null ? INITIAL_CAPACITY : memory.length * 2L;
+            capacity = (int) Math.min(memoryThreshold, Math.max(required, grown));
+        }
+        memory = memory == null ? new byte[capacity] : Arrays.copyOf(memory, capacity);
+    }
+
+    private void spill() throws IOException {
+        file = File.createTempFile("request-entity", ".tmp");
+        fileChannel = new RandomAccessFile(file, "rw").getChannel();
+        if (memoryLength > 0) {
+            write(ByteBuffer.wrap(memory, 0, memoryLength));
+        }
+        memory = null;
+        memoryLength = 0;
+    }
+
+    private void write(final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            fileChannel.write(bytes);
+        }
+    }
+
+    private InputStream getEntityStream() throws IOException {
+        if (fileChannel == null) {
+            return memory == null ? new ByteArrayInputStream(new byte[0])
+                    : new ByteArrayInputStream(memory, 0, memoryLength);
+        }
+        fileChannel.close();
+        fileStream = new FileInputStream(file);
+        return fileStream;
+    }
+
+    private synchronized void release() {
+        memory = null;
+        close(fileChannel);
+        close(fileStream);
+        if (file != null && !file.delete() && file.exists()) {
+            LOGGER.log(Level.WARNING, "Unable to delete the request entity file {0}", file);
+        }
+        file = null;
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Unable to close the request entity file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+
+import javax.ws.rs.core.Configuration;
+
+/**
+ * How the Grizzly test container writes response entities. By default Jersey buffers the first
+ * {@link ServerProperties#OUTBOUND_CONTENT_LENGTH_BUFFER} bytes (8 KiB) of an entity, so small responses get a
+ * {@code Content-Length} header, and larger entities are sent with chunked transfer encoding. The threshold can be
+ * changed, or buffering disabled so the status and headers are committed before the first entity byte is written and
+ * every entity is chunked.
+ * <p>
+ * The size of the Grizzly output buffer, the amount of entity bytes collected before they are written to the
+ * connection, can be tuned as well. Settings that are not set keep the Jersey and Grizzly defaults.
+ * </p>
+ * <pre>
+ * ResponseBuffering.streaming().withOutputBufferSize(64 * 1024);
+ * </pre>
+ */
+public final class ResponseBuffering {
+
+    /**
+     * Name of the configuration property holding the response buffering of an application.
+     */
+    public static final String PROPERTY = ResponseBuffering.class.getName();
+
+    private static final ResponseBuffering DEFAULT = new ResponseBuffering(true, -1, -1);
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int outputBufferSize;
+
+    private ResponseBuffering(final boolean enabled, final int threshold, final int outputBufferSize) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.outputBufferSize = outputBufferSize;
+    }
+
+    /**
+     * @return the Jersey and Grizzly defaults.
+     */
+    public static ResponseBuffering defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param threshold number of entity bytes buffered to determine the content length, larger entities are chunked.
+     * @return buffering up to the threshold.
+     */
+    public static ResponseBuffering buffered(final int threshold) {
+        Preconditions.checkArgument(threshold > 0, "threshold must be positive: %s", threshold);
+        return new ResponseBuffering(true, threshold, -1);
+    }
+
+    /**
+     * @return no buffering, every entity is chunked and the headers are sent before the entity is written.
+     */
+    public static ResponseBuffering streaming() {
+        return new ResponseBuffering(false, -1, -1);
+    }
+
+    /**
+     * @param outputBufferSize size of the Grizzly output buffer in bytes.
+     * @return copy of this response buffering with the given Grizzly output buffer size.
+     */
+    public ResponseBuffering withOutputBufferSize(final int outputBufferSize) {
+        Preconditions.checkArgument(outputBufferSize > 0, "outputBufferSize must be positive: %s", outputBufferSize);
+        return new ResponseBuffering(enabled, threshold, outputBufferSize);
+    }
+
+    /**
+     * Set the response buffering of an application, including the Jersey buffer threshold.
+     *
+     * @param configuration configuration of the application.
+     * @param buffering     response buffering.
+     */
+    public static void register(final ResourceConfig configuration, final ResponseBuffering buffering) {
+        configuration.property(PROPERTY, buffering);
+        if (buffering.threshold != -1) {
+            configuration.property(ServerProperties.OUTBOUND_CONTENT_LENGTH_BUFFER, buffering.threshold);
+        }
+    }
+
+    /**
+     * Get the response buffering of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return response buffering, {@link #defaults()} if none is set.
+     */
+    public static ResponseBuffering get(final Configuration configuration) {
+        final Object buffering = configuration.getProperty(PROPERTY);
+        return buffering instanceof ResponseBuffering ? (ResponseBuffering) buffering : DEFAULT;
+    }
+
+    /**
+     * @return {@code true} if Jersey buffers the start of an entity to determine the content length.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return number of entity bytes Jersey buffers, {@code -1} for the Jersey default.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return size of the Grizzly output buffer in bytes, {@code -1} for the Grizzly default.
+     */
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    /**
+     * @return {@code true} if none of the settings is changed.
+     */
+    public boolean isDefault() {
+        return enabled && threshold == -1 && outputBufferSize == -1;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("enabled", enabled)
+                .add("threshold", threshold)
+                .add("outputBufferSize", outputBufferSize)
+                .toString();
+    }
+}
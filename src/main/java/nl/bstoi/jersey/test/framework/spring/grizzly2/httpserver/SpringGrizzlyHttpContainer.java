@@ -1,9 +1,34 @@
 package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
 
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import nl.bstoi.jersey.test.framework.spring.context.RetainedApplicationContext;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecorder;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecording;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestTimeline;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.Closeable;
 import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.ICloseType;
+import org.glassfish.grizzly.WriteHandler;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.Note;
+import org.glassfish.grizzly.http.server.AfterServiceListener;
 import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServerFilter;
+import org.glassfish.grizzly.http.server.HttpServerProbe;
 import org.glassfish.grizzly.http.server.Request;
 import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.hk2.api.ServiceLocator;
 import org.glassfish.hk2.api.TypeLiteral;
@@ -15,7 +40,6 @@ import org.glassfish.jersey.internal.util.collection.Ref;
 import org.glassfish.jersey.process.internal.RequestScoped;
 import org.glassfish.jersey.server.*;
 import org.glassfish.jersey.server.spi.Container;
-import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
 import org.glassfish.jersey.server.spi.ContainerResponseWriter;
 import org.glassfish.jersey.server.spi.RequestScopedInitializer;
 import org.springframework.context.ApplicationContext;
@@ -23,9 +47,11 @@ import org.springframework.context.ApplicationContext;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.net.URI;
@@ -33,8 +59,14 @@ import java.net.URISyntaxException;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,6 +83,11 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
     }).getType();
     private static final Type ResponseTYPE = (new TypeLiteral<Ref<Response>>() {
     }).getType();
+    /**
+     * Grizzly request note holding the timeline started when the request is received.
+     */
+    private static final Note<RequestTimeline> TIMELINE_NOTE = Request.createNote(RequestTimeline.PROPERTY);
+    private static final long PENDING_WRITES_POLL_INTERVAL_MILLIS = 10;
     /**
      * Cached value of configuration property
      * {@link org.glassfish.jersey.server.ServerProperties#RESPONSE_SET_STATUS_OVER_SEND_ERROR}.
@@ -58,6 +95,62 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
      * {@link org.glassfish.grizzly.http.server.Response#sendError}.
      */
     private boolean configSetStatusOverSendError;
+    /**
+     * Cached response buffering of the application.
+     */
+    private volatile ResponseBuffering responseBuffering = ResponseBuffering.defaults();
+    /**
+     * Cached request buffering of the application.
+     */
+    private volatile RequestBuffering requestBuffering = RequestBuffering.defaults();
+    /**
+     * Cached request metrics of the application, {@code null} if request metrics are not enabled.
+     */
+    private volatile RequestMetrics requestMetrics;
+    /**
+     * Buffer the log records of the handled requests are recorded in, {@code null} if log recording is not enabled.
+     */
+    private volatile LogRecordBuffer logRecordBuffer;
+    /**
+     * Number of requests that are received but not completed, including suspended requests.
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    /**
+     * Counters of the requests suspended by asynchronous resources.
+     */
+    private final SuspendMetrics suspendMetrics = new SuspendMetrics();
+    /**
+     * Open connections whose response was still queued for writing when its request completed, see
+     * {@link #awaitPendingWrites(long, TimeUnit)}.
+     */
+    private final Set<Connection<?>> pendingWriteConnections = Sets.newConcurrentHashSet();
+    private final CloseListener<Closeable, ICloseType> pendingWriteConnectionCloseListener =
+            new CloseListener<Closeable, ICloseType>() {
+
+                @Override
+                public void onClosed(final Closeable closeable, final ICloseType type) {
+                    pendingWriteConnections.remove(closeable);
+                }
+            };
+    /**
+     * Counts a request as completed when Grizzly has finished the response.
+     */
+    private final AfterServiceListener inFlightRequestListener = new AfterServiceListener() {
+
+        @Override
+        public void onAfterService(final Request request) {
+            // a large response may still be queued, it is sent by the selector after the request completed
+            final Connection<?> connection = request.getContext().getConnection();
+            if (hasPendingWrites(connection) && pendingWriteConnections.add(connection)) {
+                connection.addCloseListener(pendingWriteConnectionCloseListener);
+            }
+            if (inFlightRequests.decrementAndGet() == 0) {
+                synchronized (inFlightRequests) {
+                    inFlightRequests.notifyAll();
+                }
+            }
+        }
+    };
 
     /**
      * Referencing factory for Grizzly request.
@@ -105,38 +198,193 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
         }
     }
 
-    private static final CompletionHandler<Response> EMPTY_COMPLETION_HANDLER = new CompletionHandler<Response>() {
+    /**
+     * Entity stream of a response whose entity is sent as a file transfer.
+     */
+    private static final OutputStream FILE_TRANSFER_OUTPUT_STREAM = new OutputStream() {
 
         @Override
-        public void cancelled() {
-            // no-op
+        public void write(final int b) throws IOException {
+            throw new IOException("The response entity is sent as a file transfer");
+        }
+    };
+
+    /**
+     * Adapts a Grizzly request to the per-request contracts of Jersey: request properties, security context and the
+     * initialization of the request scope. One instance replaces three separate adapters per request.
+     */
+    private static final class GrizzlyRequestAdapter extends SpringGrizzlyRequestPropertiesDelegate
+            implements SecurityContext, RequestScopedInitializer {
+
+        private final Request request;
+        private final Response response;
+
+        GrizzlyRequestAdapter(final Request request, final Response response) {
+            super(request);
+            this.request = request;
+            this.response = response;
         }
 
         @Override
-        public void failed(Throwable throwable) {
-            // no-op
+        public boolean isUserInRole(String role) {
+            return false;
         }
 
         @Override
-        public void completed(Response result) {
-            // no-op
+        public boolean isSecure() {
+            return request.isSecure();
         }
 
         @Override
-        public void updated(Response result) {
-            // no-op
+        public Principal getUserPrincipal() {
+            return request.getUserPrincipal();
         }
-    };
 
-    private final static class ResponseWriter implements ContainerResponseWriter {
+        @Override
+        public String getAuthenticationScheme() {
+            return request.getAuthType();
+        }
+
+        @Override
+        public void initialize(ServiceLocator locator) {
+            locator.<Ref<Request>>getService(RequestTYPE).set(request);
+            locator.<Ref<Response>>getService(ResponseTYPE).set(response);
+        }
+    }
+
+    /**
+     * Base URI of the requests to one scheme, server name, port and context path. The base URI only changes when the
+     * container is reached through another host name or port, so the last one is kept and reused.
+     */
+    private static final class BaseUri {
+
+        private final String scheme;
+        private final String serverName;
+        private final int serverPort;
+        private final String contextPath;
+        private final URI uri;
+
+        BaseUri(final String scheme, final String serverName, final int serverPort, final String contextPath,
+                final URI uri) {
+            this.scheme = scheme;
+            this.serverName = serverName;
+            this.serverPort = serverPort;
+            this.contextPath = contextPath;
+            this.uri = uri;
+        }
+
+        boolean matches(final String scheme, final String serverName, final int serverPort,
+                        final String contextPath) {
+            return this.serverPort == serverPort
+                    && this.scheme.equals(scheme)
+                    && (this.serverName == null ? serverName == null : this.serverName.equals(serverName))
+                    && (this.contextPath == null ? contextPath == null : this.contextPath.equals(contextPath));
+        }
+    }
+
+    /**
+     * Starts the timeline of a request as soon as Grizzly received it, when request metrics are enabled.
+     */
+    private final class RequestReceivedProbe extends HttpServerProbe.Adapter {
+
+        // Grizzly declares the probe methods with a raw Connection
+        @SuppressWarnings("rawtypes")
+        @Override
+        public void onRequestReceiveEvent(final HttpServerFilter filter, final Connection connection,
+                                          final Request request) {
+            final RequestMetrics metrics = requestMetrics;
+            if (metrics != null) {
+                final RequestTimeline timeline = metrics.newTimeline();
+                timeline.received();
+                request.setNote(TIMELINE_NOTE, timeline);
+            }
+        }
+    }
+
+    private final static class ResponseWriter implements ContainerResponseWriter, FileTransfer {
+
+        /**
+         * Bytes sent with file transfers over a connection. Grizzly 2.3 releases the write queue space of a file
+         * transfer twice, so the pending byte count of the connection drops by the length of every transfer until it
+         * overflows, after which the connection is never writable again. Regions that would take the transfers of a
+         * connection beyond that point are copied instead and the connection is closed after the response.
+         */
+        private static final Attribute<Long> TRANSFERRED_BYTES = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+                ResponseWriter.class.getName() + ".transferredBytes", 0L);
+
+        private static final int NOT_SUSPENDED = 0;
+        private static final int SUSPENDED = 1;
+        private static final int FINISHED = 2;
 
         private final String name;
         private final Response grizzlyResponse;
         private final boolean configSetStatusOverSendError;
+        private final ResponseBuffering buffering;
+        private final RequestTimeline timeline;
+        private final SuspendMetrics suspendMetrics;
+        /**
+         * Runs the work that timer and selector threads hand off for requests without worker threads, e.g. with the
+         * {@link GrizzlyIOStrategy#SAME_THREAD} IO strategy.
+         */
+        private static final ExecutorService FALLBACK_EXECUTOR = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("spring-grizzly-response-%d").setDaemon(true).build());
+
+        /**
+         * Worker threads of the request, captured up front: the timer and selector threads that hand work to them
+         * may run after the Grizzly request has been recycled. {@code null} if the transport has no worker threads.
+         */
+        private final Executor requestExecutor;
+        private FileRegion fileRegion;
+        /**
+         * Whether Jersey suspended the response: {@link #NOT_SUSPENDED}, {@link #SUSPENDED} or {@link #FINISHED}.
+         */
+        private final AtomicInteger suspendState = new AtomicInteger(NOT_SUSPENDED);
+        private volatile TimeoutHandler timeoutHandler;
+        private volatile SuspendTimer.Timeout suspendTimeout;
+        /**
+         * Whether the timeout handler runs, a response finished meanwhile is counted as expired instead of resumed.
+         */
+        private volatile boolean timingOut;
+        /**
+         * Counts a suspended request as cancelled when Grizzly cancels the suspended response because the connection
+         * was closed.
+         */
+        private final CompletionHandler<Response> suspendCompletionHandler = new EmptyCompletionHandler<Response>() {
+
+            @Override
+            public void cancelled() {
+                if (suspendState.compareAndSet(SUSPENDED, FINISHED)) {
+                    cancelSuspendTimeout();
+                    suspendMetrics.cancelled();
+                }
+            }
+        };
+        /**
+         * Hands an expired suspend timeout from the timer thread to a worker thread.
+         */
+        private final Runnable suspendTimeoutTask = new Runnable() {
 
-        ResponseWriter(final Response response, final boolean configSetStatusOverSendError) {
+            @Override
+            public void run() {
+                runOnWorkerThread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        onSuspendTimeout();
+                    }
+                });
+            }
+        };
+
+        ResponseWriter(final Response response, final boolean configSetStatusOverSendError,
+                       final ResponseBuffering buffering, final RequestTimeline timeline,
+                       final SuspendMetrics suspendMetrics) {
             this.grizzlyResponse = response;
             this.configSetStatusOverSendError = configSetStatusOverSendError;
+            this.buffering = buffering;
+            this.timeline = timeline;
+            this.suspendMetrics = suspendMetrics;
+            this.requestExecutor = response.getRequest().getRequestExecutor();
 
             if (logger.isDebugLoggable()) {
                 this.name = "ResponseWriter {" + "id=" + UUID.randomUUID().toString() + ", grizzlyResponse=" + grizzlyResponse.hashCode() + '}';
@@ -153,47 +401,226 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
 
         @Override
         public void commit() {
+            final long start = timeline == null ? 0 : System.nanoTime();
+            finishSuspended();
             try {
-                if (grizzlyResponse.isSuspended()) {
+                if (fileRegion != null) {
+                    sendFile(fileRegion);
+                } else if (grizzlyResponse.isSuspended()) {
                     grizzlyResponse.resume();
                 }
             } finally {
-                logger.debugLog("{0} - commit() called", name);
+                if (timeline != null) {
+                    timeline.committed(System.nanoTime() - start);
+                }
+                debugLog("commit() called");
             }
         }
 
+        @Override
+        public boolean transfer(final FileRegion region) {
+            // Grizzly counts the bytes of a file transfer in an int
+            if (!grizzlyResponse.isSendFileEnabled() || grizzlyResponse.getRequest().isSecure()
+                    || grizzlyResponse.isCommitted() || region.getLength() > Integer.MAX_VALUE) {
+                return false;
+            }
+            final Connection<?> connection = grizzlyResponse.getRequest().getContext().getConnection();
+            final long transferred = TRANSFERRED_BYTES.get(connection);
+            if (transferred + region.getLength() > Integer.MAX_VALUE) {
+                // copied, the next request gets a fresh connection
+                grizzlyResponse.setHeader(Header.Connection, "close");
+                return false;
+            }
+            TRANSFERRED_BYTES.set(connection, transferred + region.getLength());
+            fileRegion = region;
+            debugLog("transfer(...) called");
+            return true;
+        }
+
+        /**
+         * Start sending the file region after the status and headers. The response is suspended until the transfer
+         * completes. Grizzly reports the completion on a selector thread before it releases the transferred bytes
+         * from the write queue, so the response is resumed on a worker thread once the output buffer can be written
+         * again, finishing it right away would block until the write timeout.
+         *
+         * @param region file region to send.
+         */
+        // Grizzly declares the sendfile completion handler with a raw WriteResult
+        @SuppressWarnings("rawtypes")
+        private void sendFile(final FileRegion region) {
+            if (!grizzlyResponse.isSuspended()) {
+                grizzlyResponse.suspend();
+            }
+            grizzlyResponse.getOutputBuffer().sendfile(region.getFile(), region.getOffset(), region.getLength(),
+                    new EmptyCompletionHandler<WriteResult>() {
+
+                        @Override
+                        public void completed(final WriteResult result) {
+                            resumeWhenWritable();
+                        }
+
+                        @Override
+                        public void failed(final Throwable throwable) {
+                            logger.log(Level.FINE, "Unable to send " + region, throwable);
+                            resumeOnWorkerThread();
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            resumeOnWorkerThread();
+                        }
+                    });
+        }
+
+        private void resumeWhenWritable() {
+            try {
+                grizzlyResponse.getOutputBuffer().notifyCanWrite(new WriteHandler() {
+
+                    @Override
+                    public void onWritePossible() {
+                        resumeOnWorkerThread();
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        resumeOnWorkerThread();
+                    }
+                });
+            } catch (IllegalStateException e) {
+                // another handler waits for the output buffer
+                resumeOnWorkerThread();
+            }
+        }
+
+        private void resumeOnWorkerThread() {
+            runOnWorkerThread(new Runnable() {
+
+                @Override
+                public void run() {
+                    grizzlyResponse.resume();
+                }
+            });
+        }
+
+        private void runOnWorkerThread(final Runnable task) {
+            if (requestExecutor != null) {
+                try {
+                    requestExecutor.execute(task);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the worker pool is shut down
+                }
+            }
+            FALLBACK_EXECUTOR.execute(task);
+        }
+
+        /**
+         * Suspend the response without a timeout while the request entity is read, before the request is handed to
+         * Jersey.
+         */
+        void suspendWhileEntityIsRead() {
+            grizzlyResponse.suspend(-1, TimeUnit.MILLISECONDS, suspendCompletionHandler);
+            debugLog("suspendWhileEntityIsRead() called");
+        }
+
+        /**
+         * Suspend the response for an asynchronous resource. Grizzly keeps the response suspended without a timeout,
+         * the timeout is scheduled on the shared {@link SuspendTimer} instead of in Grizzly's per-transport delay
+         * queue.
+         */
         @Override
         public boolean suspend(final long timeOut, final TimeUnit timeUnit, final TimeoutHandler timeoutHandler) {
             try {
-                grizzlyResponse.suspend(timeOut, timeUnit, EMPTY_COMPLETION_HANDLER,
-                        new org.glassfish.grizzly.http.server.TimeoutHandler() {
-
-                            @Override
-                            public boolean onTimeout(Response response) {
-                                if (timeoutHandler != null) {
-                                    timeoutHandler.onTimeout(ResponseWriter.this);
-                                }
-
-                                // TODO should we return true in some cases instead?
-                                // Returning false relies on the fact that the timeoutHandler will resume the response.
-                                return false;
-                            }
-                        }
-                );
+                if (!grizzlyResponse.isSuspended()) {
+                    grizzlyResponse.suspend(-1, TimeUnit.MILLISECONDS, suspendCompletionHandler);
+                }
+                // else suspended while the request entity was read
+                if (!suspendState.compareAndSet(NOT_SUSPENDED, SUSPENDED)) {
+                    return false;
+                }
+                this.timeoutHandler = timeoutHandler;
+                suspendMetrics.suspended();
+                scheduleSuspendTimeout(timeOut, timeUnit);
                 return true;
             } catch (IllegalStateException ex) {
                 return false;
             } finally {
-                logger.debugLog("{0} - suspend(...) called", name);
+                debugLog("suspend(...) called");
             }
         }
 
         @Override
         public void setSuspendTimeout(long timeOut, TimeUnit timeUnit) throws IllegalStateException {
             try {
-                grizzlyResponse.getSuspendContext().setTimeout(timeOut, timeUnit);
+                if (suspendState.get() != SUSPENDED) {
+                    throw new IllegalStateException("The response is not suspended.");
+                }
+                cancelSuspendTimeout();
+                scheduleSuspendTimeout(timeOut, timeUnit);
             } finally {
-                logger.debugLog("{0} - setTimeout(...) called", name);
+                debugLog("setTimeout(...) called");
+            }
+        }
+
+        /**
+         * @param timeOut  suspend timeout, no timeout if not positive.
+         * @param timeUnit time unit of the timeout.
+         */
+        private void scheduleSuspendTimeout(final long timeOut, final TimeUnit timeUnit) {
+            if (timeOut > 0) {
+                suspendTimeout = SuspendTimer.shared().schedule(suspendTimeoutTask, timeOut, timeUnit);
+            }
+        }
+
+        private void cancelSuspendTimeout() {
+            final SuspendTimer.Timeout timeout = suspendTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+                suspendTimeout = null;
+            }
+        }
+
+        /**
+         * Called on a worker thread when the suspend timeout expired. The timeout handler of Jersey either resumes the
+         * response or sets a new timeout, without a timeout handler the response is finished with 503 Service
+         * Unavailable. A response the timeout finishes is counted as expired, not as resumed.
+         */
+        private void onSuspendTimeout() {
+            if (suspendState.get() != SUSPENDED) {
+                // resumed or cancelled while the timeout was dispatched
+                return;
+            }
+            suspendMetrics.timedOut();
+            final TimeoutHandler handler = timeoutHandler;
+            if (handler != null) {
+                timingOut = true;
+                try {
+                    handler.onTimeout(this);
+                } finally {
+                    timingOut = false;
+                }
+            } else if (suspendState.compareAndSet(SUSPENDED, FINISHED)) {
+                suspendMetrics.expired();
+                if (!grizzlyResponse.isCommitted()) {
+                    grizzlyResponse.setStatus(503, "Service Unavailable");
+                }
+                grizzlyResponse.resume();
+            }
+            debugLog("onSuspendTimeout() called");
+        }
+
+        /**
+         * Count a suspended response as resumed, or as expired when its timeout handler finished it, once Jersey
+         * writes, commits or fails it.
+         */
+        private void finishSuspended() {
+            if (suspendState.compareAndSet(SUSPENDED, FINISHED)) {
+                cancelSuspendTimeout();
+                if (timingOut) {
+                    suspendMetrics.expired();
+                } else {
+                    suspendMetrics.resumed();
+                }
             }
         }
 
@@ -201,6 +628,8 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
         public OutputStream writeResponseStatusAndHeaders(final long contentLength,
                                                           final ContainerResponse context)
                 throws ContainerException {
+            // counted before the client can read the response, commit() only runs once it is flushed
+            finishSuspended();
             try {
                 final javax.ws.rs.core.Response.StatusType statusInfo = context.getStatusInfo();
                 if (statusInfo.getReasonPhrase() == null) {
@@ -209,7 +638,7 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
                     grizzlyResponse.setStatus(statusInfo.getStatusCode(), statusInfo.getReasonPhrase());
                 }
 
-                grizzlyResponse.setContentLengthLong(contentLength);
+                grizzlyResponse.setContentLengthLong(fileRegion == null ? contentLength : fileRegion.getLength());
 
                 for (final Map.Entry<String, List<String>> e : context.getStringHeaders().entrySet()) {
                     for (final String value : e.getValue()) {
@@ -217,15 +646,25 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
                     }
                 }
 
+                if (fileRegion != null) {
+                    // the region is sent on commit, nothing may be written to the entity stream
+                    return FILE_TRANSFER_OUTPUT_STREAM;
+                }
+
+                if (buffering.getOutputBufferSize() != -1) {
+                    // nothing is written yet, so the buffer can still be resized
+                    grizzlyResponse.setBufferSize(buffering.getOutputBufferSize());
+                }
                 return grizzlyResponse.getOutputStream();
             } finally {
-                logger.debugLog("{0} - writeResponseStatusAndHeaders() called", name);
+                debugLog("writeResponseStatusAndHeaders() called");
             }
         }
 
         @Override
         @SuppressWarnings("MagicNumber")
         public void failure(Throwable error) {
+            finishSuspended();
             try {
                 if (!grizzlyResponse.isCommitted()) {
                     try {
@@ -245,14 +684,26 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
                     }
                 }
             } finally {
-                logger.debugLog("{0} - failure(...) called", name);
+                debugLog("failure(...) called");
                 rethrow(error);
             }
         }
 
         @Override
         public boolean enableResponseBuffering() {
-            return true;
+            return buffering.isEnabled();
+        }
+
+        /**
+         * Log a debug message prefixed with the name of this writer, the message arguments are only created when
+         * debug logging is enabled.
+         *
+         * @param message debug message.
+         */
+        private void debugLog(final String message) {
+            if (logger.isDebugLoggable()) {
+                logger.debugLog("{0} - {1}", name, message);
+            }
         }
 
         /**
@@ -270,7 +721,8 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
     }
 
     private volatile ApplicationHandler appHandler;
-    private volatile ContainerLifecycleListener containerListener;
+    private final RetainedApplicationContext retainedApplicationContext = new RetainedApplicationContext();
+    private volatile BaseUri lastBaseUri;
 
     /**
      * Create a new Grizzly HTTP container.
@@ -280,6 +732,10 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
     SpringGrizzlyHttpContainer(final Application application) {
         this.appHandler = new ApplicationHandler(application, new GrizzlyBinder());
         cacheConfigSetStatusOverSendError();
+        cacheResponseBuffering();
+        cacheRequestBuffering();
+        cacheRequestMetrics();
+        cacheLogRecordBuffer();
     }
 
     @Override
@@ -290,33 +746,117 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
 
     @Override
     public void service(final Request request, final Response response) {
-        final ResponseWriter responseWriter = new ResponseWriter(response, configSetStatusOverSendError);
-        try {
-            logger.debugLog("GrizzlyHttpContainer.service(...) started");
-            URI baseUri = getBaseUri(request);
-            ContainerRequest requestContext = new ContainerRequest(baseUri,
-                    getRequestUri(baseUri, request), request.getMethod().getMethodString(),
-                    getSecurityContext(request), new SpringGrizzlyRequestPropertiesDelegate(request));
-            requestContext.setEntityStream(request.getInputStream());
-            for (String headerName : request.getHeaderNames()) {
-                requestContext.headers(headerName, request.getHeaders(headerName));
+        inFlightRequests.incrementAndGet();
+        request.addAfterServiceListener(inFlightRequestListener);
+        final RequestMetrics metrics = requestMetrics;
+        RequestTimeline timeline = null;
+        if (metrics != null) {
+            timeline = request.getNote(TIMELINE_NOTE);
+            if (timeline == null) {
+                timeline = metrics.newTimeline();
             }
-            requestContext.setWriter(responseWriter);
+        }
+        final ResponseWriter responseWriter = new ResponseWriter(response, configSetStatusOverSendError,
+                responseBuffering, timeline, suspendMetrics);
+        final RequestBuffering buffering = requestBuffering;
+        if (buffering.isEnabled() && RequestEntityReader.isPending(request)) {
+            readEntity(request, response, responseWriter, timeline, buffering);
+        } else {
+            handle(request, response, responseWriter, timeline, request.getInputStream());
+        }
+    }
 
-            requestContext.setRequestScopedInitializer(new RequestScopedInitializer() {
+    /**
+     * Receive the entity of a request with non-blocking reads and hand the request to Jersey once it is complete, the
+     * response stays suspended in the meantime.
+     *
+     * @param request        Grizzly request.
+     * @param response       Grizzly response.
+     * @param responseWriter writer of the Jersey response.
+     * @param timeline       timeline of the request, {@code null} if request metrics are not enabled.
+     * @param buffering      request buffering of the application.
+     */
+    private void readEntity(final Request request, final Response response, final ResponseWriter responseWriter,
+                            final RequestTimeline timeline, final RequestBuffering buffering) {
+        responseWriter.suspendWhileEntityIsRead();
+        new RequestEntityReader(request, response, buffering.getMemoryThreshold()) {
 
-                @Override
-                public void initialize(ServiceLocator locator) {
-                    locator.<Ref<Request>>getService(RequestTYPE).set(request);
-                    locator.<Ref<Response>>getService(ResponseTYPE).set(response);
+            @Override
+            void entityRead(final InputStream entityStream) {
+                try {
+                    handle(request, response, responseWriter, timeline, entityStream);
+                } catch (RuntimeException e) {
+                    // Grizzly only finishes the response of a failed request when it is handled within service(...)
+                    logger.log(Level.WARNING, "Request failed.", e);
+                    if (response.isSuspended()) {
+                        response.resume();
+                    }
                 }
-            });
-            appHandler.handle(requestContext);
+            }
+        }.start();
+    }
+
+    /**
+     * Hand a request to Jersey.
+     *
+     * @param request        Grizzly request.
+     * @param response       Grizzly response.
+     * @param responseWriter writer of the Jersey response.
+     * @param timeline       timeline of the request, {@code null} if request metrics are not enabled.
+     * @param entityStream   stream of the request entity.
+     */
+    private void handle(final Request request, final Response response, final ResponseWriter responseWriter,
+                        final RequestTimeline timeline, final InputStream entityStream) {
+        final boolean debug = logger.isDebugLoggable();
+        final LogRecordBuffer logBuffer = logRecordBuffer;
+        final LogRecordBuffer previousLogBuffer = logBuffer == null ? null : LogRecorder.bind(logBuffer);
+        try {
+            if (debug) {
+                logger.debugLog("GrizzlyHttpContainer.service(...) started");
+            }
+            if (timeline == null) {
+                appHandler.handle(createContainerRequest(request, response, responseWriter, entityStream));
+            } else {
+                timeline.dispatched();
+                final ContainerRequest requestContext = createContainerRequest(request, response, responseWriter,
+                        entityStream);
+                timeline.requestConstructed();
+                requestContext.setProperty(RequestTimeline.PROPERTY, timeline);
+                appHandler.handle(requestContext);
+            }
         } finally {
-            logger.debugLog("GrizzlyHttpContainer.service(...) finished");
+            if (debug) {
+                logger.debugLog("GrizzlyHttpContainer.service(...) finished");
+            }
+            if (logBuffer != null) {
+                LogRecorder.bind(previousLogBuffer);
+            }
         }
     }
 
+    /**
+     * Adapt a Grizzly request into a Jersey container request.
+     *
+     * @param request        Grizzly request.
+     * @param response       Grizzly response the Jersey response is written to.
+     * @param responseWriter writer of the Jersey response.
+     * @param entityStream   stream of the request entity.
+     * @return Jersey container request.
+     */
+    ContainerRequest createContainerRequest(final Request request, final Response response,
+                                            final ContainerResponseWriter responseWriter,
+                                            final InputStream entityStream) {
+        final GrizzlyRequestAdapter adapter = new GrizzlyRequestAdapter(request, response);
+        final URI baseUri = getBaseUri(request);
+        final ContainerRequest requestContext = new ContainerRequest(baseUri,
+                getRequestUri(baseUri, request), request.getMethod().getMethodString(), adapter, adapter);
+        requestContext.setEntityStream(entityStream);
+        copyHeaders(request, requestContext);
+        requestContext.setWriter(responseWriter);
+        requestContext.setRequestScopedInitializer(adapter);
+        return requestContext;
+    }
+
     @Override
     public ResourceConfig getConfiguration() {
         return appHandler.getConfiguration();
@@ -329,11 +869,36 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
 
     @Override
     public void reload(ResourceConfig configuration) {
-        this.appHandler.onShutdown(this);
-        appHandler = new ApplicationHandler(configuration, new GrizzlyBinder());
-        containerListener.onReload(this);
-        containerListener.onStartup(this);
+        reload(configuration, false);
+    }
+
+    /**
+     * Reload the container with a new application.
+     *
+     * @param configuration          configuration of the new application.
+     * @param keepApplicationContext {@code true} to keep the running Spring application context and only rebuild the
+     *                               Jersey resource model and providers, {@code false} to create a new application
+     *                               context as well.
+     */
+    public synchronized void reload(final ResourceConfig configuration, final boolean keepApplicationContext) {
+        final ApplicationHandler previous = appHandler;
+        if (keepApplicationContext) {
+            appHandler = new ApplicationHandler(retainedApplicationContext.retain(previous, configuration),
+                    new GrizzlyBinder());
+            retainedApplicationContext.shutdown(previous, this);
+        } else {
+            final ResourceConfig released = retainedApplicationContext.release(configuration);
+            previous.onShutdown(this);
+            retainedApplicationContext.close();
+            appHandler = new ApplicationHandler(released, new GrizzlyBinder());
+        }
+        appHandler.onReload(this);
+        appHandler.onStartup(this);
         cacheConfigSetStatusOverSendError();
+        cacheResponseBuffering();
+        cacheRequestBuffering();
+        cacheRequestMetrics();
+        cacheLogRecordBuffer();
     }
 
     @Override
@@ -344,47 +909,52 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
     @Override
     public void destroy() {
         super.destroy();
-        this.appHandler.onShutdown(this);
+        try {
+            this.appHandler.onShutdown(this);
+        } finally {
+            retainedApplicationContext.close();
+        }
         appHandler = null;
     }
 
-    private SecurityContext getSecurityContext(final Request request) {
-        return new SecurityContext() {
-
-            @Override
-            public boolean isUserInRole(String role) {
-                return false;
-            }
-
-            @Override
-            public boolean isSecure() {
-                return request.isSecure();
-            }
-
-            @Override
-            public Principal getUserPrincipal() {
-                return request.getUserPrincipal();
-            }
-
-            @Override
-            public String getAuthenticationScheme() {
-                return request.getAuthType();
-            }
-        };
+    /**
+     * Copy the headers of the Grizzly request into the Jersey container request.
+     * <p>
+     * The headers are copied in a single pass over the parsed Grizzly headers. Iterating the header names and looking
+     * up the values of every name both scan all headers, which makes the copy quadratic in the number of headers.
+     *
+     * @param request        Grizzly request.
+     * @param requestContext Jersey container request.
+     */
+    void copyHeaders(final Request request, final ContainerRequest requestContext) {
+        final MimeHeaders headers = request.getRequest().getHeaders();
+        final MultivaluedMap<String, String> target = requestContext.getHeaders();
+        final int size = headers.size();
+        for (int i = 0; i < size; i++) {
+            target.add(headers.getName(i).toString(), headers.getValue(i).toString());
+        }
     }
 
-    private URI getBaseUri(final Request request) {
+    URI getBaseUri(final Request request) {
+        final String scheme = request.getScheme();
+        final String serverName = request.getServerName();
+        final int serverPort = request.getServerPort();
+        final String contextPath = request.getContextPath();
+
+        final BaseUri last = lastBaseUri;
+        if (last != null && last.matches(scheme, serverName, serverPort, contextPath)) {
+            return last.uri;
+        }
         try {
-            return new URI(request.getScheme(), null, request.getServerName(),
-                    request.getServerPort(), getBasePath(request), null, null);
+            final URI uri = new URI(scheme, null, serverName, serverPort, getBasePath(contextPath), null, null);
+            lastBaseUri = new BaseUri(scheme, serverName, serverPort, contextPath, uri);
+            return uri;
         } catch (final URISyntaxException ex) {
             throw new IllegalArgumentException(ex);
         }
     }
 
-    private String getBasePath(final Request request) {
-        final String contextPath = request.getContextPath();
-
+    private String getBasePath(final String contextPath) {
         if (contextPath == null || contextPath.isEmpty()) {
             return "/";
         } else if (contextPath.charAt(contextPath.length() - 1) != '/') {
@@ -394,18 +964,29 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
         }
     }
 
-    private URI getRequestUri(URI baseUri, Request grizzlyRequest) {
-        // TODO: this is terrible, there must be a way to obtain the original request URI!
-        String originalUri = UriBuilder.fromPath(
-                grizzlyRequest.getRequest().getRequestURIRef().getOriginalRequestURIBC().toString(Charsets.DEFAULT_CHARSET)
-        ).build().toString();
+    URI getRequestUri(final URI baseUri, final Request grizzlyRequest) {
+        final String originalUri = grizzlyRequest.getRequest().getRequestURIRef().getOriginalRequestURIBC()
+                .toString(Charsets.DEFAULT_CHARSET);
+        final String queryString = grizzlyRequest.getQueryString();
 
-        String queryString = grizzlyRequest.getQueryString();
-        if (queryString != null) {
-            originalUri = originalUri + "?" + queryString;
+        // Requests from well-behaved clients carry a valid, absolute path: resolve the path and query as received
+        // against the base URI, without the encoding round trip through UriBuilder.
+        if (!originalUri.isEmpty() && originalUri.charAt(0) == '/') {
+            try {
+                return baseUri.resolve(new URI(queryString == null ? originalUri : originalUri + '?' + queryString));
+            } catch (URISyntaxException e) {
+                // the path contains characters that need encoding
+            }
         }
+        return getEncodedRequestUri(baseUri, originalUri, queryString);
+    }
 
-        return baseUri.resolve(originalUri);
+    private URI getEncodedRequestUri(final URI baseUri, final String originalUri, final String queryString) {
+        String encodedUri = UriBuilder.fromPath(originalUri).build().toString();
+        if (queryString != null) {
+            encodedUri = encodedUri + "?" + queryString;
+        }
+        return baseUri.resolve(encodedUri);
     }
 
     /**
@@ -417,6 +998,126 @@ public class SpringGrizzlyHttpContainer extends HttpHandler implements Container
                 ServerProperties.RESPONSE_SET_STATUS_OVER_SEND_ERROR, false, Boolean.class);
     }
 
+    /**
+     * Reads and caches the {@link ResponseBuffering} of the application.
+     */
+    private void cacheResponseBuffering() {
+        this.responseBuffering = ResponseBuffering.get(getConfiguration());
+    }
+
+    /**
+     * Reads and caches the {@link RequestBuffering} of the application.
+     */
+    private void cacheRequestBuffering() {
+        this.requestBuffering = RequestBuffering.get(getConfiguration());
+    }
+
+    /**
+     * Reads and caches the {@link RequestMetrics} of the application.
+     */
+    private void cacheRequestMetrics() {
+        this.requestMetrics = RequestMetrics.get(getConfiguration());
+    }
+
+    /**
+     * @return request metrics of the application, {@code null} if request metrics are not enabled.
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Creates the log record buffer of the container, a reload with the same log recording settings keeps the
+     * recorded records.
+     */
+    private void cacheLogRecordBuffer() {
+        final LogRecording recording = LogRecording.get(getConfiguration());
+        final LogRecordBuffer buffer = logRecordBuffer;
+        if (recording == null) {
+            this.logRecordBuffer = null;
+        } else if (buffer == null || buffer.getRecording() != recording) {
+            this.logRecordBuffer = recording.newBuffer();
+        }
+    }
+
+    /**
+     * @return buffer the log records of the handled requests are recorded in, {@code null} if log recording is not
+     * enabled.
+     */
+    public LogRecordBuffer getLogRecordBuffer() {
+        return logRecordBuffer;
+    }
+
+    /**
+     * @return number of requests that are received but not completed yet, including suspended async requests.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * @return counters of the requests suspended by asynchronous resources.
+     */
+    public SuspendMetrics getSuspendMetrics() {
+        return suspendMetrics;
+    }
+
+    /**
+     * Wait until all in-flight requests are completed.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit    time unit of the timeout.
+     * @return {@code true} if no requests are in flight, {@code false} if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitInFlightRequests(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (inFlightRequests) {
+            while (inFlightRequests.get() > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(inFlightRequests, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until the responses of the completed requests are written, Grizzly may still have queued (part of) a large
+     * response when its request completed. The queued responses are only written while the listener is not paused.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit    time unit of the timeout.
+     * @return {@code true} if no responses are queued, {@code false} if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitPendingWrites(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final Connection<?> connection : pendingWriteConnections) {
+            while (connection.isOpen() && hasPendingWrites(connection)) {
+                if (deadline - System.nanoTime() <= 0) {
+                    return false;
+                }
+                TimeUnit.MILLISECONDS.sleep(PENDING_WRITES_POLL_INTERVAL_MILLIS);
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPendingWrites(final Connection<?> connection) {
+        return connection instanceof NIOConnection && !((NIOConnection) connection).getAsyncWriteQueue().isEmpty();
+    }
+
+    /**
+     * @return Grizzly probe starting the request timeline when a request is received, {@code null} if request metrics
+     * are not enabled.
+     */
+    HttpServerProbe getRequestReceivedProbe() {
+        return requestMetrics == null ? null : new RequestReceivedProbe();
+    }
+
     public ApplicationContext getSpringApplicationContext() {
         return getApplicationHandler().getServiceLocator().getService(ApplicationContext.class);
     }
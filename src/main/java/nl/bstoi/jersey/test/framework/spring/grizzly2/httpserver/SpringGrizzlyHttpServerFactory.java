@@ -2,6 +2,7 @@ package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
 
 import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.SpringGrizzlyHttpContainer;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.HttpServerProbe;
 import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.ServerConfiguration;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
@@ -21,6 +22,11 @@ public final class SpringGrizzlyHttpServerFactory {
 
     private static final int DEFAULT_HTTP_PORT = 80;
 
+    /**
+     * System property with which Grizzly sendfile support is explicitly enabled or disabled.
+     */
+    private static final String USE_SEND_FILE = "org.glassfish.grizzly.http.USE_SEND_FILE";
+
     /**
      * Create new {@link org.glassfish.grizzly.http.server.HttpServer} instance.
      *
@@ -141,6 +147,32 @@ public final class SpringGrizzlyHttpServerFactory {
                 start);
     }
 
+    /**
+     * Create new {@link HttpServer} instance.
+     *
+     * @param uri             URI on which the Jersey web application will be deployed. Only first path segment will be
+     *                        used as context path, the rest will be ignored.
+     * @param configuration   web application configuration.
+     * @param transportConfig thread topology of the Grizzly transport, {@code null} for the Grizzly defaults.
+     * @param start           if set to false, server will not get started, which allows to configure the underlying
+     *                        transport, see above for details.
+     * @return newly created {@code HttpServer}.
+     *
+     * @throws javax.ws.rs.ProcessingException in case of any failure when creating a new {@code HttpServer} instance.
+     */
+    public static HttpServer createHttpServer(final URI uri,
+                                              final ResourceConfig configuration,
+                                              final GrizzlyTransportConfig transportConfig,
+                                              final boolean start) {
+        return createHttpServer(
+                uri,
+                new SpringGrizzlyHttpContainer(configuration),
+                false,
+                null,
+                transportConfig,
+                start);
+    }
+
     /**
      * Create new {@link HttpServer} instance.
      *
@@ -161,6 +193,31 @@ public final class SpringGrizzlyHttpServerFactory {
                                               final boolean secure,
                                               final SSLEngineConfigurator sslEngineConfigurator,
                                               final boolean start) {
+        return createHttpServer(uri, handler, secure, sslEngineConfigurator, null, start);
+    }
+
+    /**
+     * Create new {@link HttpServer} instance.
+     *
+     * @param uri                   uri on which the {@link org.glassfish.jersey.server.ApplicationHandler} will be deployed. Only first path
+     *                              segment will be used as context path, the rest will be ignored.
+     * @param handler               {@link org.glassfish.grizzly.http.server.HttpHandler} instance.
+     * @param secure                used for call {@link org.glassfish.grizzly.http.server.NetworkListener#setSecure(boolean)}.
+     * @param sslEngineConfigurator Ssl settings to be passed to {@link org.glassfish.grizzly.http.server.NetworkListener#setSSLEngineConfig}.
+     * @param transportConfig       thread topology of the Grizzly transport, {@code null} for the Grizzly defaults.
+     * @param start                 if set to false, server will not get started, this allows end users to set
+     *                              additional properties on the underlying listener.
+     * @return newly created {@code HttpServer}.
+     *
+     * @throws javax.ws.rs.ProcessingException in case of any failure when creating a new {@code HttpServer} instance.
+     * @see GrizzlyHttpContainer
+     */
+    public static HttpServer createHttpServer(final URI uri,
+                                              final SpringGrizzlyHttpContainer handler,
+                                              final boolean secure,
+                                              final SSLEngineConfigurator sslEngineConfigurator,
+                                              final GrizzlyTransportConfig transportConfig,
+                                              final boolean start) {
 
         final String host = (uri.getHost() == null) ? NetworkListener.DEFAULT_NETWORK_HOST : uri.getHost();
         final int port = (uri.getPort() == -1) ? DEFAULT_HTTP_PORT : uri.getPort();
@@ -170,6 +227,18 @@ public final class SpringGrizzlyHttpServerFactory {
         if (sslEngineConfigurator != null) {
             listener.setSSLEngineConfig(sslEngineConfigurator);
         }
+        if (transportConfig != null) {
+            transportConfig.configure(listener.getTransport());
+        }
+        final boolean http2 = handler != null && Http2Support.isEnabled(handler.getConfiguration());
+        if (http2) {
+            // h2c on a plain listener, h2 negotiated with ALPN on a secure listener
+            Http2Support.configure(listener);
+        } else if (handler != null && System.getProperty(USE_SEND_FILE) == null
+                && FileTransferFeature.isEnabled(handler.getConfiguration())) {
+            // Grizzly only enables sendfile when asked to, it is used for the FileTransferFeature
+            listener.setSendFileEnabled(true);
+        }
 
         final HttpServer server = new HttpServer();
         server.addListener(listener);
@@ -178,6 +247,11 @@ public final class SpringGrizzlyHttpServerFactory {
         final ServerConfiguration config = server.getServerConfiguration();
         if (handler != null) {
             config.addHttpHandler(handler, uri.getPath());
+
+            final HttpServerProbe requestReceivedProbe = handler.getRequestReceivedProbe();
+            if (requestReceivedProbe != null) {
+                config.getMonitoringConfig().getWebServerConfig().addProbes(requestReceivedProbe);
+            }
         }
 
         config.setPassTraceRequest(true);
@@ -0,0 +1,233 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel firing the timeouts of suspended responses. One daemon thread advances the wheel every
+ * {@link #TICK_MILLIS} milliseconds and fires the timeouts of the current bucket, scheduling and cancelling a timeout
+ * only enqueues it, so tens of thousands of parked requests cost a linked list entry each instead of a task in a
+ * shared delay queue. Timeouts fire at most one tick late. Tasks run on the timer thread and must hand any work that
+ * may block to another executor.
+ */
+final class SuspendTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(SuspendTimer.class.getName());
+
+    /**
+     * Resolution of the timer in milliseconds.
+     */
+    static final long TICK_MILLIS = 10;
+
+    private static final int WHEEL_SIZE = 512;
+
+    private static final SuspendTimer SHARED = new SuspendTimer();
+
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<Timeout>();
+    private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private final long startTime = System.nanoTime();
+
+    private volatile Thread worker;
+    private long tick;
+
+    private SuspendTimer() {
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return timer shared by all containers of the JVM.
+     */
+    static SuspendTimer shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedule a task.
+     *
+     * @param task  task run on the timer thread when the delay has elapsed.
+     * @param delay delay of the task.
+     * @param unit  time unit of the delay.
+     * @return timeout of the task.
+     */
+    Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        startWorker();
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(delay));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    private void startWorker() {
+        if (worker == null) {
+            synchronized (this) {
+                if (worker == null) {
+                    final Thread thread = new Thread(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            runWorker();
+                        }
+                    }, "suspend-timer");
+                    thread.setDaemon(true);
+                    thread.start();
+                    worker = thread;
+                }
+            }
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            final long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            while (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    // the timer thread only ends with the JVM
+                }
+                sleepNanos = deadline - (System.nanoTime() - startTime);
+            }
+            removeCancelled();
+            transferScheduled();
+            wheel[(int) (tick % WHEEL_SIZE)].expire();
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Move the newly scheduled timeouts into the bucket of their deadline, a timeout whose deadline already passed
+     * goes into the current bucket.
+     */
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            final long ticks = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / WHEEL_SIZE;
+            wheel[(int) (ticks % WHEEL_SIZE)].add(timeout);
+        }
+    }
+
+    /**
+     * Timeout of a scheduled task.
+     */
+    static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final SuspendTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // only accessed by the timer thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(final SuspendTimer timer, final Runnable task, final long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task if it did not run yet.
+         *
+         * @return {@code true} if the task will not run, {@code false} if it already ran.
+         */
+        boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                timer.cancelled.add(this);
+                return true;
+            }
+            return state.get() == CANCELLED;
+        }
+
+        private void expire() {
+            if (state.compareAndSet(PENDING, EXPIRED)) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Suspend timeout task failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts in one slot of the wheel, only accessed by the timer thread.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Fire the timeouts of the current round, a timeout is only added to the bucket of the tick its deadline
+         * falls in.
+         */
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+    }
+}
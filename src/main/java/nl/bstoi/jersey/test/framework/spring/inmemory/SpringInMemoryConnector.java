@@ -0,0 +1,167 @@
+package nl.bstoi.jersey.test.framework.spring.inmemory;
+
+import com.google.common.util.concurrent.Futures;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecorder;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.message.internal.OutboundMessageContext;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.spi.Container;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.SecurityContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.Principal;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Client connector that hands client requests directly to the {@link ApplicationHandler} of a container, without a
+ * network round trip. Based on the Jersey in-memory test connector.
+ */
+class SpringInMemoryConnector implements Connector {
+
+    /**
+     * Security context of in-memory requests, there is no transport to authenticate the user with.
+     */
+    private static final SecurityContext IN_MEMORY_SECURITY_CONTEXT = new SecurityContext() {
+
+        @Override
+        public Principal getUserPrincipal() {
+            return null;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return false;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return null;
+        }
+    };
+
+    private final URI baseUri;
+    private final Container container;
+    private final LogRecordBuffer logRecordBuffer;
+
+    /**
+     * Connector provider creating in-memory connectors for a container.
+     */
+    static class Provider implements ConnectorProvider {
+
+        private final URI baseUri;
+        private final Container container;
+        private final LogRecordBuffer logRecordBuffer;
+
+        Provider(final URI baseUri, final Container container, final LogRecordBuffer logRecordBuffer) {
+            this.baseUri = baseUri;
+            this.container = container;
+            this.logRecordBuffer = logRecordBuffer;
+        }
+
+        @Override
+        public Connector getConnector(final Client client, final Configuration runtimeConfig) {
+            return new SpringInMemoryConnector(baseUri, container, logRecordBuffer);
+        }
+    }
+
+    SpringInMemoryConnector(final URI baseUri, final Container container, final LogRecordBuffer logRecordBuffer) {
+        this.baseUri = baseUri;
+        this.container = container;
+        this.logRecordBuffer = logRecordBuffer;
+    }
+
+    @Override
+    public ClientResponse apply(final ClientRequest clientRequest) {
+        final ContainerRequest containerRequest = new ContainerRequest(baseUri, clientRequest.getUri(),
+                clientRequest.getMethod(), IN_MEMORY_SECURITY_CONTEXT, new MapPropertiesDelegate());
+
+        final ByteArrayOutputStream clientOutput = new ByteArrayOutputStream();
+        if (clientRequest.getEntity() != null) {
+            clientRequest.setStreamProvider(new OutboundMessageContext.StreamProvider() {
+
+                @Override
+                public OutputStream getOutputStream(final int contentLength) throws IOException {
+                    if (contentLength != -1 && !clientRequest.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                        containerRequest.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, String.valueOf(contentLength));
+                    }
+                    return clientOutput;
+                }
+            });
+            clientRequest.enableBuffering();
+            try {
+                clientRequest.writeEntity();
+            } catch (IOException e) {
+                throw new ProcessingException("Error while writing entity to the in-memory request.", e);
+            }
+        }
+        containerRequest.getHeaders().putAll(clientRequest.getStringHeaders());
+        containerRequest.setEntityStream(new ByteArrayInputStream(clientOutput.toByteArray()));
+
+        final ByteArrayOutputStream containerOutput = new ByteArrayOutputStream();
+        final ContainerResponse containerResponse;
+        // the request is handled by the calling thread, record its logging in the buffer of the container
+        final LogRecordBuffer previousBuffer = logRecordBuffer == null ? null : LogRecorder.bind(logRecordBuffer);
+        try {
+            containerResponse = container.getApplicationHandler().apply(containerRequest, containerOutput).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for the in-memory response.", e);
+        } catch (ExecutionException e) {
+            throw new ProcessingException("Unable to process the in-memory request.", e.getCause());
+        } finally {
+            if (logRecordBuffer != null) {
+                LogRecorder.bind(previousBuffer);
+            }
+        }
+
+        final ClientResponse clientResponse = new ClientResponse(containerResponse.getStatusInfo(), clientRequest);
+        clientResponse.getHeaders().putAll(containerResponse.getStringHeaders());
+        clientResponse.setEntityStream(new ByteArrayInputStream(containerOutput.toByteArray()));
+        return clientResponse;
+    }
+
+    @Override
+    public Future<?> apply(final ClientRequest clientRequest, final AsyncConnectorCallback callback) {
+        final ClientResponse clientResponse;
+        try {
+            clientResponse = apply(clientRequest);
+        } catch (ProcessingException e) {
+            callback.failure(e);
+            return Futures.immediateFailedFuture(e);
+        }
+        callback.response(clientResponse);
+        return Futures.immediateFuture(clientResponse);
+    }
+
+    @Override
+    public String getName() {
+        return "Spring in-memory connector";
+    }
+
+    @Override
+    public void close() {
+        // nothing to close, there are no connections
+    }
+}
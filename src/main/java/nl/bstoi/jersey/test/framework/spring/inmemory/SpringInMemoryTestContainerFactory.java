@@ -0,0 +1,162 @@
+package nl.bstoi.jersey.test.framework.spring.inmemory;
+
+import nl.bstoi.jersey.test.framework.spring.client.SharedClient;
+import nl.bstoi.jersey.test.framework.spring.context.RetainedApplicationContext;
+import nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecordBuffer;
+import nl.bstoi.jersey.test.framework.spring.log.LogRecording;
+import nl.bstoi.jersey.test.framework.spring.metrics.RequestMetrics;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.springframework.context.ApplicationContext;
+
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test container factory that runs the application in-memory: requests from the test client are passed directly to
+ * the {@link ApplicationHandler}, no socket is opened and no HTTP encoding or parsing takes place.
+ */
+public class SpringInMemoryTestContainerFactory implements SpringTestContainerFactory {
+
+    private static class SpringInMemoryTestContainer implements ExtendedSpringTestContainer, Container {
+
+        private static final Logger LOGGER = Logger.getLogger(SpringInMemoryTestContainer.class.getName());
+
+        private final URI baseUri;
+
+        private volatile ApplicationHandler appHandler;
+
+        private final LogRecordBuffer logRecordBuffer;
+
+        private final SharedClient sharedClient = new SharedClient();
+
+        private final RetainedApplicationContext retainedApplicationContext = new RetainedApplicationContext();
+
+        private boolean started;
+
+        private SpringInMemoryTestContainer(final URI baseUri, final DeploymentContext context) {
+            this.baseUri = UriBuilder.fromUri(baseUri).path(context.getContextPath()).build();
+
+            if (LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info("Creating InMemoryTestContainer configured at the base URI " + this.baseUri);
+            }
+
+            this.appHandler = new ApplicationHandler(context.getResourceConfig());
+
+            final LogRecording logRecording = LogRecording.get(context.getResourceConfig());
+            this.logRecordBuffer = logRecording == null ? null : logRecording.newBuffer();
+        }
+
+        @Override
+        public ClientConfig getClientConfig() {
+            return new ClientConfig().connectorProvider(new SpringInMemoryConnector.Provider(baseUri, this, logRecordBuffer));
+        }
+
+        @Override
+        public URI getBaseUri() {
+            return baseUri;
+        }
+
+        @Override
+        public ApplicationContext getApplicationContext() {
+            return appHandler.getServiceLocator().getService(ApplicationContext.class);
+        }
+
+        @Override
+        public RequestMetrics getRequestMetrics() {
+            return RequestMetrics.get(appHandler.getConfiguration());
+        }
+
+        @Override
+        public SuspendMetrics getSuspendMetrics() {
+            return null;
+        }
+
+        @Override
+        public LogRecordBuffer getLogRecordBuffer() {
+            return logRecordBuffer;
+        }
+
+        @Override
+        public SharedClient getSharedClient() {
+            return sharedClient;
+        }
+
+        @Override
+        public synchronized void start() {
+            if (started) {
+                LOGGER.log(Level.WARNING, "Ignoring start request - InMemoryTestContainer is already started.");
+            } else {
+                LOGGER.log(Level.FINE, "Starting InMemoryTestContainer...");
+                appHandler.onStartup(this);
+                started = true;
+            }
+        }
+
+        @Override
+        public synchronized void stop() {
+            if (started) {
+                LOGGER.log(Level.FINE, "Stopping InMemoryTestContainer...");
+                sharedClient.close();
+                try {
+                    appHandler.onShutdown(this);
+                } finally {
+                    retainedApplicationContext.close();
+                }
+                started = false;
+            } else {
+                LOGGER.log(Level.WARNING, "Ignoring stop request - InMemoryTestContainer is already stopped.");
+            }
+        }
+
+        @Override
+        public ResourceConfig getConfiguration() {
+            return appHandler.getConfiguration();
+        }
+
+        @Override
+        public ApplicationHandler getApplicationHandler() {
+            return appHandler;
+        }
+
+        @Override
+        public void reload() {
+            reload(appHandler.getConfiguration());
+        }
+
+        @Override
+        public void reload(final ResourceConfig configuration) {
+            reload(configuration, false);
+        }
+
+        @Override
+        public synchronized void reload(final ResourceConfig configuration, final boolean keepApplicationContext) {
+            final ApplicationHandler previous = appHandler;
+            if (keepApplicationContext) {
+                appHandler = new ApplicationHandler(retainedApplicationContext.retain(previous, configuration));
+                retainedApplicationContext.shutdown(previous, this);
+            } else {
+                final ResourceConfig released = retainedApplicationContext.release(configuration);
+                previous.onShutdown(this);
+                retainedApplicationContext.close();
+                appHandler = new ApplicationHandler(released);
+            }
+            appHandler.onReload(this);
+            appHandler.onStartup(this);
+        }
+    }
+
+    @Override
+    public SpringTestContainer create(final URI baseUri, final DeploymentContext context) {
+        return new SpringInMemoryTestContainer(baseUri, context);
+    }
+}
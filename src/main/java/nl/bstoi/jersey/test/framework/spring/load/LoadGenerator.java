@@ -0,0 +1,212 @@
+package nl.bstoi.jersey.test.framework.spring.load;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import nl.bstoi.jersey.test.framework.spring.metrics.LatencyHistogram;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates load on a running test container and records the latency of every request:
+ * <pre>
+ * LoadResult result = load(target("orders"))
+ *         .concurrency(64)
+ *         .duration(30, TimeUnit.SECONDS)
+ *         .rate(5000, TimeUnit.SECONDS)
+ *         .run();
+ * assertEquals(0, result.getErrors());
+ * assertTrue(result.getLatencyAtPercentile(99, TimeUnit.MILLISECONDS) &lt; 50);
+ * </pre>
+ * With a {@link #rate(double, TimeUnit) rate} the requests are scheduled at fixed intervals, independent of the
+ * response times, and the latency of a request is measured from its scheduled start. A stalled server therefore shows
+ * up in the percentiles of all requests that should have been sent during the stall, instead of in a single slow
+ * request. The {@link #concurrency(int) concurrency} limits the number of outstanding requests, set it high enough for
+ * the rate to be reached. Without a rate every thread sends its next request as soon as the previous one completed.
+ */
+public final class LoadGenerator {
+
+    private static final LoadRequest GET = new LoadRequest() {
+        @Override
+        public Response invoke(final WebTarget target) {
+            return target.request().get();
+        }
+    };
+
+    private final WebTarget target;
+    private LoadRequest request = GET;
+    private int concurrency = 1;
+    private long durationNanos = -1;
+    private long requests = -1;
+    private long intervalNanos;
+
+    /**
+     * @param target target the requests are sent to.
+     */
+    public LoadGenerator(final WebTarget target) {
+        this.target = Preconditions.checkNotNull(target, "target");
+    }
+
+    /**
+     * @param request request to send, a GET request by default.
+     * @return this load generator.
+     */
+    public LoadGenerator request(final LoadRequest request) {
+        this.request = Preconditions.checkNotNull(request, "request");
+        return this;
+    }
+
+    /**
+     * @param concurrency number of threads sending requests, {@code 1} by default.
+     * @return this load generator.
+     */
+    public LoadGenerator concurrency(final int concurrency) {
+        Preconditions.checkArgument(concurrency > 0, "concurrency must be positive: %s", concurrency);
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param duration how long to send requests.
+     * @param unit     time unit of the duration.
+     * @return this load generator.
+     */
+    public LoadGenerator duration(final long duration, final TimeUnit unit) {
+        Preconditions.checkArgument(duration > 0, "duration must be positive: %s", duration);
+        this.durationNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * @param requests number of requests to send, the run ends when either the duration has passed or the requests are
+     *                 sent.
+     * @return this load generator.
+     */
+    public LoadGenerator requests(final long requests) {
+        Preconditions.checkArgument(requests > 0, "requests must be positive: %s", requests);
+        this.requests = requests;
+        return this;
+    }
+
+    /**
+     * Send requests at a fixed rate, e.g. {@code rate(5000, TimeUnit.SECONDS)} for 5000 requests per second.
+     *
+     * @param requests number of requests per time unit.
+     * @param unit     time unit.
+     * @return this load generator.
+     */
+    public LoadGenerator rate(final double requests, final TimeUnit unit) {
+        Preconditions.checkArgument(requests > 0, "rate must be positive: %s", requests);
+        this.intervalNanos = Math.max(1, Math.round(unit.toNanos(1) / requests));
+        return this;
+    }
+
+    /**
+     * Send the requests and wait until all responses are received.
+     *
+     * @return throughput, errors and latencies of the run.
+     * @throws IllegalStateException if neither a duration nor a number of requests is set.
+     */
+    public LoadResult run() {
+        if (durationNanos == -1 && requests == -1) {
+            throw new IllegalStateException("Set the duration or the number of requests of the load.");
+        }
+        final Run run = new Run(System.nanoTime());
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                new ThreadFactoryBuilder().setNameFormat("load-generator-%d").setDaemon(true).build());
+        try {
+            final List<Future<Void>> workers = Lists.newArrayListWithCapacity(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(run));
+            }
+            for (final Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating load.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load generator failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new LoadResult(run.sent.get(), run.errors.get(), System.nanoTime() - run.start, run.histogram);
+    }
+
+    /**
+     * State of a run, shared by the threads sending requests.
+     */
+    private final class Run implements Callable<Void> {
+
+        private final long start;
+        private final long end;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Run(final long start) {
+            this.start = start;
+            this.end = durationNanos == -1 ? Long.MAX_VALUE : start + durationNanos;
+        }
+
+        @Override
+        public Void call() {
+            while (!Thread.currentThread().isInterrupted()) {
+                final long n = sequence.getAndIncrement();
+                if (requests != -1 && n >= requests) {
+                    return null;
+                }
+                final long scheduled = intervalNanos == 0 ? System.nanoTime() : start + n * intervalNanos;
+                if (scheduled - end >= 0) {
+                    return null;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.currentThread().isInterrupted()) {
+                        return null;
+                    }
+                }
+                send();
+                histogram.record(System.nanoTime() - scheduled);
+                sent.incrementAndGet();
+            }
+            return null;
+        }
+
+        private void send() {
+            final Response response;
+            try {
+                response = request.invoke(target);
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                return;
+            }
+            boolean failed = response.getStatus() >= 400;
+            try {
+                if (response.hasEntity()) {
+                    // read the entity completely, so the connection can be reused
+                    response.readEntity(byte[].class);
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+            } finally {
+                response.close();
+            }
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
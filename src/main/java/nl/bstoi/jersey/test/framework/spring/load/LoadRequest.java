@@ -0,0 +1,26 @@
+package nl.bstoi.jersey.test.framework.spring.load;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+/**
+ * Request sent by the {@link LoadGenerator}, e.g. a POST with an entity:
+ * <pre>
+ * load(target("orders")).request(new LoadRequest() {
+ *     public Response invoke(WebTarget target) {
+ *         return target.request().post(Entity.json(order));
+ *     }
+ * })
+ * </pre>
+ * Requests are sent from several threads at once, so implementations have to be thread safe.
+ */
+public interface LoadRequest {
+
+    /**
+     * Send the request.
+     *
+     * @param target target of the load generator.
+     * @return response, read and closed by the load generator.
+     */
+    Response invoke(WebTarget target);
+}
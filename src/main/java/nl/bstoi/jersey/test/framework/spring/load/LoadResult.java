@@ -0,0 +1,87 @@
+package nl.bstoi.jersey.test.framework.spring.load;
+
+import com.google.common.base.MoreObjects;
+import nl.bstoi.jersey.test.framework.spring.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. With a fixed rate, latencies are measured from the moment a request was
+ * scheduled to be sent, so time spent waiting behind slow requests counts as latency too.
+ */
+public final class LoadResult {
+
+    private final long requests;
+    private final long errors;
+    private final long durationNanos;
+    private final LatencyHistogram histogram;
+
+    LoadResult(final long requests, final long errors, final long durationNanos, final LatencyHistogram histogram) {
+        this.requests = requests;
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @return number of sent requests, including failed requests.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return number of requests that failed, or got a response with status 400 or higher.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return duration of the run.
+     */
+    public long getDuration(final TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return number of requests per second.
+     */
+    public double getThroughput() {
+        return durationNanos == 0 ? 0 : requests * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    /**
+     * @return latencies of all requests.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Get the latency below which the given percentage of the requests fall, e.g.
+     * {@code getLatencyAtPercentile(99, TimeUnit.MILLISECONDS)} for the p99 latency in milliseconds.
+     *
+     * @param percentile percentile between {@code 0} and {@code 100}.
+     * @param unit       time unit of the result.
+     * @return latency at the percentile.
+     */
+    public long getLatencyAtPercentile(final double percentile, final TimeUnit unit) {
+        return histogram.getValueAtPercentile(percentile, unit);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("requests", requests)
+                .add("errors", errors)
+                .add("durationMillis", getDuration(TimeUnit.MILLISECONDS))
+                .add("throughput", Math.round(getThroughput()))
+                .add("p50Micros", getLatencyAtPercentile(50, TimeUnit.MICROSECONDS))
+                .add("p99Micros", getLatencyAtPercentile(99, TimeUnit.MICROSECONDS))
+                .add("p999Micros", getLatencyAtPercentile(99.9, TimeUnit.MICROSECONDS))
+                .add("maxMicros", histogram.getMax(TimeUnit.MICROSECONDS))
+                .toString();
+    }
+}
@@ -0,0 +1,88 @@
+package nl.bstoi.jersey.test.framework.spring.log;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.LogRecord;
+
+/**
+ * Lock-free bounded ring buffer of log records. Records may be published concurrently by any number of threads, when
+ * the buffer is full the oldest records are overwritten. Publishing a record claims a sequence number and stores the
+ * record in its slot, a record that is still being stored while the buffer is read is not returned.
+ */
+public final class LogRecordBuffer {
+
+    private static final class Slot {
+
+        private final long sequence;
+        private final LogRecord record;
+
+        private Slot(final long sequence, final LogRecord record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+
+    private final LogRecording recording;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong next = new AtomicLong();
+    private volatile long cleared;
+
+    LogRecordBuffer(final LogRecording recording) {
+        this.recording = recording;
+        this.slots = new AtomicReferenceArray<Slot>(recording.getCapacity());
+    }
+
+    /**
+     * @return settings the buffer records with.
+     */
+    public LogRecording getRecording() {
+        return recording;
+    }
+
+    /**
+     * Record a log record, if it passes the level and logger filter of the recording.
+     *
+     * @param record log record.
+     */
+    public void publish(final LogRecord record) {
+        if (recording.isRecorded(record)) {
+            final long sequence = next.getAndIncrement();
+            final int index = (int) (sequence % slots.length());
+            final Slot slot = new Slot(sequence, record);
+            Slot current;
+            do {
+                current = slots.get(index);
+                if (current != null && current.sequence > sequence) {
+                    // a thread that published a full lap later already stored its record in the slot
+                    return;
+                }
+            } while (!slots.compareAndSet(index, current, slot));
+        }
+    }
+
+    /**
+     * @return the recorded records since the last {@link #clear()}, oldest first, at most the capacity of the buffer.
+     */
+    public List<LogRecord> getRecords() {
+        final long end = next.get();
+        final long start = Math.max(cleared, end - slots.length());
+        final List<LogRecord> records = Lists.newArrayListWithCapacity((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            final Slot slot = slots.get((int) (sequence % slots.length()));
+            if (slot != null && slot.sequence == sequence) {
+                records.add(slot.record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Forget all recorded records.
+     */
+    public void clear() {
+        cleared = next.get();
+    }
+}
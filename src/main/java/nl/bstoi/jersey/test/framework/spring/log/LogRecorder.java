@@ -0,0 +1,140 @@
+package nl.bstoi.jersey.test.framework.spring.log;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Routes log records to {@link LogRecordBuffer buffers}. A single handler is added to the root loggers while at least
+ * one buffer is {@link #activate(LogRecordBuffer) active}. A record logged by a thread that is
+ * {@link #bind(LogRecordBuffer) bound} to a buffer, e.g. a container thread handling a request, is only recorded in that
+ * buffer, so tests running in parallel do not see each other's records. Records of other threads are recorded in all
+ * active buffers.
+ */
+public final class LogRecorder {
+
+    private static final ThreadLocal<LogRecordBuffer> BOUND_BUFFER = new ThreadLocal<LogRecordBuffer>();
+
+    private static final Set<LogRecordBuffer> ACTIVE_BUFFERS = new CopyOnWriteArraySet<LogRecordBuffer>();
+
+    private static final Handler HANDLER = new Handler() {
+
+        @Override
+        public void publish(final LogRecord record) {
+            final LogRecordBuffer buffer = BOUND_BUFFER.get();
+            if (buffer != null) {
+                buffer.publish(record);
+            } else {
+                for (final LogRecordBuffer activeBuffer : ACTIVE_BUFFERS) {
+                    activeBuffer.publish(record);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws SecurityException {
+        }
+    };
+
+    /**
+     * Root loggers the handler is added to, looked up once.
+     */
+    private static Set<Logger> rootLoggers;
+
+    /**
+     * Levels of the root loggers before the handler was added.
+     */
+    private static final Map<Logger, Level> rootLoggerLevels = Maps.newIdentityHashMap();
+
+    /**
+     * Start recording in a buffer. The level of the root loggers is lowered to the level of the recording if needed.
+     *
+     * @param buffer log record buffer.
+     */
+    public static synchronized void activate(final LogRecordBuffer buffer) {
+        if (ACTIVE_BUFFERS.isEmpty()) {
+            for (final Logger root : getRootLoggers()) {
+                rootLoggerLevels.put(root, root.getLevel());
+                root.addHandler(HANDLER);
+            }
+        }
+        ACTIVE_BUFFERS.add(buffer);
+
+        final Level level = buffer.getRecording().getLevel();
+        for (final Logger root : getRootLoggers()) {
+            if (root.getLevel() == null || root.getLevel().intValue() > level.intValue()) {
+                root.setLevel(level);
+            }
+        }
+    }
+
+    /**
+     * Stop recording in a buffer. When no buffer is active anymore the handler is removed and the levels of the
+     * root loggers are restored.
+     *
+     * @param buffer log record buffer.
+     */
+    public static synchronized void deactivate(final LogRecordBuffer buffer) {
+        if (ACTIVE_BUFFERS.remove(buffer) && ACTIVE_BUFFERS.isEmpty()) {
+            for (final Logger root : getRootLoggers()) {
+                root.removeHandler(HANDLER);
+                root.setLevel(rootLoggerLevels.get(root));
+            }
+            rootLoggerLevels.clear();
+        }
+    }
+
+    /**
+     * Record the records logged by the current thread only in the given buffer.
+     *
+     * @param buffer log record buffer, {@code null} to record in all active buffers.
+     * @return the buffer the current thread was bound to, to restore the binding with.
+     */
+    public static LogRecordBuffer bind(final LogRecordBuffer buffer) {
+        final LogRecordBuffer previous = BOUND_BUFFER.get();
+        if (buffer == null) {
+            BOUND_BUFFER.remove();
+        } else {
+            BOUND_BUFFER.set(buffer);
+        }
+        return previous;
+    }
+
+    private static Set<Logger> getRootLoggers() {
+        if (rootLoggers == null) {
+            final LogManager logManager = LogManager.getLogManager();
+            final Enumeration<String> loggerNames = logManager.getLoggerNames();
+            final ImmutableSet.Builder<Logger> roots = ImmutableSet.builder();
+            while (loggerNames.hasMoreElements()) {
+                Logger logger = logManager.getLogger(loggerNames.nextElement());
+                if (logger != null) {
+                    while (logger.getParent() != null) {
+                        logger = logger.getParent();
+                    }
+                    roots.add(logger);
+                }
+            }
+            rootLoggers = roots.build();
+        }
+        return rootLoggers;
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private LogRecorder() {
+    }
+}
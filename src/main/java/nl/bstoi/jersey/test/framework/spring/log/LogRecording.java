@@ -0,0 +1,116 @@
+package nl.bstoi.jersey.test.framework.spring.log;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import javax.ws.rs.core.Configuration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Settings of log recording for an application: the minimum level and the number of records kept per
+ * {@link LogRecordBuffer buffer}. Only records of the Jersey loggers, excluding the Jersey test framework, are
+ * recorded. The decision per logger name is taken once and cached, so filtering a record is a level comparison and a
+ * map lookup.
+ */
+public final class LogRecording {
+
+    /**
+     * Name of the configuration property holding the log recording settings of an application.
+     */
+    public static final String PROPERTY = LogRecording.class.getName();
+
+    private static final String RECORDED_LOGGERS = "org.glassfish.jersey";
+    private static final String IGNORED_LOGGERS = "org.glassfish.jersey.test";
+
+    private final Level level;
+    private final int levelValue;
+    private final int capacity;
+
+    private final ConcurrentMap<String, Boolean> recordedLoggers = Maps.newConcurrentMap();
+
+    /**
+     * @param level    minimum level of the recorded records.
+     * @param capacity maximum number of records kept per buffer, older records are overwritten.
+     */
+    public LogRecording(final Level level, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.level = level;
+        this.levelValue = level.intValue();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Enable log recording for an application, every container of the application records in its own buffer.
+     *
+     * @param configuration configuration of the application.
+     * @param recording     log recording settings.
+     */
+    public static void register(final ResourceConfig configuration, final LogRecording recording) {
+        configuration.property(PROPERTY, recording);
+    }
+
+    /**
+     * Get the log recording settings of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return log recording settings, {@code null} if log recording is not enabled for the application.
+     */
+    public static LogRecording get(final Configuration configuration) {
+        final Object recording = configuration.getProperty(PROPERTY);
+        return recording instanceof LogRecording ? (LogRecording) recording : null;
+    }
+
+    /**
+     * @return minimum level of the recorded records.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return maximum number of records kept per buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return new empty buffer recording with these settings.
+     */
+    public LogRecordBuffer newBuffer() {
+        return new LogRecordBuffer(this);
+    }
+
+    /**
+     * @param record log record.
+     * @return {@code true} if the record has to be recorded.
+     */
+    boolean isRecorded(final LogRecord record) {
+        return record.getLevel().intValue() >= levelValue && isRecordedLogger(record.getLoggerName());
+    }
+
+    private boolean isRecordedLogger(final String loggerName) {
+        if (loggerName == null) {
+            return false;
+        }
+        Boolean recorded = recordedLoggers.get(loggerName);
+        if (recorded == null) {
+            recorded = loggerName.startsWith(RECORDED_LOGGERS) && !loggerName.startsWith(IGNORED_LOGGERS);
+            recordedLoggers.put(loggerName, recorded);
+        }
+        return recorded;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("level", level)
+                .add("capacity", capacity)
+                .toString();
+    }
+}
@@ -0,0 +1,162 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import javax.ws.rs.core.Configuration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the {@link RequestStage stages} of the requests handled by a test container, for all requests
+ * and per resource method. Resource methods are named by HTTP method and path template, e.g.
+ * {@code GET /orders/{id}}:
+ * <pre>
+ * assertTrue(getRequestMetrics().getHistogram("GET /orders/{id}", RequestStage.TOTAL)
+ *         .getValueAtPercentile(99, TimeUnit.MILLISECONDS) &lt; 50);
+ * </pre>
+ */
+public final class RequestMetrics {
+
+    /**
+     * Name of the configuration property holding the request metrics of an application.
+     */
+    public static final String PROPERTY = RequestMetrics.class.getName();
+
+    private static final RequestStage[] STAGES = RequestStage.values();
+
+    private final LatencyHistogram[] total = newHistograms();
+
+    private final ConcurrentMap<String, LatencyHistogram[]> resources = Maps.newConcurrentMap();
+
+    /**
+     * Enable request metrics for an application.
+     *
+     * @param configuration configuration of the application.
+     * @return request metrics the requests to the application are recorded in.
+     */
+    public static RequestMetrics register(final ResourceConfig configuration) {
+        final RequestMetrics metrics = new RequestMetrics();
+        configuration.property(PROPERTY, metrics);
+        configuration.register(new RequestMetricsListener(metrics));
+        configuration.register(new WriteTimingInterceptor(), Integer.MIN_VALUE);
+        configuration.register(new SerializationTimingInterceptor(), Integer.MAX_VALUE);
+        return metrics;
+    }
+
+    /**
+     * Get the request metrics of an application.
+     *
+     * @param configuration configuration of the application.
+     * @return request metrics, {@code null} if request metrics are not enabled for the application.
+     */
+    public static RequestMetrics get(final Configuration configuration) {
+        final Object metrics = configuration.getProperty(PROPERTY);
+        return metrics instanceof RequestMetrics ? (RequestMetrics) metrics : null;
+    }
+
+    /**
+     * Start the timeline of a new request, used by containers that mark the stages before the request is handed to
+     * Jersey. The container has to store the timeline in the {@link RequestTimeline#PROPERTY} request property.
+     *
+     * @return timeline of the request.
+     */
+    public RequestTimeline newTimeline() {
+        return new RequestTimeline(this);
+    }
+
+    /**
+     * @param stage request stage.
+     * @return latency histogram of the stage over all requests.
+     */
+    public LatencyHistogram getHistogram(final RequestStage stage) {
+        return total[stage.ordinal()];
+    }
+
+    /**
+     * @param resource resource method, e.g. {@code GET /orders/{id}}.
+     * @param stage    request stage.
+     * @return latency histogram of the stage of the requests to the resource method, an empty histogram if the
+     * resource method has not been requested.
+     */
+    public LatencyHistogram getHistogram(final String resource, final RequestStage stage) {
+        final LatencyHistogram[] histograms = resources.get(resource);
+        return histograms == null ? new LatencyHistogram() : histograms[stage.ordinal()];
+    }
+
+    /**
+     * @return names of the requested resource methods.
+     */
+    public Set<String> getResources() {
+        return ImmutableSortedSet.copyOf(resources.keySet());
+    }
+
+    /**
+     * Forget all recorded requests, e.g. to measure a single test method when the container is reused.
+     */
+    public void reset() {
+        resources.clear();
+        for (final LatencyHistogram histogram : total) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Record the duration of a request stage.
+     *
+     * @param resource resource method, {@code null} to record the duration for all requests.
+     * @param stage    request stage.
+     * @param nanos    duration in nanoseconds.
+     */
+    void record(final String resource, final RequestStage stage, final long nanos) {
+        if (resource == null) {
+            total[stage.ordinal()].record(nanos);
+        } else {
+            LatencyHistogram[] histograms = resources.get(resource);
+            if (histograms == null) {
+                final LatencyHistogram[] created = newHistograms();
+                histograms = resources.putIfAbsent(resource, created);
+                if (histograms == null) {
+                    histograms = created;
+                }
+            }
+            histograms[stage.ordinal()].record(nanos);
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder summary = new StringBuilder("RequestMetrics (p50 / p99 in microseconds)");
+        appendSummary(summary, "all requests", total);
+        for (final Map.Entry<String, LatencyHistogram[]> resource : ImmutableSortedMap.copyOf(resources).entrySet()) {
+            appendSummary(summary, resource.getKey(), resource.getValue());
+        }
+        return summary.toString();
+    }
+
+    private static void appendSummary(final StringBuilder summary, final String name,
+                                      final LatencyHistogram[] histograms) {
+        summary.append('\n').append(name).append(": ")
+                .append(histograms[RequestStage.TOTAL.ordinal()].getCount()).append(" requests");
+        for (final RequestStage stage : STAGES) {
+            final LatencyHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getCount() > 0) {
+                summary.append("\n  ").append(stage).append(' ')
+                        .append(histogram.getValueAtPercentile(50, TimeUnit.MICROSECONDS)).append(" / ")
+                        .append(histogram.getValueAtPercentile(99, TimeUnit.MICROSECONDS));
+            }
+        }
+    }
+}
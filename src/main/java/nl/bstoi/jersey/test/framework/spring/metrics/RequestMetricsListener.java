@@ -0,0 +1,41 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Attaches a {@link RequestTimeline} to every request. The timeline started by the container is used when available,
+ * otherwise the timeline starts when Jersey starts to handle the request.
+ */
+class RequestMetricsListener implements ApplicationEventListener {
+
+    private final RequestMetrics metrics;
+
+    RequestMetricsListener(final RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        // only request events are measured
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent requestEvent) {
+        final ContainerRequest request = requestEvent.getContainerRequest();
+        final Object property = request.getProperty(RequestTimeline.PROPERTY);
+        final RequestTimeline timeline;
+        if (property instanceof RequestTimeline) {
+            timeline = (RequestTimeline) property;
+        } else {
+            timeline = metrics.newTimeline();
+            request.setProperty(RequestTimeline.PROPERTY, timeline);
+        }
+        // the start event is only passed to the application event listener
+        timeline.onEvent(requestEvent);
+        return timeline;
+    }
+}
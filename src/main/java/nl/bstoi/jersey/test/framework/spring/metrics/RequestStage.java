@@ -0,0 +1,49 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+/**
+ * Stages of the processing of a request in the test container. Stages that do not take place for a request, e.g.
+ * serialization of a response without entity, are not recorded for that request.
+ */
+public enum RequestStage {
+
+    /**
+     * From the moment Grizzly received the request until the container starts to handle it, i.e. the hand-off to a
+     * worker thread. Only recorded by the Grizzly test container.
+     */
+    DISPATCH,
+
+    /**
+     * Adaptation of the Grizzly request into a Jersey container request. Only recorded by the Grizzly test container.
+     */
+    REQUEST_CONSTRUCTION,
+
+    /**
+     * Matching the request to a resource method.
+     */
+    MATCHING,
+
+    /**
+     * Container request and response filters and writer interceptors.
+     */
+    FILTERS,
+
+    /**
+     * Invocation of the resource method, including reading the request entity.
+     */
+    RESOURCE_METHOD,
+
+    /**
+     * Writing the response entity by the message body writer.
+     */
+    SERIALIZATION,
+
+    /**
+     * Committing the response to the client. Only recorded by the Grizzly test container.
+     */
+    COMMIT,
+
+    /**
+     * The complete processing of the request.
+     */
+    TOTAL
+}
@@ -0,0 +1,217 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import java.util.List;
+
+/**
+ * Timestamps of the processing of one request. The container marks the stages before the request is handed to Jersey
+ * and the commit of the response, the Jersey stages are marked through the request events. When the request is
+ * finished the durations of the stages are recorded in the {@link RequestMetrics}.
+ */
+public final class RequestTimeline implements RequestEventListener {
+
+    /**
+     * Name of the request property holding the timeline of the request.
+     */
+    public static final String PROPERTY = RequestTimeline.class.getName();
+
+    private final RequestMetrics metrics;
+
+    private long received;
+    private long dispatched;
+    private long constructed;
+    private long started;
+    private long matchingStarted;
+    private long matched;
+    private long filtered;
+    private long methodStarted;
+    private long methodFinished;
+    private long responseFiltersStarted;
+    private long responseFiltersFinished;
+    private long writeNanos;
+    private long serializationNanos;
+    private boolean serialized;
+
+    private String resource;
+    private long commitNanos = -1;
+    private boolean finished;
+
+    RequestTimeline(final RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Mark that the request is received by the HTTP server.
+     */
+    public void received() {
+        received = System.nanoTime();
+    }
+
+    /**
+     * Mark that the container starts to handle the request.
+     */
+    public void dispatched() {
+        dispatched = System.nanoTime();
+    }
+
+    /**
+     * Mark that the Jersey container request is constructed.
+     */
+    public void requestConstructed() {
+        constructed = System.nanoTime();
+    }
+
+    /**
+     * Record the time it took to commit the response.
+     *
+     * @param nanos duration of the commit in nanoseconds.
+     */
+    public synchronized void committed(final long nanos) {
+        if (finished) {
+            if (resource != null) {
+                metrics.record(resource, RequestStage.COMMIT, nanos);
+            }
+            metrics.record(null, RequestStage.COMMIT, nanos);
+        } else {
+            commitNanos = nanos;
+        }
+    }
+
+    /**
+     * Record the time it took to write the response entity, including writer interceptors.
+     *
+     * @param nanos duration in nanoseconds.
+     */
+    void written(final long nanos) {
+        writeNanos += nanos;
+    }
+
+    /**
+     * Record the time it took the message body writer to serialize the response entity.
+     *
+     * @param nanos duration in nanoseconds.
+     */
+    void serialized(final long nanos) {
+        serializationNanos += nanos;
+        serialized = true;
+    }
+
+    @Override
+    public void onEvent(final RequestEvent event) {
+        final long now = System.nanoTime();
+        switch (event.getType()) {
+            case START:
+                started = now;
+                break;
+            case MATCHING_START:
+                matchingStarted = now;
+                break;
+            case REQUEST_MATCHED:
+                matched = now;
+                break;
+            case REQUEST_FILTERED:
+                filtered = now;
+                break;
+            case RESOURCE_METHOD_START:
+                methodStarted = now;
+                break;
+            case RESOURCE_METHOD_FINISHED:
+                methodFinished = now;
+                break;
+            case RESP_FILTERS_START:
+                responseFiltersStarted = now;
+                break;
+            case RESP_FILTERS_FINISHED:
+                responseFiltersFinished = now;
+                break;
+            case FINISHED:
+                finished(getResource(event), now);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private synchronized void finished(final String resource, final long now) {
+        this.resource = resource;
+        this.finished = true;
+
+        record(RequestStage.DISPATCH, between(received, dispatched));
+        record(RequestStage.REQUEST_CONSTRUCTION, between(dispatched, constructed));
+        record(RequestStage.MATCHING, between(matchingStarted, matched));
+        if (matchingStarted != 0) {
+            record(RequestStage.FILTERS, Math.max(0, between(started, matchingStarted))
+                    + Math.max(0, between(matched, filtered))
+                    + Math.max(0, between(responseFiltersStarted, responseFiltersFinished))
+                    + Math.max(0, writeNanos - serializationNanos));
+        }
+        record(RequestStage.RESOURCE_METHOD, between(methodStarted, methodFinished));
+        record(RequestStage.SERIALIZATION, serialized ? serializationNanos : -1);
+        record(RequestStage.COMMIT, commitNanos);
+        record(RequestStage.TOTAL, between(first(received, dispatched, started), now));
+    }
+
+    private void record(final RequestStage stage, final long nanos) {
+        if (nanos >= 0) {
+            if (resource != null) {
+                metrics.record(resource, stage, nanos);
+            }
+            metrics.record(null, stage, nanos);
+        }
+    }
+
+    private static long between(final long from, final long to) {
+        return from == 0 || to == 0 ? -1 : to - from;
+    }
+
+    private static long first(final long... timestamps) {
+        for (final long timestamp : timestamps) {
+            if (timestamp != 0) {
+                return timestamp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Name of the matched resource method: the HTTP method and the path template, e.g. {@code GET /orders/{id}}.
+     *
+     * @param event request event.
+     * @return resource name, {@code null} if the request did not match a resource method.
+     */
+    private static String getResource(final RequestEvent event) {
+        final ExtendedUriInfo uriInfo = event.getUriInfo();
+        if (uriInfo == null || uriInfo.getMatchedResourceMethod() == null) {
+            return null;
+        }
+        final StringBuilder name = new StringBuilder(event.getContainerRequest().getMethod()).append(' ');
+        final int pathStart = name.length();
+        final List<UriTemplate> templates = uriInfo.getMatchedTemplates();
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            final String template = trimSlashes(templates.get(i).getTemplate());
+            if (!template.isEmpty()) {
+                name.append('/').append(template);
+            }
+        }
+        if (name.length() == pathStart) {
+            name.append('/');
+        }
+        return name.toString();
+    }
+
+    private static String trimSlashes(final String template) {
+        int start = 0;
+        int end = template.length();
+        while (start < end && template.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && template.charAt(end - 1) == '/') {
+            end--;
+        }
+        return template.substring(start, end);
+    }
+}
@@ -0,0 +1,27 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Innermost writer interceptor, measures the message body writer serializing the response entity.
+ */
+class SerializationTimingInterceptor implements WriterInterceptor {
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException, WebApplicationException {
+        final Object timeline = context.getProperty(RequestTimeline.PROPERTY);
+        if (!(timeline instanceof RequestTimeline)) {
+            context.proceed();
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            context.proceed();
+        } finally {
+            ((RequestTimeline) timeline).serialized(System.nanoTime() - start);
+        }
+    }
+}
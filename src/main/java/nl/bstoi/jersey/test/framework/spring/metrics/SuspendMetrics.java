@@ -0,0 +1,146 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the requests suspended by asynchronous resources, e.g. long-poll and server-sent event endpoints, of a
+ * test container:
+ * <pre>
+ * assertEquals(10000, getSuspendMetrics().getActive());
+ * </pre>
+ * A suspended request ends once: it is resumed, it expires because its timeout finished it (e.g. with 503 Service
+ * Unavailable), or the client closes the connection first. A timeout whose handler sets a new timeout does not end the
+ * request, so a request can time out more than once.
+ */
+public final class SuspendMetrics {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicLong suspended = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * @return number of requests that are suspended right now.
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return highest number of requests that were suspended at the same time.
+     */
+    public int getPeak() {
+        return peak.get();
+    }
+
+    /**
+     * @return number of requests that were suspended.
+     */
+    public long getSuspended() {
+        return suspended.get();
+    }
+
+    /**
+     * @return number of suspended requests that were resumed.
+     */
+    public long getResumed() {
+        return resumed.get();
+    }
+
+    /**
+     * @return number of timeouts of suspended requests.
+     */
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return number of suspended requests that were finished by their timeout instead of being resumed.
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * @return number of suspended requests whose connection was closed before they were resumed.
+     */
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Forget the counted requests, e.g. to measure a single test method when the container is reused. Requests that
+     * are suspended right now stay counted as active.
+     */
+    public void reset() {
+        peak.set(active.get());
+        suspended.set(0);
+        resumed.set(0);
+        timedOut.set(0);
+        expired.set(0);
+        cancelled.set(0);
+    }
+
+    /**
+     * Count a suspended request, called by the container.
+     */
+    public void suspended() {
+        suspended.incrementAndGet();
+        final int current = active.incrementAndGet();
+        int highest = peak.get();
+        while (current > highest && !peak.compareAndSet(highest, current)) {
+            highest = peak.get();
+        }
+    }
+
+    /**
+     * Count a resumed request, called by the container.
+     */
+    public void resumed() {
+        active.decrementAndGet();
+        resumed.incrementAndGet();
+    }
+
+    /**
+     * Count a timeout of a suspended request, called by the container.
+     */
+    public void timedOut() {
+        timedOut.incrementAndGet();
+    }
+
+    /**
+     * Count a suspended request finished by its timeout, called by the container. The timeout itself is counted with
+     * {@link #timedOut()}.
+     */
+    public void expired() {
+        active.decrementAndGet();
+        expired.incrementAndGet();
+    }
+
+    /**
+     * Count a suspended request whose connection was closed, called by the container.
+     */
+    public void cancelled() {
+        active.decrementAndGet();
+        cancelled.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("active", active.get())
+                .add("peak", peak.get())
+                .add("suspended", suspended.get())
+                .add("resumed", resumed.get())
+                .add("timedOut", timedOut.get())
+                .add("expired", expired.get())
+                .add("cancelled", cancelled.get())
+                .toString();
+    }
+}
@@ -0,0 +1,64 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation time of a Spring bean: instantiation, dependency injection and initialization. The total time includes
+ * creating the beans it depends on, the self time does not.
+ */
+public final class BeanTiming {
+
+    private final String name;
+    private final String type;
+    private final long nanos;
+    private final long selfNanos;
+
+    BeanTiming(final String name, final String type, final long nanos, final long selfNanos) {
+        this.name = name;
+        this.type = type;
+        this.nanos = nanos;
+        this.selfNanos = selfNanos;
+    }
+
+    /**
+     * @return name of the bean.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return class name of the bean.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return time it took to create the bean, including the beans it depends on.
+     */
+    public long getDuration(final TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return time it took to create the bean, excluding the beans it depends on.
+     */
+    public long getSelfDuration(final TimeUnit unit) {
+        return unit.convert(selfNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("type", type)
+                .add("nanos", nanos)
+                .add("selfNanos", selfNanos)
+                .toString();
+    }
+}
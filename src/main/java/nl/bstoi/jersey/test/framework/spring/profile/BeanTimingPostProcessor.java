@@ -0,0 +1,95 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Measures the creation of every Spring bean, from just before instantiation until after initialization. Beans that
+ * are created while creating another bean (its dependencies) are tracked on a per thread stack, so their time can be
+ * subtracted from the self time of the depending bean.
+ */
+class BeanTimingPostProcessor implements InstantiationAwareBeanPostProcessor {
+
+    private static class Creation {
+
+        private final String beanName;
+        private final long start = System.nanoTime();
+        private long dependencyNanos;
+
+        private Creation(final String beanName) {
+            this.beanName = beanName;
+        }
+    }
+
+    private final BootProfiler profiler;
+
+    private final ThreadLocal<Deque<Creation>> creations = new ThreadLocal<Deque<Creation>>() {
+        @Override
+        protected Deque<Creation> initialValue() {
+            return new ArrayDeque<Creation>();
+        }
+    };
+
+    BeanTimingPostProcessor(final BootProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(final Class<?> beanClass, final String beanName)
+            throws BeansException {
+        creations.get().push(new Creation(beanName));
+        return null;
+    }
+
+    @Override
+    public boolean postProcessAfterInstantiation(final Object bean, final String beanName) throws BeansException {
+        return true;
+    }
+
+    @Override
+    public PropertyValues postProcessPropertyValues(final PropertyValues pvs, final PropertyDescriptor[] pds,
+                                                    final Object bean, final String beanName)
+            throws BeansException {
+        return pvs;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(final Object bean, final String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+        final Deque<Creation> stack = creations.get();
+        if (!containsBean(stack, beanName)) {
+            // e.g. an object created by a factory bean, its creation is part of the factory bean
+            return bean;
+        }
+        Creation creation = stack.pop();
+        while (!creation.beanName.equals(beanName)) {
+            // the creation of this bean failed or was short-circuited
+            creation = stack.pop();
+        }
+        final long nanos = System.nanoTime() - creation.start;
+        if (!stack.isEmpty()) {
+            stack.peek().dependencyNanos += nanos;
+        }
+        profiler.recordBean(new BeanTiming(beanName, bean.getClass().getName(), nanos,
+                nanos - creation.dependencyNanos));
+        return bean;
+    }
+
+    private static boolean containsBean(final Deque<Creation> stack, final String beanName) {
+        for (final Creation creation : stack) {
+            if (creation.beanName.equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Splits the construction of the Jersey application handler in phases. Jersey signals the start of the
+ * initialization when the providers and resources are bound in the HK2 service locator, and the end when the resource
+ * model, routing and runtime are built.
+ */
+class BootEventListener implements ApplicationEventListener {
+
+    private final BootProfiler profiler;
+
+    BootEventListener(final BootProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        switch (event.getType()) {
+            case INITIALIZATION_START:
+                profiler.end(BootPhase.HK2_LOCATOR);
+                profiler.begin(BootPhase.RESOURCE_MODEL);
+                break;
+            case INITIALIZATION_APP_FINISHED:
+                profiler.end(BootPhase.RESOURCE_MODEL);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent requestEvent) {
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+/**
+ * Phases of booting a test container, in the order they take place.
+ */
+public enum BootPhase {
+
+    /**
+     * The {@code configure()} method of the test.
+     */
+    CONFIGURE(null),
+
+    /**
+     * Building the deployment context and resource config of the configured application.
+     */
+    DEPLOYMENT_CONTEXT(null),
+
+    /**
+     * Creating and refreshing the Spring application context, the creation time of every bean is recorded as well.
+     */
+    SPRING_CONTEXT_REFRESH(null),
+
+    /**
+     * Creating the test container, mostly the construction of the Jersey application handler.
+     */
+    APPLICATION_HANDLER(null),
+
+    /**
+     * Part of {@link #APPLICATION_HANDLER}: creating the HK2 service locator and binding the providers and resources.
+     */
+    HK2_LOCATOR(APPLICATION_HANDLER),
+
+    /**
+     * Part of {@link #APPLICATION_HANDLER}: building and validating the resource model, the routing and the runtime.
+     */
+    RESOURCE_MODEL(APPLICATION_HANDLER),
+
+    /**
+     * Starting the test container, for the Grizzly container the start of the HTTP server and the listener bind. For a
+     * container booted in the background the time the test waits for the boot to finish.
+     */
+    SERVER_START(null);
+
+    private final BootPhase parent;
+
+    BootPhase(final BootPhase parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return the phase this phase is part of, {@code null} for a top level phase.
+     */
+    public BootPhase getParent() {
+        return parent;
+    }
+}
@@ -0,0 +1,176 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report of the boot of a test container: the duration of every measured {@link BootPhase phase} and the creation time
+ * of every Spring bean. The report is available as JSON through {@link #toJson()} and as text summary, slowest phases
+ * and beans first, through {@link #toString()}.
+ */
+public final class BootProfile {
+
+    private static final Comparator<Map.Entry<BootPhase, Long>> SLOWEST_PHASE_FIRST =
+            new Comparator<Map.Entry<BootPhase, Long>>() {
+                @Override
+                public int compare(final Map.Entry<BootPhase, Long> first, final Map.Entry<BootPhase, Long> second) {
+                    return second.getValue().compareTo(first.getValue());
+                }
+            };
+
+    private static final Comparator<BeanTiming> SLOWEST_BEAN_FIRST = new Comparator<BeanTiming>() {
+        @Override
+        public int compare(final BeanTiming first, final BeanTiming second) {
+            final long firstNanos = first.getSelfDuration(TimeUnit.NANOSECONDS);
+            final long secondNanos = second.getSelfDuration(TimeUnit.NANOSECONDS);
+            return firstNanos < secondNanos ? 1 : firstNanos == secondNanos ? 0 : -1;
+        }
+    };
+
+    private static final int SUMMARY_BEANS = 20;
+
+    private final String name;
+    private final Map<BootPhase, Long> durations;
+    private final List<BeanTiming> beans;
+
+    BootProfile(final String name, final Map<BootPhase, Long> durations, final List<BeanTiming> beans) {
+        this.name = name;
+        this.durations = Maps.immutableEnumMap(durations);
+        final List<BeanTiming> sorted = Lists.newArrayList(beans);
+        Collections.sort(sorted, SLOWEST_BEAN_FIRST);
+        this.beans = ImmutableList.copyOf(sorted);
+    }
+
+    /**
+     * @return name of the profiled boot, e.g. the test class.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return measured phases and their durations in nanoseconds, in boot order.
+     */
+    public Map<BootPhase, Long> getPhases() {
+        return durations;
+    }
+
+    /**
+     * @param phase boot phase.
+     * @param unit  time unit of the result.
+     * @return duration of the phase, {@code -1} if the phase is not measured.
+     */
+    public long getDuration(final BootPhase phase, final TimeUnit unit) {
+        final Long nanos = durations.get(phase);
+        return nanos == null ? -1 : unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit of the result.
+     * @return sum of the measured top level phases.
+     */
+    public long getTotal(final TimeUnit unit) {
+        return unit.convert(getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return creation times of the Spring beans, largest self time first.
+     */
+    public List<BeanTiming> getBeanTimings() {
+        return beans;
+    }
+
+    private long getTotalNanos() {
+        long total = 0;
+        for (final Map.Entry<BootPhase, Long> phase : durations.entrySet()) {
+            if (phase.getKey().getParent() == null) {
+                total += phase.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the report as JSON, durations in milliseconds.
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\n  \"name\": ");
+        appendJsonString(json, name);
+        json.append(",\n  \"totalMillis\": ").append(millis(getTotalNanos()));
+        json.append(",\n  \"phases\": [");
+        String separator = "\n    ";
+        for (final Map.Entry<BootPhase, Long> phase : durations.entrySet()) {
+            json.append(separator).append("{\"phase\": \"").append(phase.getKey()).append('"');
+            if (phase.getKey().getParent() != null) {
+                json.append(", \"parent\": \"").append(phase.getKey().getParent()).append('"');
+            }
+            json.append(", \"millis\": ").append(millis(phase.getValue())).append('}');
+            separator = ",\n    ";
+        }
+        json.append(durations.isEmpty() ? "]" : "\n  ]");
+        json.append(",\n  \"beans\": [");
+        separator = "\n    ";
+        for (final BeanTiming bean : beans) {
+            json.append(separator).append("{\"name\": ");
+            appendJsonString(json, bean.getName());
+            json.append(", \"type\": ");
+            appendJsonString(json, bean.getType());
+            json.append(", \"millis\": ").append(millis(bean.getDuration(TimeUnit.NANOSECONDS)))
+                    .append(", \"selfMillis\": ").append(millis(bean.getSelfDuration(TimeUnit.NANOSECONDS)))
+                    .append('}');
+            separator = ",\n    ";
+        }
+        json.append(beans.isEmpty() ? "]" : "\n  ]");
+        return json.append("\n}\n").toString();
+    }
+
+    private static void appendJsonString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder summary = new StringBuilder("BootProfile ").append(name)
+                .append(" (milliseconds): total ").append(millis(getTotalNanos()));
+        final List<Map.Entry<BootPhase, Long>> phases = Lists.newArrayList(durations.entrySet());
+        Collections.sort(phases, SLOWEST_PHASE_FIRST);
+        for (final Map.Entry<BootPhase, Long> phase : phases) {
+            summary.append("\n  ").append(phase.getKey()).append(' ').append(millis(phase.getValue()));
+            if (phase.getKey().getParent() != null) {
+                summary.append(" (part of ").append(phase.getKey().getParent()).append(')');
+            }
+        }
+        if (!beans.isEmpty()) {
+            summary.append("\nSlowest beans (self / total):");
+            for (final BeanTiming bean : beans.subList(0, Math.min(SUMMARY_BEANS, beans.size()))) {
+                summary.append("\n  ").append(bean.getName()).append(' ')
+                        .append(millis(bean.getSelfDuration(TimeUnit.NANOSECONDS))).append(" / ")
+                        .append(millis(bean.getDuration(TimeUnit.NANOSECONDS)));
+            }
+        }
+        return summary.toString();
+    }
+}
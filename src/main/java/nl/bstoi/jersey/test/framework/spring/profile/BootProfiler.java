@@ -0,0 +1,92 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import com.google.common.collect.Lists;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the durations of the {@link BootPhase phases} of booting a test container. Phases are marked by the test,
+ * by Jersey through an application event listener and by Spring through a bean post processor, possibly on different
+ * threads.
+ */
+public final class BootProfiler {
+
+    private final String name;
+
+    private final Map<BootPhase, Long> started = new EnumMap<BootPhase, Long>(BootPhase.class);
+    private final Map<BootPhase, Long> durations = new EnumMap<BootPhase, Long>(BootPhase.class);
+    private final List<BeanTiming> beans = Lists.newArrayList();
+
+    /**
+     * @param name name of the profiled boot, e.g. the test class.
+     */
+    public BootProfiler(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Mark the start of a phase.
+     *
+     * @param phase boot phase.
+     */
+    public synchronized void begin(final BootPhase phase) {
+        started.put(phase, System.nanoTime());
+    }
+
+    /**
+     * Mark the end of a phase, ignored if the start of the phase is not marked.
+     *
+     * @param phase boot phase.
+     */
+    public synchronized void end(final BootPhase phase) {
+        final Long start = started.remove(phase);
+        if (start != null) {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the duration of a phase, a phase that takes place more than once is summed.
+     *
+     * @param phase boot phase.
+     * @param nanos duration in nanoseconds.
+     */
+    public synchronized void record(final BootPhase phase, final long nanos) {
+        final Long recorded = durations.get(phase);
+        durations.put(phase, recorded == null ? nanos : recorded + nanos);
+    }
+
+    synchronized void recordBean(final BeanTiming bean) {
+        beans.add(bean);
+    }
+
+    /**
+     * Mark the phases of the construction of the Jersey application handler of an application.
+     *
+     * @param configuration configuration of the application.
+     */
+    public void register(final ResourceConfig configuration) {
+        configuration.register(new BootEventListener(this));
+    }
+
+    /**
+     * Bean post processor recording the creation time of every bean, to be added to the bean factory before the
+     * Spring application context is refreshed.
+     *
+     * @return bean post processor.
+     */
+    public BeanPostProcessor getBeanPostProcessor() {
+        return new BeanTimingPostProcessor(this);
+    }
+
+    /**
+     * @return report of the phases recorded so far.
+     */
+    public synchronized BootProfile getProfile() {
+        return new BootProfile(name, durations, beans);
+    }
+}
@@ -0,0 +1,58 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+
+import javax.ws.rs.core.Application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncBootTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.CONTAINER_ASYNC_BOOT);
+        // the profiler refreshes the Spring context itself, which has to happen on the boot thread as well
+        enable(SpringTestProperties.BOOT_PROFILE);
+        set(SpringTestProperties.CONTAINER_PORT_STRATEGY, PortAllocationStrategy.EPHEMERAL.name().toLowerCase());
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test
+    public void springContextIsRefreshedInTheBackground() {
+        final GreetingService greetingService = getSpringApplicationContext().getBean(GreetingService.class);
+
+        assertTrue(greetingService.getCreatingThread(),
+                greetingService.getCreatingThread().startsWith("spring-test-container-boot-"));
+        assertEquals("Hello async", target("greeting/async").request().get(String.class));
+    }
+
+    @Test
+    public void bootFailureIsOnlyReportedByTheTest() {
+        final Result result = JUnitCore.runClasses(FailingBootTest.class);
+
+        assertEquals(1, result.getFailureCount());
+        assertTrue(result.getFailures().get(0).getException() instanceof BeanDefinitionStoreException);
+    }
+
+    public static class FailingBootTest extends SpringContextJerseyTest {
+
+        @Override
+        protected Application configure() {
+            enable(SpringTestProperties.CONTAINER_ASYNC_BOOT);
+            set(SpringTestProperties.CONTAINER_PORT_STRATEGY, PortAllocationStrategy.EPHEMERAL.name().toLowerCase());
+            return new ResourceConfig(GreetingResource.class)
+                    .property(SpringContexts.CONTEXT_CONFIG_LOCATION, "missing-applicationContext.xml");
+        }
+
+        @Test
+        public void get() {
+            target("greeting/async").request().get(String.class);
+        }
+    }
+}
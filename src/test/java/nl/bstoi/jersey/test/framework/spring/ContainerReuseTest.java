@@ -0,0 +1,80 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.cache.SpringTestContainerCache;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.AfterClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ContainerReuseTest extends SpringContextJerseyTest {
+
+    private static Counter firstCounter;
+
+    @AfterClass
+    public static void shutDownReusedContainer() {
+        // frees the fixed port for the following test classes
+        SpringTestContainerCache.getInstance().clear();
+    }
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.CONTAINER_REUSE);
+        return new ResourceConfig(CountingResource.class)
+                .property("contextConfig", new AnnotationConfigApplicationContext(Counter.class));
+    }
+
+    @Test
+    public void a_firstTestBootsTheContainer() {
+        firstCounter = getSpringApplicationContext().getBean(Counter.class);
+
+        assertEquals("1", target("count").request().get(String.class));
+    }
+
+    @Test
+    public void b_secondTestReusesTheRunningContainer() {
+        assertNotNull(firstCounter);
+        assertSame(firstCounter, getSpringApplicationContext().getBean(Counter.class));
+        assertEquals("2", target("count").request().get(String.class));
+        assertEquals(1, SpringTestContainerCache.getInstance().size());
+    }
+
+    /**
+     * Spring bean counting the requests it served.
+     */
+    public static class Counter {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        public int increment() {
+            return count.incrementAndGet();
+        }
+    }
+
+    @Path("count")
+    public static class CountingResource {
+
+        @Autowired
+        private Counter counter;
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String count() {
+            return String.valueOf(counter.increment());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import com.google.common.collect.ImmutableMap;
+import nl.bstoi.jersey.test.framework.spring.cache.ContextRebuilds;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.ws.rs.core.Application;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DirtiesSpringContextTest extends SpringContextJerseyTest {
+
+    private static ConfigurableApplicationContext dirtied;
+
+    @Override
+    protected Application configure() {
+        set(SpringTestProperties.CONTAINER_POOL_SIZE, 2);
+        enable(SpringTestProperties.CONTEXT_CACHE);
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test
+    @DirtiesSpringContext("greeting replaced")
+    public void a_dirtiesTheSharedContext() {
+        dirtied = (ConfigurableApplicationContext) SpringContexts.unwrap(getSpringApplicationContext());
+        getSpringApplicationContext().getBean(GreetingService.class).setGreeting("Bye");
+
+        assertEquals("Bye pool", target("greeting/pool").request().get(String.class));
+    }
+
+    @Test
+    public void b_otherPooledContainersAreDiscardedWithTheContext() throws InterruptedException {
+        assertNotNull(dirtied);
+        assertNotSame(dirtied, SpringContexts.unwrap(getSpringApplicationContext()));
+        // a pooled container still booting when the context was dirtied releases it once it is started and stopped
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (dirtied.isActive() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertFalse(dirtied.isActive());
+        assertEquals("Hello pool", target("greeting/pool").request().get(String.class));
+        assertEquals(ImmutableMap.of("greeting replaced", 1),
+                ContextRebuilds.getInstance().getCountsByReason(DirtiesSpringContextTest.class));
+    }
+}
@@ -0,0 +1,30 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.TestProperties;
+import org.junit.Test;
+
+import javax.ws.rs.core.Application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EphemeralPortTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        set(SpringTestProperties.CONTAINER_PORT_STRATEGY, "ephemeral");
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test
+    public void clientUsesThePortPickedByTheOperatingSystem() {
+        assertTrue(getPort() > 0);
+        assertNotEquals(TestProperties.DEFAULT_CONTAINER_PORT, getPort());
+        assertEquals(getPort(), getBaseUri().getPort());
+        assertEquals(getPort(), target().getUri().getPort());
+
+        assertEquals("Hello ephemeral", target("greeting/ephemeral").request().get(String.class));
+    }
+}
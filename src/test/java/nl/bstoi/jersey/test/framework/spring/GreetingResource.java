@@ -0,0 +1,26 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Resource greeting with the {@link GreetingService} Spring bean.
+ */
+@Path("greeting")
+public class GreetingResource {
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @GET
+    @Path("{name}")
+    @Produces(MediaType.TEXT_PLAIN)
+    public String greet(@PathParam("name") final String name) {
+        return greetingService.greet(name);
+    }
+}
@@ -0,0 +1,25 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+/**
+ * Spring bean used by the test resources.
+ */
+public class GreetingService {
+
+    private final String creatingThread = Thread.currentThread().getName();
+    private volatile String greeting = "Hello";
+
+    /**
+     * @return name of the thread that created the bean, i.e. refreshed the application context.
+     */
+    public String getCreatingThread() {
+        return creatingThread;
+    }
+
+    public String greet(final String name) {
+        return greeting + " " + name;
+    }
+
+    public void setGreeting(final String greeting) {
+        this.greeting = greeting;
+    }
+}
@@ -0,0 +1,42 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+import static org.junit.Assert.assertTrue;
+
+public class GrizzlyIOStrategyPropertyTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        set(SpringTestProperties.GRIZZLY_IO_STRATEGY, "same_thread");
+        set(SpringTestProperties.GRIZZLY_SELECTOR_RUNNERS, 1);
+        return new ResourceConfig(ThreadResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+    }
+
+    @Test
+    public void ioStrategyIsTakenFromTheTestProperties() {
+        final String threadName = target("thread").request().get(String.class);
+
+        assertTrue(threadName, threadName.contains("SelectorRunner"));
+    }
+
+    @Path("thread")
+    public static class ThreadResource {
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            return Thread.currentThread().getName();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.core.Application;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Http2Test extends SpringContextJerseyTest {
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(Charsets.US_ASCII);
+
+    private static final int HEADERS = 1;
+    private static final int SETTINGS = 4;
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.HTTP2);
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test(timeout = 10000)
+    public void testClientSpeaksHttp2() {
+        assertEquals("Hello h2c", target("greeting/h2c").request().get(String.class));
+    }
+
+    @Test(timeout = 30000)
+    public void serverSpeaksHttp2WithPriorKnowledge() throws IOException {
+        // a new connection for each request, OkHttp flushes the preface on its own
+        for (int i = 0; i < 20; i++) {
+            final OkHttpClient client = new OkHttpClient.Builder()
+                    .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                    .build();
+            final Response response = client.newCall(new Request.Builder()
+                    .url(getBaseUri().resolve("greeting/prior").toString())
+                    .header("Accept", "text/plain")
+                    .build()).execute();
+            try {
+                assertEquals(Protocol.H2_PRIOR_KNOWLEDGE, response.protocol());
+                assertEquals(200, response.code());
+                assertEquals("Hello prior", response.body().string());
+            } finally {
+                response.close();
+                client.dispatcher().executorService().shutdown();
+                client.connectionPool().evictAll();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void prefaceReadOnItsOwnIsAnsweredWithHttp2() throws IOException, InterruptedException {
+        final URI uri = getBaseUri().resolve("greeting/preface");
+        final Socket socket = new Socket(uri.getHost(), uri.getPort());
+        try {
+            socket.setTcpNoDelay(true);
+            final OutputStream output = socket.getOutputStream();
+            output.write(PREFACE);
+            output.flush();
+            TimeUnit.MILLISECONDS.sleep(100);
+            writeFrame(output, SETTINGS, 0, 0, new byte[0]);
+            writeFrame(output, HEADERS, 0x5, 1, requestHeaders(uri));
+            output.flush();
+
+            final DataInputStream input = new DataInputStream(socket.getInputStream());
+            assertEquals("server preface", SETTINGS, readFrame(input));
+            int type;
+            while ((type = readFrame(input)) == SETTINGS) {
+                // acknowledgement of the client settings
+            }
+            assertEquals(HEADERS, type);
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Encode GET request headers with HPACK literals that are not indexed.
+     */
+    private static byte[] requestHeaders(final URI uri) throws IOException {
+        final ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        // :method GET, :scheme http
+        headers.write(0x82);
+        headers.write(0x86);
+        writeLiteral(headers, 4, uri.getRawPath());
+        writeLiteral(headers, 1, uri.getHost() + ":" + uri.getPort());
+        return headers.toByteArray();
+    }
+
+    private static void writeLiteral(final ByteArrayOutputStream headers, final int nameIndex, final String value)
+            throws IOException {
+        final byte[] bytes = value.getBytes(Charsets.US_ASCII);
+        headers.write(nameIndex);
+        headers.write(bytes.length);
+        headers.write(bytes);
+    }
+
+    private static void writeFrame(final OutputStream output, final int type, final int flags, final int streamId,
+                                   final byte[] payload) throws IOException {
+        output.write(new byte[]{0, 0, (byte) payload.length, (byte) type, (byte) flags, 0, 0, 0, (byte) streamId});
+        output.write(payload);
+    }
+
+    /**
+     * Read a frame, an HTTP/1.1 response is read as a frame of an unknown type.
+     *
+     * @return type of the frame.
+     */
+    private static int readFrame(final DataInputStream input) throws IOException {
+        final byte[] header = new byte[9];
+        input.readFully(header);
+        final int length = ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff);
+        assertTrue("frame length " + length, length <= 16384);
+        ByteStreams.skipFully(input, length);
+        return header[3];
+    }
+}
@@ -0,0 +1,99 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainerFactory;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+
+import javax.ws.rs.core.Application;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests whose container factory creates containers implementing only {@link SpringTestContainer}, not
+ * {@link nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer}.
+ */
+public class PlainSpringTestContainerTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.CLIENT_POOL);
+        enable(SpringTestProperties.REQUEST_METRICS);
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Override
+    protected SpringTestContainerFactory getTestContainerFactory() {
+        return new SpringTestContainerFactory() {
+
+            @Override
+            public SpringTestContainer create(final URI baseUri, final DeploymentContext deploymentContext) {
+                return new PlainSpringTestContainer(
+                        new SpringGrizzlyTestContainerFactory().create(baseUri, deploymentContext));
+            }
+        };
+    }
+
+    @Test
+    public void requestsUseAClientOfTheTest() {
+        assertEquals("Hello first", target("greeting/first").request().get(String.class));
+        assertEquals("Hello second", target("greeting/second").request().get(String.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void reloadIsNotSupported() {
+        reloadResources(GreetingResource.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requestMetricsAreNotAvailable() {
+        getRequestMetrics();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void suspendMetricsAreNotAvailable() {
+        getSuspendMetrics();
+    }
+
+    /**
+     * Test container that hides the optional methods of the container it delegates to.
+     */
+    private static class PlainSpringTestContainer implements SpringTestContainer {
+
+        private final SpringTestContainer delegate;
+
+        private PlainSpringTestContainer(final SpringTestContainer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ApplicationContext getApplicationContext() {
+            return delegate.getApplicationContext();
+        }
+
+        @Override
+        public ClientConfig getClientConfig() {
+            return delegate.getClientConfig();
+        }
+
+        @Override
+        public URI getBaseUri() {
+            return delegate.getBaseUri();
+        }
+
+        @Override
+        public void start() {
+            delegate.start();
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+    }
+}
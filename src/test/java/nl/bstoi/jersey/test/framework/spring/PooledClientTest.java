@@ -0,0 +1,39 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PooledClientTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.CLIENT_POOL);
+        set(SpringTestProperties.CLIENT_POOL_MAX_CONNECTIONS_PER_ROUTE, 1);
+        set(SpringTestProperties.CLIENT_POOL_LEASE_TIMEOUT, 200);
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test(timeout = 10000)
+    public void requestFailsWhenThePoolIsExhausted() {
+        final Response unread = target("greeting/first").request().get();
+        try {
+            target("greeting/second").request().get(String.class);
+            fail("Expected the connection lease to time out");
+        } catch (ProcessingException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ConnectionPoolTimeoutException);
+        } finally {
+            unread.close();
+        }
+
+        assertEquals("Hello third", target("greeting/third").request().get(String.class));
+    }
+}
@@ -0,0 +1,31 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.core.Application;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PooledContainerTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        set(SpringTestProperties.CONTAINER_POOL_SIZE, 2);
+        enable(SpringTestProperties.CONTEXT_CACHE);
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test
+    public void leasedContainerServesRequests() {
+        assertEquals("Hello pool", target("greeting/pool").request().get(String.class));
+    }
+
+    @Test
+    public void leasedContainerUsesTheCachedContext() {
+        assertTrue(SpringContexts.isNonClosingView(getSpringApplicationContext()));
+        assertEquals("Hello cache", target("greeting/cache").request().get(String.class));
+    }
+}
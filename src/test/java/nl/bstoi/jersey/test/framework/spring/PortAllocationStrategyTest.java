@@ -0,0 +1,72 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PortAllocationStrategyTest {
+
+    @Test
+    public void fixedUsesTheConfiguredPort() {
+        assertEquals(9998, PortAllocationStrategy.FIXED.allocate(9998, 3, 100));
+    }
+
+    @Test
+    public void ephemeralLetsTheOperatingSystemPick() {
+        assertEquals(0, PortAllocationStrategy.EPHEMERAL.allocate(9998, 3, 100));
+    }
+
+    @Test
+    public void rangeStaysWithinTheRangeOfTheFork() {
+        final int rangeStart = freePort() + 2 * 10;
+        for (int i = 0; i < 20; i++) {
+            final int port = PortAllocationStrategy.RANGE.allocate(rangeStart - 2 * 10, 2, 10);
+            assertTrue(String.valueOf(port), port >= rangeStart && port < rangeStart + 10);
+        }
+    }
+
+    @Test
+    public void rangeSkipsPortsInUse() throws IOException {
+        final ServerSocket socket = new ServerSocket();
+        try {
+            socket.bind(new InetSocketAddress(0));
+            final int port = socket.getLocalPort();
+            // a range of two ports, the first one is in use
+            for (int i = 0; i < 4; i++) {
+                assertEquals(port + 1, PortAllocationStrategy.RANGE.allocate(port, 0, 2));
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test(expected = TestContainerException.class)
+    public void rangeFailsWhenEveryPortIsInUse() throws IOException {
+        final ServerSocket socket = new ServerSocket();
+        try {
+            socket.bind(new InetSocketAddress(0));
+            PortAllocationStrategy.RANGE.allocate(socket.getLocalPort(), 0, 1);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static int freePort() {
+        try {
+            final ServerSocket socket = new ServerSocket(0);
+            try {
+                return socket.getLocalPort();
+            } finally {
+                socket.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.inmemory.SpringInMemoryTestContainerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReloadResourcesTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(CurrentResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext(Version.class));
+    }
+
+    @Test
+    public void reloadedResourcesUseTheRunningSpringContext() {
+        final Version version = getSpringApplicationContext().getBean(Version.class);
+        version.setName("2.0");
+        assertEquals("current 2.0", target("version").request().get(String.class));
+
+        reloadResources(LegacyResource.class);
+
+        assertEquals("legacy 2.0", target("version").request().get(String.class));
+        assertSame(version, getSpringApplicationContext().getBean(Version.class));
+    }
+
+    @Test
+    public void reloadReplacesTheResources() {
+        reloadResources(LegacyResource.class, NextResource.class);
+
+        assertEquals("legacy 1.0", target("version").request().get(String.class));
+        assertEquals("next 1.0", target("v2/version").request().get(String.class));
+    }
+
+    @Test
+    public void inMemoryContainerKeepsTheSpringContext() {
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Version.class);
+        final ExtendedSpringTestContainer container = (ExtendedSpringTestContainer)
+                new SpringInMemoryTestContainerFactory().create(URI.create("http://localhost/"), DeploymentContext.builder(
+                        new ResourceConfig(CurrentResource.class).property(SpringContexts.CONTEXT_CONFIG, context)).build());
+        container.start();
+        final Client client = ClientBuilder.newClient(container.getClientConfig());
+        try {
+            container.reload(new ResourceConfig(LegacyResource.class), true);
+
+            assertEquals("legacy 1.0", client.target(container.getBaseUri()).path("version").request()
+                    .get(String.class));
+            assertSame(context.getBean(Version.class), container.getApplicationContext().getBean(Version.class));
+            assertTrue(context.isActive());
+        } finally {
+            client.close();
+            container.stop();
+        }
+    }
+
+    /**
+     * Spring bean kept over a reload.
+     */
+    public static class Version {
+
+        private volatile String name = "1.0";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    @Path("version")
+    public static class CurrentResource {
+
+        @Autowired
+        private Version version;
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            return "current " + version.getName();
+        }
+    }
+
+    @Path("version")
+    public static class LegacyResource {
+
+        @Autowired
+        private Version version;
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            return "legacy " + version.getName();
+        }
+    }
+
+    @Path("v2/version")
+    public static class NextResource {
+
+        @Autowired
+        private Version version;
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            return "next " + version.getName();
+        }
+    }
+}
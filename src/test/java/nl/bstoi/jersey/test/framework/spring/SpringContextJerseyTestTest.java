@@ -0,0 +1,23 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.core.Application;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpringContextJerseyTestTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(GreetingResource.class);
+    }
+
+    @Test
+    public void exposesTheSpringApplicationContext() {
+        getSpringApplicationContext().getBean(GreetingService.class).setGreeting("Hi");
+
+        assertEquals("Hi Jersey", target("greeting/Jersey").request().get(String.class));
+    }
+}
@@ -0,0 +1,78 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestPropertiesSnapshotTest {
+
+    private static final String SYSTEM_PROPERTY = "nl.bstoi.jersey.test.snapshot.system";
+
+    private static final Map<String, String> NONE = ImmutableMap.of();
+
+    @After
+    public void clearSystemProperty() {
+        System.clearProperty(SYSTEM_PROPERTY);
+    }
+
+    @Test
+    public void forcedPropertiesWinOverSystemProperties() {
+        System.setProperty(SYSTEM_PROPERTY, "system");
+
+        final TestPropertiesSnapshot snapshot = TestPropertiesSnapshot.resolve(
+                ImmutableMap.of(SYSTEM_PROPERTY, "forced"), ImmutableMap.of(SYSTEM_PROPERTY, "set"));
+
+        assertEquals("forced", snapshot.get(SYSTEM_PROPERTY));
+    }
+
+    @Test
+    public void systemPropertiesWinOverSetProperties() {
+        System.setProperty(SYSTEM_PROPERTY, "system");
+
+        final TestPropertiesSnapshot snapshot = TestPropertiesSnapshot.resolve(NONE,
+                ImmutableMap.of(SYSTEM_PROPERTY, "set"));
+
+        assertEquals("system", snapshot.get(SYSTEM_PROPERTY));
+        assertEquals(ImmutableMap.of(SYSTEM_PROPERTY, "system"), snapshot.getConfiguredProperties());
+    }
+
+    @Test
+    public void systemPropertiesChangedLaterAreNotSeen() {
+        final TestPropertiesSnapshot snapshot = TestPropertiesSnapshot.resolve(NONE, NONE);
+
+        System.setProperty(SYSTEM_PROPERTY, "true");
+
+        assertNull(snapshot.get(SYSTEM_PROPERTY));
+        assertFalse(snapshot.isEnabled(SYSTEM_PROPERTY));
+    }
+
+    @Test
+    public void configuredPropertiesAreTheSortedSetAndForcedProperties() {
+        System.setProperty(SYSTEM_PROPERTY, "system");
+
+        final TestPropertiesSnapshot snapshot = TestPropertiesSnapshot.resolve(ImmutableMap.of("b", "forced"),
+                ImmutableMap.of("c", "set", "a", "set"));
+
+        assertEquals(ImmutableList.of("a", "b", "c"), snapshot.getConfiguredProperties().keySet().asList());
+        assertEquals("system", snapshot.get(SYSTEM_PROPERTY));
+    }
+
+    @Test
+    public void integerPropertiesFallBackToTheDefault() {
+        final TestPropertiesSnapshot snapshot = TestPropertiesSnapshot.resolve(NONE,
+                ImmutableMap.of("valid", " 42 ", "invalid", "many", "enabled", "true"));
+
+        assertEquals(42, snapshot.getInt("valid", 1));
+        assertEquals(1, snapshot.getInt("invalid", 1));
+        assertEquals(1, snapshot.getInt("missing", 1));
+        assertTrue(snapshot.isEnabled("enabled"));
+    }
+}
@@ -0,0 +1,69 @@
+package nl.bstoi.jersey.test.framework.spring;
+
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.core.Application;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestPropertiesTest extends SpringContextJerseyTest {
+
+    private static final String FEATURE = "nl.bstoi.jersey.test.properties.feature";
+    private static final String SYSTEM_FEATURE = "nl.bstoi.jersey.test.properties.system";
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig().property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+    }
+
+    @After
+    public void clearSystemProperty() {
+        System.clearProperty(SYSTEM_FEATURE);
+    }
+
+    @Test
+    public void enableAndDisableAreSeenByTheNextLookup() {
+        assertFalse(isEnabled(FEATURE));
+
+        enable(FEATURE);
+        assertTrue(isEnabled(FEATURE));
+
+        disable(FEATURE);
+        assertFalse(isEnabled(FEATURE));
+    }
+
+    @Test
+    public void setAndForcedValuesAreSeenByTheNextLookup() {
+        set(FEATURE, "true");
+        assertTrue(isEnabled(FEATURE));
+
+        forceDisable(FEATURE);
+        assertFalse(isEnabled(FEATURE));
+
+        forceEnable(FEATURE);
+        assertTrue(isEnabled(FEATURE));
+
+        forceSet(FEATURE, "false");
+        assertFalse(isEnabled(FEATURE));
+    }
+
+    @Test
+    public void systemPropertiesAreResolvedAgainAfterAPropertyIsSet() {
+        enable(SYSTEM_FEATURE);
+        assertTrue(isEnabled(SYSTEM_FEATURE));
+
+        System.setProperty(SYSTEM_FEATURE, "false");
+        assertTrue(isEnabled(SYSTEM_FEATURE));
+
+        set(FEATURE, "true");
+        assertFalse(isEnabled(SYSTEM_FEATURE));
+
+        forceEnable(SYSTEM_FEATURE);
+        assertTrue(isEnabled(SYSTEM_FEATURE));
+    }
+}
@@ -0,0 +1,110 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import nl.bstoi.jersey.test.framework.spring.GreetingResource;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ApplicationContextCacheTest {
+
+    private ApplicationContextCache cache;
+
+    @After
+    public void closeContexts() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void appliedViewsShareTheCachedContext() {
+        cache = new ApplicationContextCache(2);
+
+        final ApplicationContext first = apply(config("a"));
+        final ApplicationContext second = apply(config("a"));
+
+        assertNotSame(first, second);
+        assertSame(SpringContexts.unwrap(first), SpringContexts.unwrap(second));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void evictedContextIsClosedWhenTheLastViewIsReleased() {
+        cache = new ApplicationContextCache(2);
+        final ApplicationContext first = apply(config("a"));
+        final ApplicationContext second = apply(config("a"));
+        final ConfigurableApplicationContext cached = delegate(first);
+
+        assertTrue(cache.evict(first));
+        assertEquals(0, cache.size());
+        assertTrue(cached.isActive());
+
+        assertTrue(cache.release(first));
+        assertTrue(cached.isActive());
+        assertTrue(cache.release(second));
+        assertFalse(cached.isActive());
+    }
+
+    @Test
+    public void unreferencedContextIsEvictedBeforeAReferencedOne() {
+        cache = new ApplicationContextCache(2);
+        final ConfigurableApplicationContext referenced = delegate(apply(config("a")));
+        final ConfigurableApplicationContext unreferenced = (ConfigurableApplicationContext) cache.get(config("b"));
+
+        cache.get(config("c"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertFalse(unreferenced.isActive());
+        assertTrue(referenced.isActive());
+        assertSame(referenced, SpringContexts.unwrap(apply(config("a"))));
+    }
+
+    @Test
+    public void referencedContextIsEvictedWithoutClosingIt() {
+        cache = new ApplicationContextCache(1);
+        final ApplicationContext view = apply(config("a"));
+        final ConfigurableApplicationContext referenced = delegate(view);
+
+        cache.get(config("b"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(referenced.isActive());
+        assertTrue(cache.release(view));
+        assertFalse(referenced.isActive());
+    }
+
+    @Test
+    public void releaseIgnoresUnknownAndReleasedContexts() {
+        cache = new ApplicationContextCache(1);
+        final ApplicationContext view = apply(config("a"));
+
+        assertFalse(cache.release(null));
+        assertFalse(cache.release(SpringContexts.unwrap(view)));
+        assertTrue(cache.release(view));
+        assertFalse(cache.release(view));
+    }
+
+    private ApplicationContext apply(final ResourceConfig config) {
+        cache.apply(config);
+        return (ApplicationContext) config.getProperty(SpringContexts.CONTEXT_CONFIG);
+    }
+
+    private static ConfigurableApplicationContext delegate(final ApplicationContext view) {
+        return (ConfigurableApplicationContext) SpringContexts.unwrap(view);
+    }
+
+    private static ResourceConfig config(final String name) {
+        return new ResourceConfig(GreetingResource.class).property("test.name", name);
+    }
+}
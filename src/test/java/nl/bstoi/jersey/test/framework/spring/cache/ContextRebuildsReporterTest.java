@@ -0,0 +1,95 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Result;
+
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContextRebuildsReporterTest {
+
+    private final Logger logger = Logger.getLogger(ContextRebuilds.class.getName());
+    private final List<LogRecord> records = Lists.newCopyOnWriteArrayList();
+    private final Handler handler = new Handler() {
+
+        @Override
+        public void publish(final LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Before
+    public void addHandler() {
+        logger.addHandler(handler);
+    }
+
+    @After
+    public void removeHandler() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    public void logsTheCountsPerReasonOfTheWholeRun() {
+        final ContextRebuilds rebuilds = new ContextRebuilds();
+        rebuilds.record(String.class, "first", "bean replaced");
+        rebuilds.record(Integer.class, "second", "cache filled");
+        rebuilds.record(Integer.class, null, "bean replaced");
+
+        new ContextRebuildsReporter(rebuilds).testRunFinished(new Result());
+
+        final List<LogRecord> summaries = summaries();
+        assertEquals(1, summaries.size());
+        assertEquals(Level.INFO, summaries.get(0).getLevel());
+        assertEquals("Spring application contexts dirtied by tests 3 times: {bean replaced=2, cache filled=1}",
+                summaries.get(0).getMessage());
+    }
+
+    @Test
+    public void logsASingleRebuild() {
+        final ContextRebuilds rebuilds = new ContextRebuilds();
+        rebuilds.record(String.class, "first", "bean replaced");
+
+        new ContextRebuildsReporter(rebuilds).testRunFinished(new Result());
+
+        assertEquals("Spring application contexts dirtied by tests 1 time: {bean replaced=1}",
+                summaries().get(0).getMessage());
+    }
+
+    @Test
+    public void logsNothingWithoutRebuilds() {
+        final ContextRebuilds rebuilds = new ContextRebuilds();
+
+        new ContextRebuildsReporter(rebuilds).testRunFinished(new Result());
+
+        assertNull(rebuilds.getSummary());
+        assertTrue(summaries().isEmpty());
+    }
+
+    private List<LogRecord> summaries() {
+        final List<LogRecord> summaries = Lists.newArrayList();
+        for (final LogRecord record : records) {
+            if (record.getMessage().startsWith("Spring application contexts dirtied by tests")) {
+                summaries.add(record);
+            }
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,197 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.StubSpringTestContainer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SpringTestContainerCacheTest {
+
+    private final SpringTestContainerCache cache = new SpringTestContainerCache(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void clearCache() {
+        executor.shutdownNow();
+        cache.clear();
+    }
+
+    @Test(timeout = 10000)
+    public void idleContainerIsShutDownBeforeANewOneIsCreated() {
+        final ReusableSpringTestContainer first = cache.get(key("first"), new StubFactory());
+        first.start();
+        cache.release(first);
+        final StubSpringTestContainer firstDelegate = (StubSpringTestContainer) first.getDelegate();
+
+        cache.get(key("second"), new Supplier<SpringTestContainer>() {
+
+            @Override
+            public SpringTestContainer get() {
+                assertEquals(1, firstDelegate.getStops());
+                return new StubSpringTestContainer();
+            }
+        });
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test(timeout = 10000)
+    public void usedContainerIsShutDownWhenReleasedInsteadOfWhenTheCacheIsFull() {
+        final ReusableSpringTestContainer first = cache.get(key("first"), new StubFactory());
+        first.start();
+        final StubSpringTestContainer firstDelegate = (StubSpringTestContainer) first.getDelegate();
+
+        final ReusableSpringTestContainer second = cache.get(key("second"), new StubFactory());
+
+        assertEquals(0, firstDelegate.getStops());
+        assertEquals(2, cache.size());
+
+        cache.release(first);
+
+        assertEquals(1, firstDelegate.getStops());
+        assertEquals(1, cache.size());
+        assertSame(second, cache.get(key("second"), new StubFactory()));
+    }
+
+    @Test(timeout = 10000)
+    public void evictedUsedContainerIsShutDownWhenReleasedByTheLastTest() {
+        final StubFactory factory = new StubFactory();
+        final ReusableSpringTestContainer container = cache.get(key("evicted"), factory);
+        assertSame(container, cache.get(key("evicted"), factory));
+        container.start();
+
+        cache.evict(key("evicted"));
+        cache.release(container);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, factory.created.get(0).getStops());
+
+        cache.release(container);
+
+        assertEquals(1, factory.created.get(0).getStops());
+        assertNotSame(container, cache.get(key("evicted"), factory));
+    }
+
+    @Test(timeout = 10000)
+    public void containersOfOtherKeysAreCreatedWhileAContainerIsBooting() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch boot = new CountDownLatch(1);
+        final Future<ReusableSpringTestContainer> slow = executor.submit(new Callable<ReusableSpringTestContainer>() {
+
+            @Override
+            public ReusableSpringTestContainer call() {
+                return cache.get(key("slow"), new BlockingFactory(creating, boot));
+            }
+        });
+        assertTrue(creating.await(5, TimeUnit.SECONDS));
+
+        final ReusableSpringTestContainer fast = cache.get(key("fast"), new StubFactory());
+
+        assertFalse(slow.isDone());
+        boot.countDown();
+        assertNotSame(fast, slow.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testsOfTheSameKeyWaitForTheBootingContainer() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch boot = new CountDownLatch(1);
+        final BlockingFactory factory = new BlockingFactory(creating, boot);
+        final Callable<ReusableSpringTestContainer> get = new Callable<ReusableSpringTestContainer>() {
+
+            @Override
+            public ReusableSpringTestContainer call() {
+                return cache.get(key("shared"), factory);
+            }
+        };
+        final Future<ReusableSpringTestContainer> first = executor.submit(get);
+        assertTrue(creating.await(5, TimeUnit.SECONDS));
+        final Future<ReusableSpringTestContainer> second = executor.submit(get);
+
+        boot.countDown();
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, factory.created.size());
+    }
+
+    @Test(timeout = 10000)
+    public void failedCreationIsNotCached() {
+        final IllegalStateException failure = new IllegalStateException("boot failed");
+        try {
+            cache.get(key("failing"), new Supplier<SpringTestContainer>() {
+
+                @Override
+                public SpringTestContainer get() {
+                    throw failure;
+                }
+            });
+            fail("creation failure expected");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+
+        assertEquals(0, cache.size());
+        assertTrue(cache.get(key("failing"), new StubFactory()).getDelegate() instanceof StubSpringTestContainer);
+    }
+
+    private SpringTestContainerCache.Key key(final String name) {
+        return new SpringTestContainerCache.Key(getClass(), StubSpringTestContainer.class,
+                URI.create("http://localhost:0/" + name), Collections.<String, String>emptyMap());
+    }
+
+    private static class StubFactory implements Supplier<SpringTestContainer> {
+
+        final List<StubSpringTestContainer> created = Lists.newCopyOnWriteArrayList();
+
+        @Override
+        public SpringTestContainer get() {
+            final StubSpringTestContainer container = new StubSpringTestContainer();
+            created.add(container);
+            return container;
+        }
+    }
+
+    /**
+     * Factory whose creation blocks until the boot latch is released.
+     */
+    private static class BlockingFactory extends StubFactory {
+
+        private final CountDownLatch creating;
+        private final CountDownLatch boot;
+
+        private BlockingFactory(final CountDownLatch creating, final CountDownLatch boot) {
+            this.creating = creating;
+            this.boot = boot;
+        }
+
+        @Override
+        public SpringTestContainer get() {
+            creating.countDown();
+            try {
+                boot.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.get();
+        }
+    }
+}
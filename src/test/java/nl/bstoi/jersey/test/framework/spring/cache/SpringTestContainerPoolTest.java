@@ -0,0 +1,170 @@
+package nl.bstoi.jersey.test.framework.spring.cache;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.StubSpringTestContainer;
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SpringTestContainerPoolTest {
+
+    private final List<SpringTestContainerCache.Key> keys = Lists.newArrayList();
+
+    @After
+    public void evictPools() {
+        for (final SpringTestContainerCache.Key key : keys) {
+            SpringTestContainerPool.evict(key);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void leasesStartedContainers() {
+        final StubFactory factory = new StubFactory();
+        final SpringTestContainerPool pool = SpringTestContainerPool.get(key("lease"), 2, factory);
+
+        final SpringTestContainer first = pool.lease();
+        final SpringTestContainer second = pool.lease();
+        pool.release(first);
+
+        assertNotSame(first, second);
+        assertEquals(1, ((StubSpringTestContainer) first).getStarts());
+        assertSame(first, pool.lease());
+        assertEquals(3, pool.getLeaseCount());
+        assertEquals(2, factory.created.size());
+    }
+
+    @Test(timeout = 10000)
+    public void leaseFailsWhenNoContainerCanBoot() {
+        final IllegalStateException failure = new IllegalStateException("port in use");
+        final StubFactory factory = new StubFactory() {
+
+            @Override
+            StubSpringTestContainer newContainer() {
+                return super.newContainer().failStart(failure);
+            }
+        };
+        final SpringTestContainerPool pool = SpringTestContainerPool.get(key("failure"), 2, factory);
+
+        try {
+            pool.lease();
+            fail("Expected the lease to fail");
+        } catch (TestContainerException e) {
+            assertSame(failure, e.getCause());
+        }
+        for (final StubSpringTestContainer container : factory.created) {
+            assertEquals(1, container.getStops());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void containerStartedAfterShutdownIsStopped() throws Exception {
+        final CountDownLatch startBarrier = new CountDownLatch(1);
+        final StubFactory factory = new StubFactory() {
+
+            @Override
+            StubSpringTestContainer newContainer() {
+                return super.newContainer().blockStart(startBarrier);
+            }
+        };
+        final SpringTestContainerCache.Key key = key("booting");
+        final SpringTestContainerPool pool = SpringTestContainerPool.get(key, 1, factory);
+        final StubSpringTestContainer container = factory.awaitCreated();
+
+        SpringTestContainerPool.evict(key);
+        startBarrier.countDown();
+
+        while (container.getStops() == 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(1, container.getStarts());
+        assertTrue(pool.isShutdown());
+    }
+
+    @Test(timeout = 10000)
+    public void leasedContainerIsStoppedWhenReleasedAfterShutdown() {
+        final SpringTestContainerCache.Key key = key("leased");
+        final SpringTestContainerPool pool = SpringTestContainerPool.get(key, 1, new StubFactory());
+        final StubSpringTestContainer container = (StubSpringTestContainer) pool.lease();
+
+        SpringTestContainerPool.evict(key);
+        assertEquals(0, container.getStops());
+
+        pool.release(container);
+        assertEquals(1, container.getStops());
+    }
+
+    @Test(timeout = 10000)
+    public void discardedContainerIsReplaced() {
+        final StubFactory factory = new StubFactory();
+        final SpringTestContainerPool pool = SpringTestContainerPool.get(key("discard"), 1, factory);
+        final StubSpringTestContainer container = (StubSpringTestContainer) pool.lease();
+
+        pool.discard(container);
+
+        assertEquals(1, container.getStops());
+        assertNotSame(container, pool.lease());
+        assertEquals(2, factory.created.size());
+    }
+
+    @Test(timeout = 10000)
+    public void leastRecentlyUsedPoolIsShutDownWhenTheLimitIsExceeded() {
+        final SpringTestContainerPool eldest = SpringTestContainerPool.get(key("eldest"), 1, new StubFactory());
+        final StubSpringTestContainer container = (StubSpringTestContainer) eldest.lease();
+        eldest.release(container);
+
+        for (int i = 0; i < SpringTestProperties.DEFAULT_CONTAINER_POOL_LIMIT; i++) {
+            SpringTestContainerPool.get(key("pool-" + i), 1, new StubFactory());
+        }
+
+        assertTrue(eldest.isShutdown());
+        assertEquals(1, container.getStops());
+        assertFalse(SpringTestContainerPool.get(key("eldest"), 1, new StubFactory()) == eldest);
+    }
+
+    private SpringTestContainerCache.Key key(final String name) {
+        final SpringTestContainerCache.Key key = new SpringTestContainerCache.Key(getClass(),
+                StubSpringTestContainer.class, URI.create("http://localhost:0/" + name),
+                Collections.<String, String>emptyMap());
+        keys.add(key);
+        return key;
+    }
+
+    private static class StubFactory implements Supplier<SpringTestContainer> {
+
+        private final List<StubSpringTestContainer> created = Lists.newCopyOnWriteArrayList();
+
+        StubSpringTestContainer newContainer() {
+            return new StubSpringTestContainer();
+        }
+
+        @Override
+        public SpringTestContainer get() {
+            final StubSpringTestContainer container = newContainer();
+            created.add(container);
+            return container;
+        }
+
+        StubSpringTestContainer awaitCreated() throws InterruptedException {
+            while (created.isEmpty()) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            return created.get(0);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import nl.bstoi.jersey.test.framework.spring.profile.BootPhase;
+import nl.bstoi.jersey.test.framework.spring.profile.BootProfiler;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncSpringTestContainerFactoryTest {
+
+    private static final URI BASE_URI = URI.create("http://localhost:0/");
+
+    private final DeploymentContext context = DeploymentContext.builder(new ResourceConfig()).build();
+
+    @Test(timeout = 10000)
+    public void startDoesNotWaitForTheBackgroundBoot() {
+        final CountDownLatch bootBarrier = new CountDownLatch(1);
+        final StubSpringTestContainer stub = new StubSpringTestContainer();
+        final SpringTestContainer container = new AsyncSpringTestContainerFactory(new SpringTestContainerFactory() {
+
+            @Override
+            public SpringTestContainer create(final URI baseUri, final DeploymentContext deploymentContext) {
+                try {
+                    bootBarrier.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return stub;
+            }
+        }).create(BASE_URI, context);
+
+        container.start();
+        assertEquals(0, stub.getStarts());
+
+        bootBarrier.countDown();
+        assertEquals(stub.getBaseUri(), container.getBaseUri());
+        assertEquals(1, stub.getStarts());
+    }
+
+    @Test(timeout = 10000)
+    public void stoppedContainerIsStartedAgain() {
+        final StubSpringTestContainer stub = new StubSpringTestContainer();
+        final SpringTestContainer container = new AsyncSpringTestContainerFactory(factory(stub))
+                .create(BASE_URI, context);
+
+        container.start();
+        container.stop();
+        container.start();
+
+        assertEquals(1, stub.getStops());
+        assertEquals(2, stub.getStarts());
+    }
+
+    @Test(timeout = 10000)
+    public void bootFailureIsThrownOnFirstUse() {
+        final IllegalStateException failure = new IllegalStateException("port in use");
+        final SpringTestContainer container = new AsyncSpringTestContainerFactory(
+                factory(new StubSpringTestContainer().failStart(failure))).create(BASE_URI, context);
+
+        container.start();
+        try {
+            container.getBaseUri();
+            fail("Expected the boot failure");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void failedBootIsNotThrownAgainOnStop() {
+        final SpringTestContainer container = new AsyncSpringTestContainerFactory(
+                factory(new StubSpringTestContainer().failStart(new IllegalStateException("port in use"))))
+                .create(BASE_URI, context);
+
+        container.start();
+        assertTrue(AsyncSpringTestContainerFactory.isBootFailed(container));
+        container.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void waitForTheBootIsProfiledAsServerStart() throws InterruptedException {
+        final CountDownLatch bootBarrier = new CountDownLatch(1);
+        final StubSpringTestContainer stub = new StubSpringTestContainer().blockStart(bootBarrier);
+        final BootProfiler profiler = new BootProfiler("async");
+        final SpringTestContainer container = new AsyncSpringTestContainerFactory(factory(stub), profiler)
+                .create(BASE_URI, context);
+        container.start();
+
+        final Thread releaser = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                bootBarrier.countDown();
+            }
+        });
+        releaser.start();
+        container.getBaseUri();
+        releaser.join();
+
+        assertFalse(AsyncSpringTestContainerFactory.isBootFailed(container));
+        assertTrue(profiler.getProfile().getDuration(BootPhase.SERVER_START, TimeUnit.MILLISECONDS) >= 150);
+    }
+
+    private static SpringTestContainerFactory factory(final SpringTestContainer container) {
+        return new SpringTestContainerFactory() {
+
+            @Override
+            public SpringTestContainer create(final URI baseUri, final DeploymentContext deploymentContext) {
+                return container;
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver.GrizzlyTransportConfig;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class GracefulStopTest {
+
+    private static final int CONCURRENCY = 16;
+
+    private static volatile CountDownLatch release;
+
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+
+    @After
+    public void stopClients() {
+        release.countDown();
+        clients.shutdownNow();
+    }
+
+    @Test(timeout = 30000)
+    public void gracefulStopDrainsInFlightRequestsAndRefusesNewConnections() throws Exception {
+        drain(10);
+    }
+
+    @Test(timeout = 30000)
+    public void gracefulStopDrainsLargeResponses() throws Exception {
+        drain(4 * 1024 * 1024);
+    }
+
+    @Test(timeout = 30000)
+    public void gracefulStopWaitsForQueuedResponsesOfSlowClients() throws Exception {
+        // the clients do not read while the requests complete, so Grizzly still queues most of the responses
+        drain(4 * 1024 * 1024, 500);
+    }
+
+    private void drain(final int responseSize) throws Exception {
+        drain(responseSize, 0);
+    }
+
+    private void drain(final int responseSize, final long readDelayMillis) throws Exception {
+        release = new CountDownLatch(1);
+        final PausableTestContainer container = (PausableTestContainer) new SpringGrizzlyTestContainerFactory()
+                .create(URI.create("http://localhost:0/"), DeploymentContext.builder(new ResourceConfig(SlowResource.class)
+                        .property(StopPolicy.PROPERTY, StopPolicy.graceful(10, TimeUnit.SECONDS))
+                        .property(GrizzlyTransportConfig.PROPERTY, GrizzlyTransportConfig.builder()
+                                .workerPoolSize(CONCURRENCY, CONCURRENCY)
+                                .build())).build());
+        container.start();
+        final URI uri = container.getBaseUri().resolve("slow?size=" + responseSize);
+
+        final List<Future<Integer>> responses = Lists.newArrayList();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            responses.add(clients.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+                    final InputStream entity = connection.getInputStream();
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(readDelayMillis);
+                        return (int) ByteStreams.copy(entity, ByteStreams.nullOutputStream());
+                    } finally {
+                        entity.close();
+                    }
+                }
+            }));
+        }
+        while (container.getInFlightRequests() < CONCURRENCY) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        final Future<?> stopped = clients.submit(new Runnable() {
+
+            @Override
+            public void run() {
+                container.stop();
+            }
+        });
+        awaitRefusedConnections(uri);
+        assertFalse(stopped.isDone());
+
+        release.countDown();
+        for (final Future<Integer> response : responses) {
+            assertEquals(responseSize, (int) response.get());
+        }
+        stopped.get();
+    }
+
+    private static void awaitRefusedConnections(final URI uri) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            final Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()), 1000);
+            } catch (ConnectException e) {
+                return;
+            } catch (IOException e) {
+                // retry
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        fail("The stopping container still accepts connections");
+    }
+
+    @Path("slow")
+    public static class SlowResource {
+
+        @GET
+        public String get(@QueryParam("size") final int size) throws InterruptedException {
+            release.await();
+            return Strings.repeat("x", size);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.test.spi.TestContainerException;
+import org.springframework.context.ApplicationContext;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test container without a server, counting how often it is started and stopped.
+ */
+public class StubSpringTestContainer implements SpringTestContainer {
+
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicInteger stops = new AtomicInteger();
+    private volatile CountDownLatch startBarrier;
+    private volatile RuntimeException startFailure;
+
+    /**
+     * Block {@link #start()} until the latch is released.
+     *
+     * @param startBarrier latch the start waits for.
+     * @return this container.
+     */
+    public StubSpringTestContainer blockStart(final CountDownLatch startBarrier) {
+        this.startBarrier = startBarrier;
+        return this;
+    }
+
+    /**
+     * Fail {@link #start()} with the given exception.
+     *
+     * @param startFailure exception thrown by the start.
+     * @return this container.
+     */
+    public StubSpringTestContainer failStart(final RuntimeException startFailure) {
+        this.startFailure = startFailure;
+        return this;
+    }
+
+    public int getStarts() {
+        return starts.get();
+    }
+
+    public int getStops() {
+        return stops.get();
+    }
+
+    @Override
+    public ClientConfig getClientConfig() {
+        return null;
+    }
+
+    @Override
+    public URI getBaseUri() {
+        return URI.create("http://localhost:0/");
+    }
+
+    @Override
+    public void start() {
+        final CountDownLatch barrier = startBarrier;
+        if (barrier != null) {
+            try {
+                barrier.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TestContainerException(e);
+            }
+        }
+        if (startFailure != null) {
+            throw startFailure;
+        }
+        starts.incrementAndGet();
+    }
+
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public ApplicationContext getApplicationContext() {
+        return null;
+    }
+}
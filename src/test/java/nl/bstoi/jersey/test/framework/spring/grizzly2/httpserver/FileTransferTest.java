@@ -0,0 +1,236 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.jersey.message.GZipEncoder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.filter.EncodingFilter;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileTransferTest {
+
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+
+    private static File file;
+    private static byte[] content;
+
+    private SpringTestContainer container;
+
+    @BeforeClass
+    public static void createFile() throws IOException {
+        content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        file = File.createTempFile("file-transfer", ".bin");
+        Files.write(content, file);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @After
+    public void stopContainer() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void sendsTheCompleteFile() throws IOException {
+        final HttpURLConnection connection = open(start(new ResourceConfig()), null);
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("bytes", connection.getHeaderField("Accept-Ranges"));
+        // Grizzly sets the length of a file transfer, a copied entity is chunked
+        assertEquals(String.valueOf(FILE_SIZE), connection.getHeaderField("Content-Length"));
+        assertArrayEquals(content, read(connection.getInputStream()));
+    }
+
+    @Test(timeout = 30000)
+    public void answersByteRanges() throws IOException {
+        final URI uri = start(new ResourceConfig());
+
+        HttpURLConnection connection = open(uri, "bytes=100-199");
+        assertEquals(206, connection.getResponseCode());
+        assertEquals("bytes 100-199/" + FILE_SIZE, connection.getHeaderField("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), read(connection.getInputStream()));
+
+        connection = open(uri, "bytes=-10");
+        assertEquals(206, connection.getResponseCode());
+        assertArrayEquals(Arrays.copyOfRange(content, FILE_SIZE - 10, FILE_SIZE), read(connection.getInputStream()));
+
+        connection = open(uri, "bytes=" + FILE_SIZE + "-");
+        assertEquals(416, connection.getResponseCode());
+        assertEquals("bytes */" + FILE_SIZE, connection.getHeaderField("Content-Range"));
+    }
+
+    @Test(timeout = 30000)
+    public void encodedResponsesAreCopiedThroughTheWriterInterceptors() throws IOException {
+        final ResourceConfig configuration = new ResourceConfig();
+        EncodingFilter.enableFor(configuration, GZipEncoder.class);
+        final HttpURLConnection connection = open(start(configuration), null);
+        connection.setRequestProperty("Accept-Encoding", "gzip, identity;q=0.5");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertArrayEquals(content, read(new GZIPInputStream(connection.getInputStream())));
+    }
+
+    @Test(timeout = 120000)
+    public void connectionIsRenewedBeforeGrizzlyMiscountsItsWriteQueue() throws IOException {
+        final URI uri = start(new ResourceConfig());
+        final byte[] request = ("GET " + uri.getPath() + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(Charsets.US_ASCII);
+        int connections = 0;
+        Socket socket = null;
+        try {
+            InputStream responses = null;
+            // more than 2 GB, the most Grizzly can transfer over one connection
+            for (int i = 0; i < 300; i++) {
+                if (socket == null) {
+                    socket = new Socket(uri.getHost(), uri.getPort());
+                    socket.setSoTimeout(10000);
+                    responses = new BufferedInputStream(socket.getInputStream());
+                    connections++;
+                }
+                socket.getOutputStream().write(request);
+                assertEquals("HTTP/1.1 200 OK", readLine(responses));
+                final Map<String, String> headers = Maps.newHashMap();
+                for (String header = readLine(responses); !header.isEmpty(); header = readLine(responses)) {
+                    final int colon = header.indexOf(':');
+                    headers.put(header.substring(0, colon).toLowerCase(Locale.ROOT),
+                            header.substring(colon + 1).trim());
+                }
+                assertEquals(FILE_SIZE, headers.containsKey("content-length")
+                        ? skip(responses, FILE_SIZE) : skipChunked(responses));
+                if ("close".equalsIgnoreCase(headers.get("connection"))) {
+                    socket.close();
+                    socket = null;
+                }
+            }
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+        assertEquals(2, connections);
+    }
+
+    @Test
+    public void sendfileIsOnlyEnabledForApplicationsWithFileTransfer() throws Exception {
+        final URI uri = URI.create("http://localhost:0/");
+        final HttpServer plain = SpringGrizzlyHttpServerFactory.createHttpServer(uri,
+                new ResourceConfig(FileResource.class), false);
+        // left to the Grizzly default, NetworkListener.isSendFileEnabled() fails when it is not configured
+        final Field sendFileEnabled = NetworkListener.class.getDeclaredField("sendFileEnabled");
+        sendFileEnabled.setAccessible(true);
+        assertNull(sendFileEnabled.get(plain.getListener("grizzly")));
+
+        final HttpServer withFileTransfer = SpringGrizzlyHttpServerFactory.createHttpServer(uri,
+                new ResourceConfig(FileResource.class).register(FileTransferFeature.class), false);
+        assertTrue(withFileTransfer.getListener("grizzly").isSendFileEnabled());
+    }
+
+    private URI start(final ResourceConfig configuration) {
+        configuration.register(FileTransferFeature.class).register(FileResource.class);
+        container = new SpringGrizzlyTestContainerFactory().create(URI.create("http://localhost:0/"),
+                DeploymentContext.builder(configuration).build());
+        container.start();
+        return container.getBaseUri().resolve("file");
+    }
+
+    private static HttpURLConnection open(final URI uri, final String range) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setReadTimeout(10000);
+        if (range != null) {
+            connection.setRequestProperty("Range", range);
+        }
+        return connection;
+    }
+
+    private static String readLine(final InputStream response) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = response.read()) != '\n') {
+            if (c == -1) {
+                throw new EOFException("Connection closed by the server");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static long skip(final InputStream response, final int length) throws IOException {
+        ByteStreams.skipFully(response, length);
+        return length;
+    }
+
+    private static long skipChunked(final InputStream response) throws IOException {
+        long length = 0;
+        for (int chunk = Integer.parseInt(readLine(response), 16); chunk > 0;
+             chunk = Integer.parseInt(readLine(response), 16)) {
+            ByteStreams.skipFully(response, chunk);
+            readLine(response);
+            length += chunk;
+        }
+        readLine(response);
+        return length;
+    }
+
+    private static byte[] read(final InputStream entity) throws IOException {
+        try {
+            return ByteStreams.toByteArray(entity);
+        } finally {
+            entity.close();
+        }
+    }
+
+    @Path("file")
+    public static class FileResource {
+
+        @GET
+        @Produces(MediaType.APPLICATION_OCTET_STREAM)
+        public File get() {
+            return file;
+        }
+    }
+}
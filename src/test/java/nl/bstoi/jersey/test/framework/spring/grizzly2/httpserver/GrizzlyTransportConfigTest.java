@@ -0,0 +1,245 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.collect.Lists;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.MediaType;
+import java.net.URI;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GrizzlyTransportConfigTest {
+
+    private SpringTestContainer container;
+    private Client client;
+
+    @Before
+    public void createClient() {
+        client = ClientBuilder.newClient();
+    }
+
+    @After
+    public void stopContainer() {
+        client.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    public void everyIOStrategyServesRequests() {
+        for (final GrizzlyIOStrategy ioStrategy : GrizzlyIOStrategy.values()) {
+            start(GrizzlyTransportConfig.builder().ioStrategy(ioStrategy).selectorRunners(1).build());
+
+            assertFalse(ioStrategy.name(), getThreadName().isEmpty());
+            container.stop();
+            container = null;
+        }
+    }
+
+    @Test
+    public void sameThreadStrategyRunsResourcesOnTheSelectorThread() {
+        start(GrizzlyTransportConfig.builder().ioStrategy(GrizzlyIOStrategy.SAME_THREAD).build());
+
+        final String threadName = getThreadName();
+        assertTrue(threadName, threadName.contains("SelectorRunner"));
+    }
+
+    @Test
+    public void workerThreadStrategyRunsResourcesOnAWorkerThread() {
+        start(GrizzlyTransportConfig.builder().ioStrategy(GrizzlyIOStrategy.WORKER_THREAD).workerPoolSize(1, 1)
+                .build());
+
+        final String threadName = getThreadName();
+        assertFalse(threadName, threadName.contains("nio-kernel"));
+        assertEquals(threadName, getThreadName());
+    }
+
+    @Test
+    public void configuresTheTransport() {
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+
+        GrizzlyTransportConfig.builder()
+                .ioStrategy(GrizzlyIOStrategy.WORKER_THREAD)
+                .selectorRunners(3)
+                .workerPoolSize(2, 4)
+                .workerQueueLimit(100)
+                .build()
+                .configure(transport);
+
+        assertSame(WorkerThreadIOStrategy.getInstance(), transport.getIOStrategy());
+        assertEquals(3, transport.getSelectorRunnersCount());
+        final ThreadPoolConfig workerPoolConfig = transport.getWorkerThreadPoolConfig();
+        assertEquals(2, workerPoolConfig.getCorePoolSize());
+        assertEquals(4, workerPoolConfig.getMaxPoolSize());
+        assertEquals(100, workerPoolConfig.getQueueLimit());
+    }
+
+    @Test
+    public void sameThreadStrategyHasNoWorkerPool() {
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+
+        GrizzlyTransportConfig.builder().ioStrategy(GrizzlyIOStrategy.SAME_THREAD).workerPoolSize(2, 4).build()
+                .configure(transport);
+
+        assertSame(SameThreadIOStrategy.getInstance(), transport.getIOStrategy());
+        assertNull(transport.getWorkerThreadPoolConfig());
+    }
+
+    @Test
+    public void unsetValuesKeepTheDefaults() {
+        assertTrue(GrizzlyTransportConfig.builder().build().isDefault());
+        assertFalse(GrizzlyTransportConfig.builder().selectorRunners(1).build().isDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsACorePoolLargerThanTheMaximum() {
+        GrizzlyTransportConfig.builder().workerPoolSize(4, 2).build();
+    }
+
+    @Test
+    public void virtualThreadsAreSupportedFromJava21() {
+        final String version = System.getProperty("java.specification.version");
+        final int major = Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+
+        assertEquals(major >= 21, VirtualThreads.isSupported());
+    }
+
+    @Test
+    public void virtualThreadsRevertToTheWorkerPoolBeforeJava21() {
+        Assume.assumeFalse(VirtualThreads.isSupported());
+        final List<LogRecord> records = Lists.newCopyOnWriteArrayList();
+        final Handler handler = new Handler() {
+
+            @Override
+            public void publish(final LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(GrizzlyTransportConfig.class.getName());
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+        logger.addHandler(handler);
+        try {
+            GrizzlyTransportConfig.builder().virtualThreads(true).workerPoolSize(2, 4).build().configure(transport);
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        assertEquals(1, records.size());
+        assertEquals(Level.WARNING, records.get(0).getLevel());
+        assertTrue(records.get(0).getMessage(), records.get(0).getMessage().contains("worker thread pool"));
+        assertNull(transport.getWorkerThreadPool());
+        assertEquals(2, transport.getWorkerThreadPoolConfig().getCorePoolSize());
+        assertEquals(4, transport.getWorkerThreadPoolConfig().getMaxPoolSize());
+    }
+
+    @Test
+    public void virtualThreadsReplaceTheWorkerPoolFromJava21() {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
+
+        GrizzlyTransportConfig.builder().virtualThreads(true).workerPoolSize(2, 4).build().configure(transport);
+
+        assertNull(transport.getWorkerThreadPoolConfig());
+        assertNotNull(transport.getWorkerThreadPool());
+        transport.getWorkerThreadPool().shutdown();
+    }
+
+    @Test
+    public void virtualThreadsServeRequestsFromJava21() {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+        start(GrizzlyTransportConfig.builder().virtualThreads(true).build());
+
+        assertEquals("true", client.target(container.getBaseUri()).path("thread/virtual").request()
+                .get(String.class));
+    }
+
+    @Test
+    public void virtualThreadsAcceptTheWorkerThreadStrategy() {
+        assertTrue(GrizzlyTransportConfig.builder().ioStrategy(GrizzlyIOStrategy.WORKER_THREAD).virtualThreads(true)
+                .build().isVirtualThreads());
+    }
+
+    @Test
+    public void virtualThreadsRejectOtherIOStrategies() {
+        for (final GrizzlyIOStrategy ioStrategy : GrizzlyIOStrategy.values()) {
+            if (ioStrategy == GrizzlyIOStrategy.WORKER_THREAD) {
+                continue;
+            }
+            try {
+                GrizzlyTransportConfig.builder().ioStrategy(ioStrategy).virtualThreads(true).build();
+                fail("Expected virtual threads to be rejected with " + ioStrategy);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(ioStrategy.name()));
+            }
+        }
+    }
+
+    private void start(final GrizzlyTransportConfig transportConfig) {
+        final ResourceConfig configuration = new ResourceConfig(ThreadResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+        container = new SpringGrizzlyTestContainerFactory(transportConfig).create(URI.create("http://localhost:0/"),
+                DeploymentContext.builder(configuration).build());
+        container.start();
+    }
+
+    private String getThreadName() {
+        return client.target(container.getBaseUri()).path("thread").request().get(String.class);
+    }
+
+    @Path("thread")
+    public static class ThreadResource {
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get() {
+            return Thread.currentThread().getName();
+        }
+
+        @GET
+        @Path("virtual")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String isVirtual() throws Exception {
+            // Thread.isVirtual() exists from Java 21, the tests are compiled for older versions
+            return String.valueOf(Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+        }
+    }
+}
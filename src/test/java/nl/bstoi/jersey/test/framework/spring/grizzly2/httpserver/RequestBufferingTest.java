@@ -0,0 +1,163 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RequestBufferingTest {
+
+    private static final int MEMORY_THRESHOLD = 64 * 1024;
+
+    private static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+    private SpringTestContainer container;
+    private URI uri;
+
+    @Before
+    public void startContainer() {
+        INVOCATIONS.set(0);
+        final ResourceConfig configuration = new ResourceConfig(EchoResource.class);
+        RequestBuffering.register(configuration, RequestBuffering.buffered(MEMORY_THRESHOLD));
+        container = new SpringGrizzlyTestContainerFactory().create(URI.create("http://localhost:0/"),
+                DeploymentContext.builder(configuration).build());
+        container.start();
+        uri = container.getBaseUri().resolve("echo");
+    }
+
+    @After
+    public void stopContainer() {
+        container.stop();
+    }
+
+    @Test(timeout = 30000)
+    public void entityWithinTheThresholdIsKeptInMemory() throws IOException {
+        final byte[] entity = entity(MEMORY_THRESHOLD / 2);
+
+        assertArrayEquals(entity, post(entity, false));
+    }
+
+    @Test(timeout = 30000)
+    public void largerEntityIsSpilledToAFileThatIsDeletedAfterwards() throws IOException {
+        final File tempDir = new File(System.getProperty("java.io.tmpdir"));
+        final int filesBefore = requestEntityFiles(tempDir);
+        final byte[] entity = entity(4 * 1024 * 1024);
+
+        assertArrayEquals(entity, post(entity, false));
+        assertEquals(filesBefore, requestEntityFiles(tempDir));
+    }
+
+    @Test(timeout = 30000)
+    public void chunkedEntityIsReceivedCompletely() throws IOException {
+        final byte[] entity = entity(MEMORY_THRESHOLD * 3);
+
+        assertArrayEquals(entity, post(entity, true));
+    }
+
+    @Test(timeout = 30000)
+    public void requestIsDispatchedOnceTheEntityIsReceived() throws IOException, InterruptedException {
+        final byte[] entity = entity(1000);
+        final Socket socket = new Socket(uri.getHost(), uri.getPort());
+        try {
+            socket.setSoTimeout(10000);
+            final OutputStream output = socket.getOutputStream();
+            output.write(("POST " + uri.getPath() + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Type: application/octet-stream\r\nContent-Length: " + entity.length + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(Charsets.US_ASCII));
+            output.write(entity, 0, 500);
+            output.flush();
+            TimeUnit.MILLISECONDS.sleep(300);
+            assertEquals(0, INVOCATIONS.get());
+
+            output.write(entity, 500, 500);
+            output.flush();
+            final BufferedReader response = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    Charsets.US_ASCII));
+            assertEquals("HTTP/1.1 200 OK", response.readLine());
+            assertEquals(1, INVOCATIONS.get());
+        } finally {
+            socket.close();
+        }
+    }
+
+    private byte[] post(final byte[] entity, final boolean chunked) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setReadTimeout(10000);
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", MediaType.APPLICATION_OCTET_STREAM);
+        if (chunked) {
+            connection.setChunkedStreamingMode(8192);
+        } else {
+            connection.setFixedLengthStreamingMode(entity.length);
+        }
+        final OutputStream output = connection.getOutputStream();
+        try {
+            output.write(entity);
+        } finally {
+            output.close();
+        }
+        assertEquals(200, connection.getResponseCode());
+        final InputStream response = connection.getInputStream();
+        try {
+            return ByteStreams.toByteArray(response);
+        } finally {
+            response.close();
+        }
+    }
+
+    private static byte[] entity(final int length) {
+        final byte[] entity = new byte[length];
+        new Random(length).nextBytes(entity);
+        return entity;
+    }
+
+    private static int requestEntityFiles(final File dir) {
+        final String[] names = dir.list();
+        int count = 0;
+        for (final String name : names == null ? new String[0] : names) {
+            if (name.startsWith("request-entity") && name.endsWith(".tmp")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Path("echo")
+    public static class EchoResource {
+
+        @POST
+        @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+        @Produces(MediaType.APPLICATION_OCTET_STREAM)
+        public byte[] echo(final byte[] entity) {
+            INVOCATIONS.incrementAndGet();
+            return entity;
+        }
+    }
+}
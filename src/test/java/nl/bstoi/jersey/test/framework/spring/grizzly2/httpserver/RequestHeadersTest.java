@@ -0,0 +1,120 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestHeadersTest extends SpringContextJerseyTest {
+
+    /**
+     * A header repeated with different cases and two cookie headers, sent as is, the Jersey client would merge them.
+     */
+    private static final String HEADERS = "X-Trace: one\r\n"
+            + "x-trace: two\r\n"
+            + "X-TRACE: three\r\n"
+            + "Cookie: first=1\r\n"
+            + "cookie: second=2\r\n";
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(HeadersResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+    }
+
+    @Test
+    public void headerStringJoinsTheRepeatedHeadersInOrder() throws IOException {
+        assertEquals("one,two,three", get("/headers/string"));
+    }
+
+    @Test
+    public void requestHeaderListsTheRepeatedHeadersInOrder() throws IOException {
+        assertEquals("[one, two, three] [one, two, three]", get("/headers/list"));
+    }
+
+    @Test
+    public void headerParamSeesEveryValue() throws IOException {
+        assertEquals("[one, two, three]", get("/headers/param"));
+    }
+
+    @Test
+    public void cookiesOfEveryCookieHeaderAreSeen() throws IOException {
+        assertEquals("{first=1, second=2} 1 2", get("/headers/cookies"));
+    }
+
+    /**
+     * Send a request with the given headers as is.
+     */
+    private String get(final String requestTarget) throws IOException {
+        final URI baseUri = target().getUri();
+        final Socket socket = new Socket(baseUri.getHost(), baseUri.getPort());
+        try {
+            final OutputStream out = socket.getOutputStream();
+            out.write(("GET " + requestTarget + " HTTP/1.0\r\nHost: " + baseUri.getHost() + ":" + baseUri.getPort()
+                    + "\r\n" + HEADERS + "\r\n").getBytes(Charsets.US_ASCII));
+            out.flush();
+            final String response = new String(ByteStreams.toByteArray(socket.getInputStream()), Charsets.UTF_8);
+            assertEquals(response, "HTTP/1.1 200 OK", response.substring(0, response.indexOf("\r\n")));
+            return response.substring(response.indexOf("\r\n\r\n") + 4);
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Path("headers")
+    @Produces(MediaType.TEXT_PLAIN)
+    public static class HeadersResource {
+
+        @Context
+        private HttpHeaders headers;
+
+        @GET
+        @Path("string")
+        public String getHeaderString() {
+            return headers.getHeaderString("x-Trace");
+        }
+
+        @GET
+        @Path("list")
+        public String getRequestHeader() {
+            return headers.getRequestHeader("X-Trace") + " " + headers.getRequestHeaders().get("x-trace");
+        }
+
+        @GET
+        @Path("param")
+        public String getHeaderParam(@HeaderParam("X-Trace") final List<String> values) {
+            return values.toString();
+        }
+
+        @GET
+        @Path("cookies")
+        public String getCookies(@CookieParam("first") final String first, @CookieParam("second") final String second) {
+            final TreeMap<String, String> cookies = new TreeMap<String, String>();
+            for (final String name : headers.getCookies().keySet()) {
+                cookies.put(name, headers.getCookies().get(name).getValue());
+            }
+            return cookies + " " + first + " " + second;
+        }
+    }
+}
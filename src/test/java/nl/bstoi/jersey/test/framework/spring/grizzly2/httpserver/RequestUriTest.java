@@ -0,0 +1,102 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestUriTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(UriResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+    }
+
+    @Test
+    public void keepsAnEncodedPathAndQuery() throws IOException {
+        assertEquals("/uri/a%20b?q=%C3%A9&n=1 a b é", get("/uri/a%20b?q=%C3%A9&n=1"));
+    }
+
+    @Test
+    public void keepsAPlainPathWithoutQuery() throws IOException {
+        assertEquals("/uri/plain plain null", get("/uri/plain"));
+    }
+
+    @Test
+    public void encodesAPathThatIsNotAValidUri() throws IOException {
+        assertEquals("/uri/a%7Cb?q=x a|b x", get("/uri/a|b?q=x"));
+    }
+
+    @Test
+    public void rebuildsTheBaseUriForAnotherHost() throws IOException {
+        final int port = target().getUri().getPort();
+
+        assertEquals("http://localhost:" + port + "/", get("/uri/base", "localhost"));
+        assertEquals("http://127.0.0.1:" + port + "/", get("/uri/base", "127.0.0.1"));
+        assertEquals("http://localhost:" + port + "/", get("/uri/base", "localhost"));
+    }
+
+    private String get(final String requestTarget) throws IOException {
+        return get(requestTarget, target().getUri().getHost());
+    }
+
+    /**
+     * Send a request with the given request target as is, the Jersey client would encode it.
+     */
+    private String get(final String requestTarget, final String host) throws IOException {
+        final URI baseUri = target().getUri();
+        final Socket socket = new Socket(baseUri.getHost(), baseUri.getPort());
+        try {
+            final OutputStream out = socket.getOutputStream();
+            out.write(("GET " + requestTarget + " HTTP/1.0\r\nHost: " + host + ":" + baseUri.getPort() + "\r\n\r\n")
+                    .getBytes(Charsets.US_ASCII));
+            out.flush();
+            final String response = new String(ByteStreams.toByteArray(socket.getInputStream()), Charsets.UTF_8);
+            assertEquals(response, "HTTP/1.1 200 OK", response.substring(0, response.indexOf("\r\n")));
+            return response.substring(response.indexOf("\r\n\r\n") + 4);
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Path("uri")
+    public static class UriResource {
+
+        @GET
+        @Path("base")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String getBaseUri(@Context final UriInfo uriInfo) {
+            return uriInfo.getBaseUri().toString();
+        }
+
+        @GET
+        @Path("{segment}")
+        @Produces(MediaType.TEXT_PLAIN + ";charset=UTF-8")
+        public String get(@Context final UriInfo uriInfo, @PathParam("segment") final String segment,
+                          @QueryParam("q") final String query) {
+            final URI requestUri = uriInfo.getRequestUri();
+            return requestUri.getRawPath() + (requestUri.getRawQuery() == null ? "" : "?" + requestUri.getRawQuery())
+                    + " " + segment + " " + query;
+        }
+    }
+}
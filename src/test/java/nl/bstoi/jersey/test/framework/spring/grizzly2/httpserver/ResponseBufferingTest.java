@@ -0,0 +1,115 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainer;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResponseBufferingTest {
+
+    private SpringTestContainer container;
+
+    @After
+    public void stopContainer() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    public void smallEntitiesHaveAContentLengthByDefault() throws IOException {
+        start(ResponseBuffering.defaults());
+
+        final HttpURLConnection connection = get(100);
+        assertEquals("100", connection.getHeaderField("Content-Length"));
+        assertNull(connection.getHeaderField("Transfer-Encoding"));
+        assertEquals(100, read(connection).length());
+    }
+
+    @Test
+    public void streamingSendsChunkedEntitiesWithoutContentLength() throws IOException {
+        start(ResponseBuffering.streaming());
+
+        final HttpURLConnection connection = get(100);
+        assertNull(connection.getHeaderField("Content-Length"));
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        assertEquals(Strings.repeat("x", 100), read(connection));
+    }
+
+    @Test
+    public void entitiesAboveTheThresholdAreChunked() throws IOException {
+        start(ResponseBuffering.buffered(64));
+
+        final HttpURLConnection small = get(64);
+        assertEquals("64", small.getHeaderField("Content-Length"));
+        assertEquals(64, read(small).length());
+
+        final HttpURLConnection large = get(65);
+        assertNull(large.getHeaderField("Content-Length"));
+        assertEquals("chunked", large.getHeaderField("Transfer-Encoding"));
+        assertEquals(65, read(large).length());
+    }
+
+    @Test
+    public void outputBufferSizeDoesNotChangeTheEntity() throws IOException {
+        start(ResponseBuffering.streaming().withOutputBufferSize(16));
+
+        assertEquals(Strings.repeat("x", 1000), read(get(1000)));
+    }
+
+    private void start(final ResponseBuffering buffering) {
+        final ResourceConfig configuration = new ResourceConfig(EntityResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+        ResponseBuffering.register(configuration, buffering);
+        container = new SpringGrizzlyTestContainerFactory().create(URI.create("http://localhost:0/"),
+                DeploymentContext.builder(configuration).build());
+        container.start();
+    }
+
+    private HttpURLConnection get(final int length) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) container.getBaseUri()
+                .resolve("entity/" + length).toURL().openConnection();
+        assertEquals(200, connection.getResponseCode());
+        return connection;
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        final InputStream in = connection.getInputStream();
+        try {
+            return new String(ByteStreams.toByteArray(in), Charsets.US_ASCII);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Path("entity")
+    public static class EntityResource {
+
+        @GET
+        @Path("{length}")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get(@PathParam("length") final int length) {
+            return Strings.repeat("x", length);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import nl.bstoi.jersey.test.framework.spring.grizzly.ExtendedSpringTestContainer;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringGrizzlyTestContainerFactory;
+import nl.bstoi.jersey.test.framework.spring.metrics.SuspendMetrics;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SuspendTimeoutTest {
+
+    private ExtendedSpringTestContainer container;
+    private Client client;
+
+    @Before
+    public void createClient() {
+        client = ClientBuilder.newClient();
+    }
+
+    @After
+    public void stopContainer() {
+        client.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void timedOutRequestIsCountedOnce() {
+        start(new ResourceConfig(SuspendedResource.class));
+
+        assertEquals(503, get("expire").getStatus());
+        assertEquals("resumed by timeout", get("resume").readEntity(String.class));
+        assertEquals("resumed", get("resumed").readEntity(String.class));
+
+        final SuspendMetrics metrics = container.getSuspendMetrics();
+        assertEquals(3, metrics.getSuspended());
+        assertEquals(2, metrics.getTimedOut());
+        assertEquals(2, metrics.getExpired());
+        assertEquals(1, metrics.getResumed());
+        assertEquals(0, metrics.getCancelled());
+        assertEquals(0, metrics.getActive());
+    }
+
+    @Test(timeout = 10000)
+    public void timeoutHandlerDoesNotRunOnTheTimerThreadWithoutWorkerThreads() {
+        final GrizzlyTransportConfig sameThread = GrizzlyTransportConfig.builder()
+                .ioStrategy(GrizzlyIOStrategy.SAME_THREAD).build();
+        start(new ResourceConfig(SuspendedResource.class).property(GrizzlyTransportConfig.PROPERTY, sameThread));
+
+        final String thread = get("thread").readEntity(String.class);
+        assertFalse(thread, thread.startsWith("suspend-timer"));
+        assertEquals(503, get("expire").getStatus());
+        assertEquals(2, container.getSuspendMetrics().getExpired());
+    }
+
+    private void start(final ResourceConfig configuration) {
+        container = (ExtendedSpringTestContainer) new SpringGrizzlyTestContainerFactory().create(URI.create("http://localhost:0/"),
+                DeploymentContext.builder(configuration).build());
+        container.start();
+    }
+
+    private Response get(final String path) {
+        return client.target(container.getBaseUri()).path("suspended").path(path).request().get();
+    }
+
+    @Path("suspended")
+    @Produces(MediaType.TEXT_PLAIN)
+    public static class SuspendedResource {
+
+        @GET
+        @Path("expire")
+        public void expire(@Suspended final AsyncResponse asyncResponse) {
+            asyncResponse.setTimeout(100, TimeUnit.MILLISECONDS);
+        }
+
+        @GET
+        @Path("resume")
+        public void resumeByTimeout(@Suspended final AsyncResponse asyncResponse) {
+            asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+
+                @Override
+                public void handleTimeout(final AsyncResponse asyncResponse) {
+                    asyncResponse.resume("resumed by timeout");
+                }
+            });
+            asyncResponse.setTimeout(100, TimeUnit.MILLISECONDS);
+        }
+
+        @GET
+        @Path("thread")
+        public void resumeWithTimeoutThread(@Suspended final AsyncResponse asyncResponse) {
+            asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+
+                @Override
+                public void handleTimeout(final AsyncResponse asyncResponse) {
+                    asyncResponse.resume(Thread.currentThread().getName());
+                }
+            });
+            asyncResponse.setTimeout(100, TimeUnit.MILLISECONDS);
+        }
+
+        @GET
+        @Path("resumed")
+        public void resumed(@Suspended final AsyncResponse asyncResponse) {
+            asyncResponse.setTimeout(10, TimeUnit.SECONDS);
+            asyncResponse.resume("resumed");
+        }
+    }
+}
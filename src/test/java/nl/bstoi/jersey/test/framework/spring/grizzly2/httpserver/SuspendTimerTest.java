@@ -0,0 +1,77 @@
+package nl.bstoi.jersey.test.framework.spring.grizzly2.httpserver;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SuspendTimerTest {
+
+    @Test(timeout = 10000)
+    public void runsTaskAfterItsDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        SuspendTimer.shared().schedule(countDown(latch), 100, TimeUnit.MILLISECONDS);
+
+        latch.await();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test(timeout = 10000)
+    public void cancelledTaskDoesNotRun() throws InterruptedException {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final CountDownLatch later = new CountDownLatch(1);
+        final SuspendTimer.Timeout timeout = SuspendTimer.shared().schedule(countDown(cancelled), 50,
+                TimeUnit.MILLISECONDS);
+        SuspendTimer.shared().schedule(countDown(later), 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        later.await();
+        assertEquals(1, cancelled.getCount());
+    }
+
+    @Test(timeout = 10000)
+    public void taskThatRanCannotBeCancelled() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final SuspendTimer.Timeout timeout = SuspendTimer.shared().schedule(countDown(latch), 10,
+                TimeUnit.MILLISECONDS);
+
+        latch.await();
+        assertFalse(timeout.cancel());
+    }
+
+    @Test(timeout = 10000)
+    public void runsEveryTaskOfTheSameTick() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            SuspendTimer.shared().schedule(countDown(latch), 50, TimeUnit.MILLISECONDS);
+        }
+
+        latch.await();
+    }
+
+    @Test(timeout = 20000)
+    public void runsTaskDelayedLongerThanOneRoundOfTheWheel() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long delay = 512 * SuspendTimer.TICK_MILLIS + 500;
+        final long start = System.nanoTime();
+        SuspendTimer.shared().schedule(countDown(latch), delay, TimeUnit.MILLISECONDS);
+
+        latch.await();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= delay);
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package nl.bstoi.jersey.test.framework.spring.inmemory;
+
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import nl.bstoi.jersey.test.framework.spring.grizzly.SpringTestContainerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpringInMemoryTestContainerFactoryTest extends SpringContextJerseyTest {
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(EchoResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext(Echo.class));
+    }
+
+    @Override
+    protected SpringTestContainerFactory getTestContainerFactory() {
+        return new SpringInMemoryTestContainerFactory();
+    }
+
+    @Test
+    public void servesGetRequestsWithTheSpringBean() {
+        getSpringApplicationContext().getBean(Echo.class).setPrefix("in-memory");
+
+        assertEquals("in-memory get ?q=x", target("echo/get").queryParam("q", "x").request().get(String.class));
+    }
+
+    @Test
+    public void servesPostRequestsWithAnEntity() {
+        final Response response = target("echo").request().post(Entity.text("body"));
+
+        assertEquals(201, response.getStatus());
+        assertEquals("echo body", response.readEntity(String.class));
+    }
+
+    @Test
+    public void answersUnknownResourcesWithNotFound() {
+        assertEquals(404, target("missing").request().get().getStatus());
+    }
+
+    /**
+     * Spring bean prefixing the echoed text.
+     */
+    public static class Echo {
+
+        private volatile String prefix = "echo";
+
+        public String echo(final String text) {
+            return prefix + " " + text;
+        }
+
+        public void setPrefix(final String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    @Path("echo")
+    public static class EchoResource {
+
+        @Autowired
+        private Echo echo;
+
+        @GET
+        @Path("{text}")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get(@PathParam("text") final String text, @QueryParam("q") final String query) {
+            return echo.echo(text + " ?q=" + query);
+        }
+
+        @POST
+        @Consumes(MediaType.TEXT_PLAIN)
+        @Produces(MediaType.TEXT_PLAIN)
+        public Response post(final String text) {
+            return Response.status(Response.Status.CREATED).entity(echo.echo(text)).build();
+        }
+    }
+}
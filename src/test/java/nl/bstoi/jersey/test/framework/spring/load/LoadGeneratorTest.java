@@ -0,0 +1,148 @@
+package nl.bstoi.jersey.test.framework.spring.load;
+
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest extends SpringContextJerseyTest {
+
+    private static final long STALL_MILLIS = 200;
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig(LoadResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext(Server.class));
+    }
+
+    @Test
+    public void sendsTheNumberOfRequests() {
+        final LoadResult result = load(target("load")).concurrency(4).requests(100).run();
+
+        assertEquals(100, result.getRequests());
+        assertEquals(0, result.getErrors());
+        assertEquals(100, result.getHistogram().getCount());
+        assertEquals(100, getServer().getRequests());
+    }
+
+    @Test
+    public void sendsTheRequest() {
+        final LoadResult result = load(target("load")).request(new LoadRequest() {
+
+            @Override
+            public Response invoke(final WebTarget target) {
+                return target.request().post(Entity.text("posted"));
+            }
+        }).requests(3).run();
+
+        assertEquals(0, result.getErrors());
+        assertEquals(3, getServer().getPosts());
+    }
+
+    @Test
+    public void rateSpacesTheRequests() {
+        final LoadResult result = load(target("load")).concurrency(4).rate(100, TimeUnit.SECONDS).requests(21).run();
+
+        assertEquals(21, result.getRequests());
+        assertTrue(result.toString(), result.getDuration(TimeUnit.MILLISECONDS) >= 200);
+    }
+
+    @Test
+    public void durationEndsARun() {
+        final LoadResult result = load(target("load")).concurrency(2).rate(50, TimeUnit.SECONDS)
+                .duration(200, TimeUnit.MILLISECONDS).run();
+
+        assertEquals(10, result.getRequests());
+        assertEquals(10, getServer().getRequests());
+    }
+
+    @Test
+    public void latencyOfAFixedRateIsMeasuredFromTheScheduledStart() {
+        final LoadResult result = load(target("load/stall")).rate(100, TimeUnit.SECONDS).requests(20).run();
+
+        // the requests scheduled while the first request stalled waited for it
+        assertTrue(result.toString(), result.getLatencyAtPercentile(50, TimeUnit.MILLISECONDS) >= STALL_MILLIS / 4);
+        assertTrue(result.toString(), result.getLatencyAtPercentile(100, TimeUnit.MILLISECONDS) >= STALL_MILLIS);
+    }
+
+    @Test
+    public void countsErrorResponses() {
+        final LoadResult result = load(target("missing")).requests(5).run();
+
+        assertEquals(5, result.getRequests());
+        assertEquals(5, result.getErrors());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requiresADurationOrNumberOfRequests() {
+        load(target("load")).concurrency(2).run();
+    }
+
+    private Server getServer() {
+        return getSpringApplicationContext().getBean(Server.class);
+    }
+
+    /**
+     * Spring bean counting the requests of the {@link LoadResource}.
+     */
+    public static class Server {
+
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger posts = new AtomicInteger();
+        private final AtomicBoolean stalled = new AtomicBoolean();
+
+        public int getRequests() {
+            return requests.get();
+        }
+
+        public int getPosts() {
+            return posts.get();
+        }
+    }
+
+    @Path("load")
+    @Produces(MediaType.TEXT_PLAIN)
+    public static class LoadResource {
+
+        @Autowired
+        private Server server;
+
+        @GET
+        public String get() {
+            return String.valueOf(server.requests.incrementAndGet());
+        }
+
+        @POST
+        public String post(final String entity) {
+            server.posts.incrementAndGet();
+            return entity;
+        }
+
+        @GET
+        @Path("stall")
+        public String stallOnce() throws InterruptedException {
+            if (server.stalled.compareAndSet(false, true)) {
+                TimeUnit.MILLISECONDS.sleep(STALL_MILLIS);
+            }
+            return "stall";
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package nl.bstoi.jersey.test.framework.spring.log;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogRecordBufferTest {
+
+    private static final String JERSEY_LOGGER = "org.glassfish.jersey.server.ServerRuntime";
+
+    @Test
+    public void recordsJerseyLoggersAtTheLevelOfTheRecording() {
+        final LogRecordBuffer buffer = new LogRecording(Level.FINE, 10).newBuffer();
+        buffer.publish(record(JERSEY_LOGGER, Level.FINE, "recorded"));
+        buffer.publish(record(JERSEY_LOGGER, Level.FINER, "below the level"));
+        buffer.publish(record("org.glassfish.jersey.test.JerseyTest", Level.SEVERE, "test framework"));
+        buffer.publish(record("org.springframework.context", Level.SEVERE, "not Jersey"));
+        buffer.publish(record(null, Level.SEVERE, "anonymous"));
+
+        assertEquals(Lists.newArrayList("recorded"), messages(buffer.getRecords()));
+    }
+
+    @Test
+    public void overwritesTheOldestRecordsWhenFull() {
+        final LogRecordBuffer buffer = new LogRecording(Level.INFO, 3).newBuffer();
+        for (int i = 0; i < 5; i++) {
+            buffer.publish(record(JERSEY_LOGGER, Level.INFO, String.valueOf(i)));
+        }
+
+        assertEquals(Lists.newArrayList("2", "3", "4"), messages(buffer.getRecords()));
+    }
+
+    @Test
+    public void clearForgetsTheRecordedRecords() {
+        final LogRecordBuffer buffer = new LogRecording(Level.INFO, 3).newBuffer();
+        buffer.publish(record(JERSEY_LOGGER, Level.INFO, "before"));
+        buffer.clear();
+        assertTrue(buffer.getRecords().isEmpty());
+
+        buffer.publish(record(JERSEY_LOGGER, Level.INFO, "after"));
+        assertEquals(Lists.newArrayList("after"), messages(buffer.getRecords()));
+    }
+
+    @Test(timeout = 30000)
+    public void keepsTheLatestRecordsOfConcurrentThreads() throws InterruptedException {
+        final int threads = 4;
+        final int recordsPerThread = 10000;
+        final LogRecordBuffer buffer = new LogRecording(Level.INFO, 1000).newBuffer();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> publishers = Lists.newArrayList();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            publishers.add(new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        buffer.publish(record(JERSEY_LOGGER, Level.INFO, thread + ":" + i));
+                    }
+                }
+            }));
+        }
+        for (final Thread publisher : publishers) {
+            publisher.start();
+        }
+        start.countDown();
+        for (final Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        final List<String> messages = messages(buffer.getRecords());
+        assertEquals(1000, messages.size());
+        assertEquals(1000, Sets.newHashSet(messages).size());
+        // the records of every thread are kept in the order they were published
+        final int[] last = new int[threads];
+        for (final String message : messages) {
+            final String[] parts = message.split(":");
+            final int thread = Integer.parseInt(parts[0]);
+            final int index = Integer.parseInt(parts[1]);
+            assertTrue(message, index >= last[thread]);
+            last[thread] = index;
+        }
+    }
+
+    @Test
+    public void boundThreadRecordsOnlyInItsBuffer() {
+        final LogRecording recording = new LogRecording(Level.INFO, 10);
+        final LogRecordBuffer bound = recording.newBuffer();
+        final LogRecordBuffer other = recording.newBuffer();
+        final Logger logger = Logger.getLogger(JERSEY_LOGGER);
+        LogRecorder.activate(bound);
+        LogRecorder.activate(other);
+        try {
+            logger.info("shared");
+            final LogRecordBuffer previous = LogRecorder.bind(bound);
+            try {
+                logger.info("bound");
+            } finally {
+                LogRecorder.bind(previous);
+            }
+        } finally {
+            LogRecorder.deactivate(other);
+            LogRecorder.deactivate(bound);
+        }
+        logger.info("inactive");
+
+        assertEquals(Lists.newArrayList("shared", "bound"), messages(bound.getRecords()));
+        assertEquals(Lists.newArrayList("shared"), messages(other.getRecords()));
+    }
+
+    private static LogRecord record(final String loggerName, final Level level, final String message) {
+        final LogRecord record = new LogRecord(level, message);
+        record.setLoggerName(loggerName);
+        return record;
+    }
+
+    private static List<String> messages(final List<LogRecord> records) {
+        final List<String> messages = Lists.newArrayList();
+        for (final LogRecord record : records) {
+            messages.add(record.getMessage());
+        }
+        return messages;
+    }
+}
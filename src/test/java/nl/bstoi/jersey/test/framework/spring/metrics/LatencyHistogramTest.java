@@ -0,0 +1,75 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getMean(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getValueAtPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void recordsCountMinMaxAndMean() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(-5);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(0, histogram.getMin(TimeUnit.NANOSECONDS));
+        assertEquals(3, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(TimeUnit.MILLISECONDS.toMicros(4) / 3, histogram.getMean(TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void percentilesAreAccurateToAFewPercent() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertWithin(500, histogram.getValueAtPercentile(50, TimeUnit.MICROSECONDS));
+        assertWithin(990, histogram.getValueAtPercentile(99, TimeUnit.MICROSECONDS));
+        assertEquals(1000, histogram.getValueAtPercentile(100, TimeUnit.MICROSECONDS));
+        assertEquals(1, histogram.getValueAtPercentile(0, TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        histogram.record(7);
+        histogram.record(9);
+
+        assertEquals(7, histogram.getValueAtPercentile(50, TimeUnit.NANOSECONDS));
+        assertEquals(9, histogram.getValueAtPercentile(100, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void resetForgetsAllValues() {
+        histogram.record(TimeUnit.SECONDS.toNanos(1));
+
+        histogram.reset();
+        histogram.record(10);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(10, histogram.getMin(TimeUnit.NANOSECONDS));
+        assertEquals(10, histogram.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPercentilesAbove100() {
+        histogram.getValueAtPercentile(100.5, TimeUnit.NANOSECONDS);
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected * 0.03);
+    }
+}
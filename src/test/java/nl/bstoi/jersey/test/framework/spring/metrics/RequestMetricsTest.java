@@ -0,0 +1,106 @@
+package nl.bstoi.jersey.test.framework.spring.metrics;
+
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestMetricsTest extends SpringContextJerseyTest {
+
+    private static final String RESOURCE = "GET /orders/{id}";
+    private static final int REQUESTS = 5;
+    private static final long RESOURCE_METHOD_MILLIS = 20;
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.REQUEST_METRICS);
+        return new ResourceConfig(OrderResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG, new AnnotationConfigApplicationContext());
+    }
+
+    @Test
+    public void recordsEveryStageOfEachRequestPerResource() throws InterruptedException {
+        get(REQUESTS);
+
+        final RequestMetrics metrics = getRequestMetrics();
+        for (final RequestStage stage : RequestStage.values()) {
+            assertEquals(stage.name(), REQUESTS, awaitCount(metrics.getHistogram(stage), REQUESTS));
+            assertEquals(stage.name(), REQUESTS, awaitCount(metrics.getHistogram(RESOURCE, stage), REQUESTS));
+        }
+        assertEquals(Collections.singleton(RESOURCE), metrics.getResources());
+    }
+
+    @Test
+    public void stagesAddUpToTheTotal() throws InterruptedException {
+        get(REQUESTS);
+
+        final LatencyHistogram method = getRequestMetrics().getHistogram(RESOURCE, RequestStage.RESOURCE_METHOD);
+        final LatencyHistogram total = getRequestMetrics().getHistogram(RESOURCE, RequestStage.TOTAL);
+        awaitCount(total, REQUESTS);
+        assertTrue(method.toString(), method.getMin(TimeUnit.MILLISECONDS) >= RESOURCE_METHOD_MILLIS);
+        assertTrue(total.toString(), total.getMin(TimeUnit.NANOSECONDS) >= method.getMin(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void unmatchedRequestsAreOnlyRecordedForAllRequests() throws InterruptedException {
+        assertEquals(404, target("missing").request().get().getStatus());
+
+        assertEquals(1, awaitCount(getRequestMetrics().getHistogram(RequestStage.TOTAL), 1));
+        assertTrue(getRequestMetrics().getResources().isEmpty());
+    }
+
+    @Test
+    public void resetForgetsTheRecordedRequests() throws InterruptedException {
+        get(1);
+        awaitCount(getRequestMetrics().getHistogram(RequestStage.TOTAL), 1);
+
+        getRequestMetrics().reset();
+
+        assertEquals(0, getRequestMetrics().getHistogram(RequestStage.TOTAL).getCount());
+        assertEquals(0, getRequestMetrics().getHistogram(RESOURCE, RequestStage.TOTAL).getCount());
+    }
+
+    private void get(final int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertEquals("order " + i, target("orders/" + i).request().get(String.class));
+        }
+    }
+
+    /**
+     * The stages of a request are recorded when Jersey finished the request, which can be just after the client
+     * received the response.
+     */
+    private static long awaitCount(final LatencyHistogram histogram, final long count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (histogram.getCount() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return histogram.getCount();
+    }
+
+    @Path("orders")
+    public static class OrderResource {
+
+        @GET
+        @Path("{id}")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String get(@PathParam("id") final String id) throws InterruptedException {
+            TimeUnit.MILLISECONDS.sleep(RESOURCE_METHOD_MILLIS);
+            return "order " + id;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nl.bstoi.jersey.test.framework.spring.profile;
+
+import nl.bstoi.jersey.test.framework.spring.SpringContextJerseyTest;
+import nl.bstoi.jersey.test.framework.spring.SpringTestProperties;
+import nl.bstoi.jersey.test.framework.spring.context.SpringContexts;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BootProfileTest extends SpringContextJerseyTest {
+
+    private static final long SLOW_BEAN_MILLIS = 50;
+
+    @Override
+    protected Application configure() {
+        enable(SpringTestProperties.BOOT_PROFILE);
+        return new ResourceConfig(PingResource.class)
+                .property(SpringContexts.CONTEXT_CONFIG_LOCATION, "bootProfileContext.xml");
+    }
+
+    @Test
+    public void measuresEveryPhaseInBootOrder() {
+        final BootProfile profile = getBootProfile();
+
+        assertEquals(Arrays.asList(BootPhase.values()), new ArrayList<BootPhase>(profile.getPhases().keySet()));
+        for (final BootPhase phase : BootPhase.values()) {
+            assertTrue(phase.name(), profile.getDuration(phase, TimeUnit.NANOSECONDS) >= 0);
+        }
+        assertEquals("pong", target("ping").request().get(String.class));
+    }
+
+    @Test
+    public void nestedPhasesArePartOfTheirParent() {
+        final BootProfile profile = getBootProfile();
+
+        assertTrue(profile.toString(), profile.getDuration(BootPhase.HK2_LOCATOR, TimeUnit.NANOSECONDS)
+                + profile.getDuration(BootPhase.RESOURCE_MODEL, TimeUnit.NANOSECONDS)
+                <= profile.getDuration(BootPhase.APPLICATION_HANDLER, TimeUnit.NANOSECONDS));
+        assertTrue(profile.toString(), profile.getTotal(TimeUnit.MILLISECONDS)
+                >= profile.getDuration(BootPhase.SPRING_CONTEXT_REFRESH, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void timesTheSpringBeansWithoutTheirDependencies() {
+        final BootProfile profile = getBootProfile();
+        final List<BeanTiming> beanTimings = profile.getBeanTimings();
+
+        assertTrue(profile.getDuration(BootPhase.SPRING_CONTEXT_REFRESH, TimeUnit.MILLISECONDS) >= SLOW_BEAN_MILLIS);
+        final BeanTiming slowBean = getBeanTiming(beanTimings, "slowBean");
+        assertEquals(SlowBean.class.getName(), slowBean.getType());
+        assertTrue(slowBean.toString(), slowBean.getSelfDuration(TimeUnit.MILLISECONDS) >= SLOW_BEAN_MILLIS);
+        final BeanTiming dependentBean = getBeanTiming(beanTimings, "dependentBean");
+        assertEquals(DependentBean.class.getName(), dependentBean.getType());
+        assertEquals(slowBean.getDuration(TimeUnit.NANOSECONDS), dependentBean.getDuration(TimeUnit.NANOSECONDS)
+                - dependentBean.getSelfDuration(TimeUnit.NANOSECONDS));
+        for (int i = 1; i < beanTimings.size(); i++) {
+            assertTrue(beanTimings.toString(), beanTimings.get(i - 1).getSelfDuration(TimeUnit.NANOSECONDS)
+                    >= beanTimings.get(i).getSelfDuration(TimeUnit.NANOSECONDS));
+        }
+        assertTrue(profile.toJson(), profile.toJson().contains("\"dependentBean\""));
+    }
+
+    private static BeanTiming getBeanTiming(final List<BeanTiming> beanTimings, final String name) {
+        for (final BeanTiming beanTiming : beanTimings) {
+            if (beanTiming.getName().equals(name)) {
+                return beanTiming;
+            }
+        }
+        throw new AssertionError(name + " is not timed: " + beanTimings);
+    }
+
+    public static class SlowBean {
+
+        public SlowBean() throws InterruptedException {
+            TimeUnit.MILLISECONDS.sleep(SLOW_BEAN_MILLIS);
+        }
+    }
+
+    public static class DependentBean {
+
+        public DependentBean(final SlowBean slowBean) {
+        }
+    }
+
+    @Path("ping")
+    public static class PingResource {
+
+        @GET
+        @Produces(MediaType.TEXT_PLAIN)
+        public String ping() {
+            return "pong";
+        }
+    }
+}